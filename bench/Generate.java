@@ -0,0 +1,386 @@
+package bench;
+
+import java.io.FileNotFoundException;
+import java.io.PrintWriter;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/** Writes large, reproducible inputs for trip and make.  Usage:
+ *      java bench.Generate map KIND N SEED OUT
+ *  writes a trip map of about N locations to the file OUT, where KIND is
+ *      grid       a jittered square grid of streets;
+ *      geometric  locations scattered uniformly at random, each joined to
+ *                 its nearest neighbors;
+ *      highway    a grid of streets overlaid with straighter arterials
+ *                 every ARTERIAL blocks and with highways, which run
+ *                 HIGHWAY blocks between interchanges without stopping.
+ *  Road lengths are never less than the straight-line distance between
+ *  their ends, and each road's Direction is the compass direction in
+ *  which it mostly runs, so A* estimates remain admissible.
+ *      java bench.Generate make WIDTH DEPTH FANIN STALE SEED OUT
+ *  writes a makefile OUT.mk, a file of ages OUT.dir, and a list of targets
+ *  OUT.in.  The makefile has DEPTH layers of WIDTH targets over a layer of
+ *  WIDTH source files; each target depends on FANIN targets of the layer
+ *  below, and the target "all" depends on the top layer.  All targets
+ *  start out up to date, except that a fraction STALE of the sources have
+ *  been changed since they were last used.
+ *  The same arguments always produce the same files.
+ *  @author Netra Sathe
+ */
+public final class Generate {
+
+    /** Spacing, in blocks, of arterials in a highway map. */
+    static final int ARTERIAL = 8;
+
+    /** Spacing, in blocks, of highway interchanges in a highway map. */
+    static final int HIGHWAY = 32;
+
+    /** Number of nearest neighbors joined to each location of a
+     *  geometric map. */
+    static final int NEIGHBORS = 3;
+
+    /** Not instantiable. */
+    private Generate() {
+    }
+
+    /** Generate the files described by ARGS. */
+    public static void main(String... args) {
+        try {
+            if (args.length == 5 && args[0].equals("map")) {
+                map(args[1], Integer.parseInt(args[2]),
+                    Long.parseLong(args[3]), args[4]);
+                return;
+            } else if (args.length == 7 && args[0].equals("make")) {
+                makefile(Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                         Integer.parseInt(args[3]),
+                         Double.parseDouble(args[4]),
+                         Long.parseLong(args[5]), args[6]);
+                return;
+            }
+        } catch (NumberFormatException excp) {
+            /* Fall through to usage message. */
+        } catch (IllegalArgumentException | FileNotFoundException excp) {
+            System.err.printf("Error: %s%n", excp.getMessage());
+            System.exit(1);
+        }
+        System.err.printf("Usage: java bench.Generate map KIND N SEED OUT%n"
+                          + "       java bench.Generate make WIDTH DEPTH "
+                          + "FANIN STALE SEED OUT%n"
+                          + "   KIND is grid, geometric, or highway.%n");
+        System.exit(1);
+    }
+
+    /** Write a map of KIND with about N locations, generated from SEED,
+     *  to the file named OUT. */
+    static void map(String kind, int n, long seed, String out)
+        throws FileNotFoundException {
+        if (n < 2) {
+            throw new IllegalArgumentException("need at least two locations");
+        }
+        RoadMap map = new RoadMap(new Random(seed));
+        switch (kind) {
+        case "grid":
+            map.grid(side(n), 1, 1);
+            break;
+        case "highway":
+            map.grid(side(n), ARTERIAL, HIGHWAY);
+            break;
+        case "geometric":
+            map.geometric(n);
+            break;
+        default:
+            throw new IllegalArgumentException("unknown map kind: " + kind);
+        }
+        try (PrintWriter w = new PrintWriter(out)) {
+            map.write(w);
+        }
+    }
+
+    /** Write a makefile, ages, and targets for DEPTH layers of WIDTH
+     *  targets with FANIN dependencies each, with a fraction STALE of the
+     *  sources changed, generated from SEED, to OUT.mk, OUT.dir, and
+     *  OUT.in. */
+    static void makefile(int width, int depth, int fanIn, double stale,
+                         long seed, String out)
+        throws FileNotFoundException {
+        if (width < 1 || depth < 1 || fanIn < 1 || fanIn > width
+            || stale < 0.0 || stale > 1.0) {
+            throw new IllegalArgumentException("bad makefile shape");
+        }
+        Random r = new Random(seed);
+        int[] deps = new int[fanIn];
+        try (PrintWriter mk = new PrintWriter(out + ".mk");
+             PrintWriter dir = new PrintWriter(out + ".dir");
+             PrintWriter in = new PrintWriter(out + ".in")) {
+            int now = 10 * (depth + 3);
+            dir.println(now);
+            for (int i = 0; i < width; i += 1) {
+                int age = r.nextDouble() < stale
+                    ? now - 5 : 1 + r.nextInt(9);
+                dir.printf("%s %d%n", target(0, i), age);
+            }
+            for (int d = 1; d <= depth; d += 1) {
+                for (int i = 0; i < width; i += 1) {
+                    String t = target(d, i);
+                    pick(deps, i, width, r);
+                    StringBuilder line = new StringBuilder(t).append(':');
+                    StringBuilder command =
+                        new StringBuilder("\tcc -o ").append(t);
+                    for (int k : deps) {
+                        line.append(' ').append(target(d - 1, k));
+                        command.append(' ').append(target(d - 1, k));
+                    }
+                    mk.println(line);
+                    mk.println(command);
+                    dir.printf("%s %d%n", t, 10 * d + 1 + r.nextInt(9));
+                }
+            }
+            StringBuilder all = new StringBuilder("all:");
+            for (int i = 0; i < width; i += 1) {
+                all.append(' ').append(target(depth, i));
+            }
+            mk.println(all);
+            mk.println("\techo done");
+            in.println("all");
+        }
+    }
+
+    /** Fill DEPS with distinct random numbers in [0, WIDTH) using R, the
+     *  first of which is I, so that every target of a layer is used by
+     *  the layer above. */
+    private static void pick(int[] deps, int i, int width, Random r) {
+        deps[0] = i;
+        for (int k = 1; k < deps.length; k += 1) {
+            int j;
+            do {
+                j = r.nextInt(width);
+            } while (contains(deps, k, j));
+            deps[k] = j;
+        }
+        Arrays.sort(deps);
+    }
+
+    /** Returns true iff J is among A[0 .. N-1]. */
+    private static boolean contains(int[] a, int n, int j) {
+        for (int k = 0; k < n; k += 1) {
+            if (a[k] == j) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns the name of target I of layer D (0 for sources). */
+    private static String target(int d, int i) {
+        return d == 0 ? "src" + i + ".c" : "t" + d + "_" + i;
+    }
+
+    /** Returns the side of the smallest square grid with at least N
+     *  vertices. */
+    static int side(int n) {
+        int side = (int) Math.sqrt(n);
+        return side * side < n ? side + 1 : side;
+    }
+
+    /** A map being generated: locations, numbered from 0, and the roads
+     *  between them, held in arrays until written. */
+    private static class RoadMap {
+
+        /** An empty map, whose random choices come from R. */
+        RoadMap(Random r) {
+            _r = r;
+        }
+
+        /** Add a SIDE x SIDE grid of locations, one mile apart with some
+         *  jitter, joined by streets.  Every ARTERIAL-th row and column of
+         *  streets is a straighter arterial.  If SKIP exceeds 1, highways
+         *  also join every SKIP-th location along every SKIP-th row and
+         *  column directly. */
+        void grid(int side, int arterial, int skip) {
+            for (int row = 0; row < side; row += 1) {
+                for (int col = 0; col < side; col += 1) {
+                    location(col + 0.3 * _r.nextDouble(),
+                             row + 0.3 * _r.nextDouble());
+                }
+            }
+            for (int row = 0; row < side; row += 1) {
+                for (int col = 0; col < side; col += 1) {
+                    int v = row * side + col;
+                    if (col + 1 < side) {
+                        boolean major = arterial > 1 && row % arterial == 0;
+                        road(v, v + 1, (major ? "Blvd_" : "St_") + row,
+                             major ? 0.02 : 0.4);
+                    }
+                    if (row + 1 < side) {
+                        boolean major = arterial > 1 && col % arterial == 0;
+                        road(v, v + side, (major ? "Pkwy_" : "Ave_") + col,
+                             major ? 0.02 : 0.4);
+                    }
+                    if (skip > 1 && row % skip == 0 && col % skip == 0) {
+                        if (col + skip < side) {
+                            road(v, v + skip, "I-" + (20 * (row / skip) + 10),
+                                 0.0);
+                        }
+                        if (row + skip < side) {
+                            road(v, v + skip * side,
+                                 "I-" + (10 * (col / skip) + 5), 0.0);
+                        }
+                    }
+                }
+            }
+        }
+
+        /** Add N locations scattered uniformly over a square with one
+         *  location per square mile on average, each joined to its
+         *  NEIGHBORS nearest neighbors, plus roads joining consecutive
+         *  locations in a serpentine order through the square, so that
+         *  the map is connected. */
+        void geometric(int n) {
+            int side = side(n);
+            for (int v = 0; v < n; v += 1) {
+                location(side * _r.nextDouble(), side * _r.nextDouble());
+            }
+            int[] cellStart = new int[side * side + 1];
+            int[] cellOf = new int[n];
+            for (int v = 0; v < n; v += 1) {
+                int row = Math.min(side - 1, (int) _y[v]);
+                int col = Math.min(side - 1, (int) _x[v]);
+                cellOf[v] = row * side + (row % 2 == 0 ? col : side - 1 - col);
+                cellStart[cellOf[v] + 1] += 1;
+            }
+            for (int c = 0; c < side * side; c += 1) {
+                cellStart[c + 1] += cellStart[c];
+            }
+            int[] byCell = new int[n];
+            int[] fill = Arrays.copyOf(cellStart, side * side);
+            for (int v = 0; v < n; v += 1) {
+                byCell[fill[cellOf[v]]] = v;
+                fill[cellOf[v]] += 1;
+            }
+            for (int k = 1; k < n; k += 1) {
+                road(byCell[k - 1], byCell[k], "Rd_" + k, 0.3);
+            }
+            int[] best = new int[NEIGHBORS];
+            double[] bestD = new double[NEIGHBORS];
+            for (int v = 0; v < n; v += 1) {
+                Arrays.fill(best, -1);
+                Arrays.fill(bestD, Double.MAX_VALUE);
+                int row = Math.min(side - 1, (int) _y[v]);
+                int col = Math.min(side - 1, (int) _x[v]);
+                for (int dr = -1; dr <= 1; dr += 1) {
+                    for (int dc = -1; dc <= 1; dc += 1) {
+                        int r = row + dr, c = col + dc;
+                        if (r < 0 || r >= side || c < 0 || c >= side) {
+                            continue;
+                        }
+                        int cell = r * side + (r % 2 == 0 ? c : side - 1 - c);
+                        for (int k = cellStart[cell];
+                             k < cellStart[cell + 1]; k += 1) {
+                            int w = byCell[k];
+                            if (w > v) {
+                                insert(best, bestD, w, dist(v, w));
+                            }
+                        }
+                    }
+                }
+                for (int k = 0; k < NEIGHBORS && best[k] >= 0; k += 1) {
+                    road(v, best[k], "Ln_" + v, 0.3);
+                }
+            }
+        }
+
+        /** Insert W, at distance D, into the sorted list of nearest
+         *  locations BEST, with distances BESTD, if it is near enough. */
+        private void insert(int[] best, double[] bestD, int w, double d) {
+            int k = best.length - 1;
+            if (d >= bestD[k]) {
+                return;
+            }
+            while (k > 0 && bestD[k - 1] > d) {
+                best[k] = best[k - 1];
+                bestD[k] = bestD[k - 1];
+                k -= 1;
+            }
+            best[k] = w;
+            bestD[k] = d;
+        }
+
+        /** Add a location at (X, Y), rounded to the precision with which
+         *  it will be written. */
+        void location(double x, double y) {
+            if (_nlocs == _x.length) {
+                _x = Arrays.copyOf(_x, 2 * _nlocs);
+                _y = Arrays.copyOf(_y, 2 * _nlocs);
+            }
+            _x[_nlocs] = Math.round(x * 1e4) / 1e4;
+            _y[_nlocs] = Math.round(y * 1e4) / 1e4;
+            _nlocs += 1;
+        }
+
+        /** Add a road named NAME from location U to location V, longer
+         *  than the straight-line distance by a random fraction of up to
+         *  DETOUR. */
+        void road(int u, int v, String name, double detour) {
+            if (_nroads == _from.length) {
+                int n = 2 * _nroads;
+                _from = Arrays.copyOf(_from, n);
+                _to = Arrays.copyOf(_to, n);
+                _len = Arrays.copyOf(_len, n);
+                _name = Arrays.copyOf(_name, n);
+            }
+            _from[_nroads] = u;
+            _to[_nroads] = v;
+            _len[_nroads] = dist(u, v) * (1.0 + detour * _r.nextDouble());
+            _name[_nroads] = name;
+            _nroads += 1;
+        }
+
+        /** Returns the straight-line distance between locations U and
+         *  V. */
+        double dist(int u, int v) {
+            double dx = _x[u] - _x[v], dy = _y[u] - _y[v];
+            return Math.sqrt(dx * dx + dy * dy);
+        }
+
+        /** Returns the compass direction in which a road from U to V
+         *  mostly runs. */
+        String direction(int u, int v) {
+            double dx = _x[v] - _x[u], dy = _y[v] - _y[u];
+            if (Math.abs(dx) >= Math.abs(dy)) {
+                return dx >= 0 ? "WE" : "EW";
+            }
+            return dy >= 0 ? "SN" : "NS";
+        }
+
+        /** Write me to W in trip's map format. */
+        void write(PrintWriter w) {
+            for (int v = 0; v < _nlocs; v += 1) {
+                w.printf(Locale.ROOT, "L V%d %.4f %.4f%n", v, _x[v], _y[v]);
+            }
+            for (int e = 0; e < _nroads; e += 1) {
+                w.printf(Locale.ROOT, "R V%d %s %.4f %s V%d%n",
+                         _from[e], _name[e],
+                         Math.ceil(_len[e] * 1e4) / 1e4,
+                         direction(_from[e], _to[e]), _to[e]);
+            }
+        }
+
+        /** Source of random choices. */
+        private final Random _r;
+        /** Number of locations. */
+        private int _nlocs;
+        /** Coordinates of the locations. */
+        private double[] _x = new double[16], _y = new double[16];
+        /** Number of roads. */
+        private int _nroads;
+        /** Ends of the roads. */
+        private int[] _from = new int[16], _to = new int[16];
+        /** Lengths of the roads. */
+        private double[] _len = new double[16];
+        /** Names of the roads. */
+        private String[] _name = new String[16];
+    }
+
+}
@@ -0,0 +1,130 @@
+package bench;
+
+import graph.DirectedGraph;
+import graph.Graph;
+import graph.SimpleShortestPaths;
+
+import java.util.Random;
+
+import static java.lang.Math.sqrt;
+
+/** Times A* searches across square grid graphs with each kind of
+ *  ShortestPaths fringe.  Usage:
+ *      java bench.ShortestPathsBench [ SIDE ... ]
+ *  where each SIDE is the side length of a grid to try (default 100,
+ *  300, and 1000).
+ *  @author Netra Sathe
+ */
+public final class ShortestPathsBench {
+
+    /** Fringe arities compared; 0 denotes the TreeSet fringe. */
+    static final int[] ARITIES = { 0, 2, 4, 8 };
+
+    /** Number of untimed warm-up runs per configuration. */
+    static final int WARMUP = 3;
+
+    /** Number of timed runs per configuration. */
+    static final int RUNS = 5;
+
+    /** Run the benchmark on the grid sizes in ARGS. */
+    public static void main(String... args) {
+        int[] sides = { 100, 300, 1000 };
+        if (args.length > 0) {
+            sides = new int[args.length];
+            for (int i = 0; i < args.length; i += 1) {
+                sides[i] = Integer.parseInt(args[i]);
+            }
+        }
+        for (int side : sides) {
+            Grid grid = new Grid(side, 61);
+            for (int arity : ARITIES) {
+                for (int i = 0; i < WARMUP; i += 1) {
+                    grid.search(arity);
+                }
+                long start = System.nanoTime();
+                for (int i = 0; i < RUNS; i += 1) {
+                    grid.search(arity);
+                }
+                double ms = (System.nanoTime() - start) / 1e6 / RUNS;
+                System.out.printf("grid %dx%d  fringe %-8s %10.2f ms%n",
+                                  side, side,
+                                  arity == 0 ? "tree" : arity + "-ary",
+                                  ms);
+            }
+        }
+    }
+
+    /** A SIDE x SIDE grid of vertices with edges in both directions
+     *  between horizontal and vertical neighbors. */
+    static class Grid {
+        /** A grid with side length SIDE whose edge lengths are randomly
+         *  stretched Euclidean distances, generated from SEED. */
+        Grid(int side, long seed) {
+            Random r = new Random(seed);
+            _side = side;
+            _graph = new DirectedGraph();
+            int n = side * side;
+            _x = new double[n + 1];
+            _y = new double[n + 1];
+            _stretch = new double[n + 1];
+            for (int v = 1; v <= n; v += 1) {
+                _graph.add();
+                _x[v] = (v - 1) % side + 0.3 * r.nextDouble();
+                _y[v] = (v - 1) / side + 0.3 * r.nextDouble();
+                _stretch[v] = 1.0 + r.nextDouble();
+            }
+            for (int v = 1; v <= n; v += 1) {
+                if ((v - 1) % side != side - 1) {
+                    _graph.add(v, v + 1);
+                    _graph.add(v + 1, v);
+                }
+                if (v + side <= n) {
+                    _graph.add(v, v + side);
+                    _graph.add(v + side, v);
+                }
+            }
+        }
+
+        /** Returns the straight-line distance between U and V. */
+        double dist(int u, int v) {
+            double dx = _x[u] - _x[v], dy = _y[u] - _y[v];
+            return sqrt(dx * dx + dy * dy);
+        }
+
+        /** Run one corner-to-corner A* search using a fringe of the given
+         *  ARITY.  Returns the length of the path found. */
+        double search(final int arity) {
+            final int dest = _side * _side;
+            SimpleShortestPaths paths =
+                new SimpleShortestPaths(_graph, 1, dest) {
+                    @Override
+                    protected double getWeight(int u, int v) {
+                        return dist(u, v) * _stretch[u];
+                    }
+
+                    @Override
+                    protected double estimatedDistance(int v) {
+                        return dist(v, dest);
+                    }
+
+                    @Override
+                    protected int fringeArity() {
+                        return arity;
+                    }
+                };
+            paths.setPaths();
+            return paths.getWeight(dest);
+        }
+
+        /** Side length. */
+        private final int _side;
+        /** The grid. */
+        private final Graph _graph;
+        /** Vertex coordinates. */
+        private final double[] _x, _y;
+        /** Factor by which edges leaving each vertex exceed the straight-line
+         *  distance. */
+        private final double[] _stretch;
+    }
+
+}
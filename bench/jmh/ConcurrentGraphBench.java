@@ -0,0 +1,133 @@
+package bench.jmh;
+
+import graph.ConcurrentGraph;
+import graph.Graph;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Measures the throughput of several threads sharing one random graph
+ *  of SIZE vertices, comparing ConcurrentGraph against a DirectedGraph
+ *  or UndirectedGraph behind a single lock (SynchronizedGraph).  Run
+ *  with JMH's -t option to vary the number of threads.  Benchmarks that
+ *  add an edge remove it again, so the graph stays the same size.
+ *  @author Netra Sathe
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(4)
+@Fork(1)
+public class ConcurrentGraphBench {
+
+    /** Number of edge operations in each 1000 done by mixed. */
+    private static final int UPDATES_PER_1000 = 100;
+
+    /** Implementation: "concurrent" or "synchronized". */
+    @Param({ "concurrent", "synchronized" })
+    public String impl;
+
+    /** Kind of graph. */
+    @Param({ "directed", "undirected" })
+    public String kind;
+
+    /** Number of vertices. */
+    @Param({ "10000", "1000000" })
+    public int size;
+
+    /** Build the shared graph. */
+    @Setup
+    public void setup() {
+        switch (impl) {
+        case "concurrent":
+            graph = new ConcurrentGraph(kind.equals("directed"));
+            break;
+        case "synchronized":
+            graph = new SynchronizedGraph(Graphs.empty(kind));
+            break;
+        default:
+            throw new IllegalArgumentException("unknown implementation: "
+                                               + impl);
+        }
+        Graphs.random(graph, size, Graphs.SEED);
+    }
+
+    /** The random choices of one benchmark thread. */
+    @State(Scope.Thread)
+    public static class Chooser {
+        /** Returns a random vertex of a graph with N vertices. */
+        int vertex(int n) {
+            return 1 + random.nextInt(n);
+        }
+
+        /** Returns a random int in [0 .. N-1]. */
+        int nextInt(int n) {
+            return random.nextInt(n);
+        }
+
+        /** Source of this thread's choices. */
+        private final Random random =
+            new Random(Graphs.SEED + Thread.currentThread().getId());
+    }
+
+    /** Add a random edge that is not present and remove it again. */
+    @Benchmark
+    public int addRemoveEdge(Chooser c) {
+        return addRemove(c.vertex(size), c.vertex(size));
+    }
+
+    /** Test for a random edge. */
+    @Benchmark
+    public boolean contains(Chooser c) {
+        return graph.contains(c.vertex(size), c.vertex(size));
+    }
+
+    /** Iterate over the successors of a random vertex. */
+    @Benchmark
+    public void successors(Chooser c, Blackhole bh) {
+        for (int w : graph.successors(c.vertex(size))) {
+            bh.consume(w);
+        }
+    }
+
+    /** A read-mostly mix: UPDATES_PER_1000 of every 1000 calls add and
+     *  remove an edge, and the rest test for one. */
+    @Benchmark
+    public int mixed(Chooser c) {
+        int u = c.vertex(size), v = c.vertex(size);
+        if (c.nextInt(1000) < UPDATES_PER_1000) {
+            return addRemove(u, v);
+        }
+        return graph.contains(u, v) ? 1 : 0;
+    }
+
+    /** If (U, V) is not an edge, add it and remove it again.  Returns its
+     *  id, or 0 if it was already present. */
+    private int addRemove(int u, int v) {
+        if (graph.contains(u, v)) {
+            return 0;
+        }
+        int e = graph.add(u, v);
+        graph.remove(u, v);
+        return e;
+    }
+
+    /** The shared graph. */
+    private Graph graph;
+}
@@ -0,0 +1,44 @@
+package bench.jmh;
+
+import graph.Graph;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Times building a whole random graph: SIZE calls of add() followed by
+ *  about DEGREE * SIZE calls of add(u, v).
+ *  @author Netra Sathe
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class GraphBuildBench {
+
+    /** Kind of graph built. */
+    @Param({ "directed", "undirected" })
+    public String kind;
+
+    /** Number of vertices. */
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    /** Build one graph. */
+    @Benchmark
+    public Graph build() {
+        return Graphs.random(kind, size, Graphs.SEED);
+    }
+
+}
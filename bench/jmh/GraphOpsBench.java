@@ -0,0 +1,134 @@
+package bench.jmh;
+
+import graph.Graph;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/** Times single operations on a random graph of SIZE vertices.  Each
+ *  benchmark that changes the graph undoes its change, so the graph is
+ *  the same at every invocation.  Vertices and edges are drawn in turn
+ *  from fixed tables of random choices, so that the timings include the
+ *  cost of scattered memory accesses.
+ *  @author Netra Sathe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GraphOpsBench {
+
+    /** Number of entries in each table of random choices (a power of
+     *  2). */
+    private static final int CHOICES = 1 << 16;
+
+    /** Kind of graph. */
+    @Param({ "directed", "undirected" })
+    public String kind;
+
+    /** Number of vertices. */
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    /** Build the graph and the tables of choices. */
+    @Setup
+    public void setup() {
+        graph = Graphs.random(kind, size, Graphs.SEED);
+        Random r = new Random(Graphs.SEED + 1);
+        vertices = new int[CHOICES];
+        queryU = new int[CHOICES];
+        queryV = new int[CHOICES];
+        absentU = new int[CHOICES];
+        absentV = new int[CHOICES];
+        for (int i = 0; i < CHOICES; i += 1) {
+            int u = 1 + r.nextInt(size);
+            vertices[i] = u;
+            queryU[i] = u;
+            if (i % 2 == 0 && graph.outDegree(u) > 0) {
+                queryV[i] = graph.successor(u, r.nextInt(graph.outDegree(u)));
+            } else {
+                queryV[i] = 1 + r.nextInt(size);
+            }
+            int v;
+            do {
+                u = 1 + r.nextInt(size);
+                v = 1 + r.nextInt(size);
+            } while (u == v || graph.contains(u, v));
+            absentU[i] = u;
+            absentV[i] = v;
+        }
+    }
+
+    /** Returns the index of the next choice to use. */
+    private int next() {
+        next = (next + 1) & (CHOICES - 1);
+        return next;
+    }
+
+    /** Add a vertex and remove it again. */
+    @Benchmark
+    public int addRemoveVertex() {
+        int v = graph.add();
+        graph.remove(v);
+        return v;
+    }
+
+    /** Add an edge that is not in the graph and remove it again. */
+    @Benchmark
+    public int addRemoveEdge() {
+        int i = next();
+        int e = graph.add(absentU[i], absentV[i]);
+        graph.remove(absentU[i], absentV[i]);
+        return e;
+    }
+
+    /** Test for an edge; half the queries are for edges present. */
+    @Benchmark
+    public boolean contains() {
+        int i = next();
+        return graph.contains(queryU[i], queryV[i]);
+    }
+
+    /** Iterate over the successors of a vertex with successors(). */
+    @Benchmark
+    public void successors(Blackhole bh) {
+        for (int w : graph.successors(vertices[next()])) {
+            bh.consume(w);
+        }
+    }
+
+    /** Walk the successors of a vertex by index with successor(v, k). */
+    @Benchmark
+    public void successorsIndexed(Blackhole bh) {
+        int v = vertices[next()];
+        for (int k = 0, n = graph.outDegree(v); k < n; k += 1) {
+            bh.consume(graph.successor(v, k));
+        }
+    }
+
+    /** The graph. */
+    private Graph graph;
+    /** Vertices whose successors are walked. */
+    private int[] vertices;
+    /** Pairs tested by contains. */
+    private int[] queryU, queryV;
+    /** Pairs that are not edges of the graph. */
+    private int[] absentU, absentV;
+    /** Index of the last choice used. */
+    private int next;
+}
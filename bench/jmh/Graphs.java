@@ -0,0 +1,96 @@
+package bench.jmh;
+
+import graph.DirectedGraph;
+import graph.Graph;
+import graph.LabeledGraph;
+import graph.UndirectedGraph;
+
+import java.util.Random;
+
+/** Deterministic graphs for the benchmarks.
+ *  @author Netra Sathe
+ */
+final class Graphs {
+
+    /** Average number of edges leaving each vertex of a random graph. */
+    static final int DEGREE = 4;
+
+    /** Seed used for all generated graphs. */
+    static final long SEED = 61;
+
+    /** Not instantiable. */
+    private Graphs() {
+    }
+
+    /** Returns an empty graph of the given KIND: "directed" or
+     *  "undirected". */
+    static Graph empty(String kind) {
+        switch (kind) {
+        case "directed":
+            return new DirectedGraph();
+        case "undirected":
+            return new UndirectedGraph();
+        default:
+            throw new IllegalArgumentException("unknown graph kind: " + kind);
+        }
+    }
+
+    /** Returns a graph of the given KIND with N vertices and about
+     *  DEGREE * N edge endpoints leaving them, chosen uniformly at random
+     *  from SEED.  Vertex I + 1 always has an edge to I + 2, so that
+     *  every vertex is reachable from vertex 1. */
+    static Graph random(String kind, int n, long seed) {
+        return random(empty(kind), n, seed);
+    }
+
+    /** Add N vertices and random edges to the empty graph G, as for
+     *  random(kind, N, SEED), and return G. */
+    static Graph random(Graph G, int n, long seed) {
+        for (int i = 0; i < n; i += 1) {
+            G.add();
+        }
+        Random r = new Random(seed);
+        int perVertex = G.isDirected() ? DEGREE : DEGREE / 2;
+        for (int u = 1; u <= n; u += 1) {
+            if (u < n) {
+                G.add(u, u + 1);
+            }
+            for (int k = 1; k < perVertex; k += 1) {
+                G.add(u, 1 + r.nextInt(n));
+            }
+        }
+        return G;
+    }
+
+    /** Returns a directed grid of at least N vertices, SIDE on a side,
+     *  with edges in both directions between horizontal and vertical
+     *  neighbors, whose weights are chosen uniformly from [1, 2) using
+     *  SEED. */
+    static LabeledGraph<Void, Void> grid(int n, long seed) {
+        int side = side(n);
+        LabeledGraph<Void, Void> G = new LabeledGraph<>(new DirectedGraph());
+        Random r = new Random(seed);
+        for (int v = 1; v <= side * side; v += 1) {
+            G.add();
+        }
+        for (int v = 1; v <= side * side; v += 1) {
+            if ((v - 1) % side != side - 1) {
+                G.add(v, v + 1, null, 1.0 + r.nextDouble());
+                G.add(v + 1, v, null, 1.0 + r.nextDouble());
+            }
+            if (v + side <= side * side) {
+                G.add(v, v + side, null, 1.0 + r.nextDouble());
+                G.add(v + side, v, null, 1.0 + r.nextDouble());
+            }
+        }
+        return G;
+    }
+
+    /** Returns the side of the smallest square grid with at least N
+     *  vertices. */
+    static int side(int n) {
+        int side = (int) Math.sqrt(n);
+        return side * side < n ? side + 1 : side;
+    }
+
+}
@@ -0,0 +1,82 @@
+package bench.jmh;
+
+import graph.LabeledGraph;
+import graph.WeightedGraphPaths;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Times WeightedGraphPaths.setPaths() on a weighted square grid of at
+ *  least SIZE vertices, using the weights recorded in the graph, both to
+ *  the opposite corner and to every vertex.
+ *  @author Netra Sathe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SetPathsBench {
+
+    /** Number of vertices. */
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    /** Arity of the fringe heap, or 0 for the TreeSet fringe. */
+    @Param({ "0", "4" })
+    public int arity;
+
+    /** Build the grid. */
+    @Setup
+    public void setup() {
+        grid = Graphs.grid(size, Graphs.SEED);
+        corner = grid.maxVertex();
+    }
+
+    /** Find a shortest path between opposite corners.  Returns its
+     *  length. */
+    @Benchmark
+    public double pointToPoint() {
+        return search(corner);
+    }
+
+    /** Find shortest paths from a corner to all vertices.  Returns the
+     *  length of the one to the opposite corner. */
+    @Benchmark
+    public double singleSource() {
+        return search(0);
+    }
+
+    /** Run one search from vertex 1 to DEST (0 for all vertices).
+     *  Returns the length of the path to the opposite corner. */
+    private double search(int dest) {
+        WeightedGraphPaths paths =
+            new WeightedGraphPaths(grid, 1, dest) {
+                @Override
+                protected int fringeArity() {
+                    return arity;
+                }
+            };
+        paths.setPaths();
+        double result = paths.getWeight(corner);
+        paths.release();
+        return result;
+    }
+
+    /** The grid. */
+    private LabeledGraph<Void, Void> grid;
+    /** The corner opposite vertex 1. */
+    private int corner;
+}
@@ -0,0 +1,130 @@
+package bench.jmh;
+
+import graph.Graph;
+import graph.GraphFilter;
+import graph.Iteration;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+
+/** A Graph that makes another safe to share between threads by holding
+ *  one lock for every operation, in the manner of
+ *  Collections.synchronizedList.  The iterations returned by successors,
+ *  predecessors, and vertices are copies made while holding the lock;
+ *  as with a synchronized list, edges() must be iterated while
+ *  synchronized on the graph.  This is the baseline against which
+ *  ConcurrentGraph is measured.
+ *  @author Netra Sathe
+ */
+final class SynchronizedGraph extends GraphFilter {
+
+    /** A synchronized view of G, which no one else may use. */
+    SynchronizedGraph(Graph G) {
+        super(G);
+    }
+
+    @Override
+    public synchronized int add() {
+        return super.add();
+    }
+
+    @Override
+    public synchronized int add(int u, int v) {
+        return super.add(u, v);
+    }
+
+    @Override
+    public synchronized void remove(int v) {
+        super.remove(v);
+    }
+
+    @Override
+    public synchronized void remove(int u, int v) {
+        super.remove(u, v);
+    }
+
+    @Override
+    public synchronized int vertexSize() {
+        return super.vertexSize();
+    }
+
+    @Override
+    public synchronized int maxVertex() {
+        return super.maxVertex();
+    }
+
+    @Override
+    public synchronized int edgeSize() {
+        return super.edgeSize();
+    }
+
+    @Override
+    public synchronized int outDegree(int v) {
+        return super.outDegree(v);
+    }
+
+    @Override
+    public synchronized int inDegree(int v) {
+        return super.inDegree(v);
+    }
+
+    @Override
+    public synchronized boolean contains(int u) {
+        return super.contains(u);
+    }
+
+    @Override
+    public synchronized boolean contains(int u, int v) {
+        return super.contains(u, v);
+    }
+
+    @Override
+    public synchronized Iteration<Integer> vertices() {
+        return copy(super.vertices());
+    }
+
+    @Override
+    public synchronized Iteration<Integer> successors(int v) {
+        return copy(super.successors(v));
+    }
+
+    @Override
+    public synchronized int successor(int v, int k) {
+        return super.successor(v, k);
+    }
+
+    @Override
+    public synchronized int predecessor(int v, int k) {
+        return super.predecessor(v, k);
+    }
+
+    @Override
+    public synchronized Iteration<Integer> predecessors(int v) {
+        return copy(super.predecessors(v));
+    }
+
+    @Override
+    protected synchronized int edgeId(int u, int v) {
+        return super.edgeId(u, v);
+    }
+
+    /** Returns an iteration over a copy of the rest of ITEMS. */
+    private static Iteration<Integer> copy(Iteration<Integer> items) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int x : items) {
+            result.add(x);
+        }
+        Iterator<Integer> iter = result.iterator();
+        return new Iteration<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return iter.hasNext();
+            }
+
+            @Override
+            public Integer next() {
+                return iter.next();
+            }
+        };
+    }
+}
@@ -0,0 +1,97 @@
+package bench.jmh;
+
+import graph.BreadthFirstTraversal;
+import graph.DepthFirstTraversal;
+import graph.Graph;
+import graph.Traversal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Times complete breadth-first and depth-first traversals, from vertex
+ *  1, of a random graph of SIZE vertices, all of which are reachable.
+ *  Each traversal object is reused, as a client searching repeatedly
+ *  would.
+ *  @author Netra Sathe
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TraversalBench {
+
+    /** Kind of graph. */
+    @Param({ "directed", "undirected" })
+    public String kind;
+
+    /** Number of vertices. */
+    @Param({ "1000", "10000", "100000", "1000000", "10000000" })
+    public int size;
+
+    /** Build the graph and the traversals. */
+    @Setup
+    public void setup() {
+        Graph G = Graphs.random(kind, size, Graphs.SEED);
+        bfs = new BreadthFirstTraversal(G) {
+            @Override
+            protected boolean visit(int v) {
+                visited += 1;
+                return true;
+            }
+        };
+        dfs = new DepthFirstTraversal(G) {
+            @Override
+            protected boolean visit(int v) {
+                visited += 1;
+                return true;
+            }
+
+            @Override
+            protected boolean postVisit(int v) {
+                visited += 1;
+                return true;
+            }
+        };
+    }
+
+    /** Traverse the graph breadth first.  Returns the number of
+     *  visits. */
+    @Benchmark
+    public int breadthFirst() {
+        return run(bfs);
+    }
+
+    /** Traverse the graph depth first.  Returns the number of visits and
+     *  post-visits. */
+    @Benchmark
+    public int depthFirst() {
+        return run(dfs);
+    }
+
+    /** Run a fresh traversal with T from vertex 1.  Returns the number of
+     *  calls of visit and postVisit. */
+    private int run(Traversal t) {
+        visited = 0;
+        t.clear();
+        t.traverse(1);
+        return visited;
+    }
+
+    /** Reusable traversals of the graph. */
+    private Traversal bfs, dfs;
+    /** Number of visits in the current traversal. */
+    private int visited;
+}
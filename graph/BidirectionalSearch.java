@@ -0,0 +1,152 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A point-to-point search for ShortestPaths that grows one search
+ *  forward from the source along successors and another backward from
+ *  the destination along predecessors, stopping once no path through
+ *  the unsettled parts of the two fringes can beat the best meeting found
+ *  so far.  With A* estimates, both searches use the average potential
+ *  (estimatedDistance(v) - estimatedReverseDistance(v)) / 2, which is
+ *  consistent whenever the two estimates are, so the usual stopping test
+ *  on the sum of the two fringe minima remains exact.
+ *  @author Netra Sathe
+ */
+class BidirectionalSearch {
+
+    /** A search for PATHS, whose graph, source, and destination it uses,
+     *  with fringes that are heaps of the given ARITY. */
+    BidirectionalSearch(ShortestPaths paths, int arity) {
+        _paths = paths;
+        _G = paths.graphh;
+        _arity = arity;
+    }
+
+    /** Find a shortest path from my source to my destination, and record
+     *  the weights and predecessors of the vertices along it in my
+     *  ShortestPaths.  Leaves them unchanged if there is no path.  The
+     *  state of the two searches lives in SearchSpaces from this thread's
+     *  pool, which are returned afterwards. */
+    void search() {
+        _f = SearchSpace.acquire(_G);
+        _r = SearchSpace.acquire(_G);
+        try {
+            _fwd = _f.heap(_arity);
+            _rev = _r.heap(_arity);
+            int s = _paths.getSource(), t = _paths.getDest();
+            _f.setWeight(s, 0.0);
+            _r.setWeight(t, 0.0);
+            _fwd.put(s, potential(s));
+            _rev.put(t, -potential(t));
+            _best = s == t ? 0.0 : Double.POSITIVE_INFINITY;
+            _meet = s == t ? s : 0;
+            while (!_fwd.isEmpty() && !_rev.isEmpty()) {
+                if (_fwd.key(_fwd.peek()) + _rev.key(_rev.peek()) >= _best) {
+                    break;
+                }
+                if (_fwd.size() <= _rev.size()) {
+                    stepForward();
+                } else {
+                    stepBackward();
+                }
+            }
+            if (_meet != 0) {
+                record(s, t);
+            }
+        } finally {
+            _f.release();
+            _r.release();
+        }
+    }
+
+    /** Settle the minimum vertex of the forward fringe. */
+    private void stepForward() {
+        int u = _fwd.poll();
+        _f.mark(u);
+        for (int k = 0, n = _G.outDegree(u); k < n; k += 1) {
+            int v = _G.successor(u, k);
+            if (_f.marked(v)) {
+                continue;
+            }
+            double w = _f.weight(u) + _paths.edgeWeight(u, k, v);
+            if (w < _f.weight(v)) {
+                _f.setWeight(v, w);
+                _f.setPred(v, u);
+                _fwd.put(v, w + potential(v));
+                meet(v);
+            }
+        }
+    }
+
+    /** Settle the minimum vertex of the backward fringe. */
+    private void stepBackward() {
+        int u = _rev.poll();
+        _r.mark(u);
+        for (int k = 0, n = _G.inDegree(u); k < n; k += 1) {
+            int v = _G.predecessor(u, k);
+            if (_r.marked(v)) {
+                continue;
+            }
+            double w = _r.weight(u) + _paths.getWeight(v, u);
+            if (w < _r.weight(v)) {
+                _r.setWeight(v, w);
+                _r.setPred(v, u);
+                _rev.put(v, w - potential(v));
+                meet(v);
+            }
+        }
+    }
+
+    /** Note the path through V if it is the shortest seen so far. */
+    private void meet(int v) {
+        double df = _f.weight(v), dr = _r.weight(v);
+        if (df != Double.MAX_VALUE && dr != Double.MAX_VALUE
+            && df + dr < _best) {
+            _best = df + dr;
+            _meet = v;
+        }
+    }
+
+    /** Record the path from S through _meet to T in _paths. */
+    private void record(int s, int t) {
+        for (int v = _meet; v != s; v = _f.pred(v)) {
+            _paths.setWeight(v, _f.weight(v));
+            _paths.setPredecessor(v, _f.pred(v));
+        }
+        double w = _f.weight(_meet);
+        for (int v = _meet; v != t; v = _r.pred(v)) {
+            int next = _r.pred(v);
+            w += _paths.getWeight(v, next);
+            _paths.setWeight(next, w);
+            _paths.setPredecessor(next, v);
+        }
+    }
+
+    /** Returns the (cached) average potential of V. */
+    private double potential(int v) {
+        if (!_f.hasEstimate(v)) {
+            _f.setEstimate(v, (_paths.estimatedDistance(v)
+                               - _paths.estimatedReverseDistance(v)) / 2);
+        }
+        return _f.estimate(v);
+    }
+
+    /** The paths being computed. */
+    private final ShortestPaths _paths;
+    /** The graph searched. */
+    private final Graph _G;
+    /** Arity of the fringe heaps. */
+    private final int _arity;
+    /** State of the forward and backward searches: distances from the
+     *  source and to the destination, predecessors toward the source and
+     *  successors toward the destination, settled vertices as marks, and
+     *  (forward only) cached potentials. */
+    private SearchSpace _f, _r;
+    /** The two fringes, keyed by distance plus or minus potential. */
+    private IndexedHeap _fwd, _rev;
+    /** Weight of the shortest path found so far. */
+    private double _best;
+    /** The vertex where that path passes from one search to the other,
+     *  or 0 if none has been found. */
+    private int _meet;
+}
@@ -0,0 +1,498 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/** A directed or undirected graph that many threads may use at once.
+ *  Vertices are divided among STRIPES locks by vertex number.  The lock
+ *  of a vertex's stripe guards its adjacency lists, and also the
+ *  EdgeTable, one per stripe, that indexes the edges whose first end (the
+ *  smaller end, if undirected) is in that stripe.  An edge operation
+ *  locks the stripes of its two ends, the lower-numbered stripe first, so
+ *  operations on edges in different stripes never wait for each other
+ *  and no two operations can deadlock.  Adding a vertex locks only its
+ *  stripe (and all of them when the vertex slots must grow); removing one
+ *  locks every stripe, since its edges may reach any of them.
+ *
+ *  contains, edgeId, and the adding and removing of vertices and edges
+ *  are linearizable.  successors and predecessors return copies of the
+ *  adjacency list taken when they are called, vertices returns a copy of
+ *  the vertex set, and edges() is weakly consistent: it reports every
+ *  edge present throughout the iteration, and may or may not report
+ *  edges added or removed during it.  None of them ever throws
+ *  ConcurrentModificationException.  Queries made one after another,
+ *  such as outDegree(v) followed by successor(v, k), may see different
+ *  states of the graph if other threads change it in between.
+ *
+ *  Vertex numbers are assigned as in DirectedGraph and UndirectedGraph,
+ *  and edge ids are likewise dense and recycled, so a ConcurrentGraph may
+ *  be wrapped in a LabeledGraph (whose labels are not themselves
+ *  thread-safe).
+ *  @author Netra Sathe
+ */
+public final class ConcurrentGraph extends Graph {
+
+    /** Number of lock stripes (a power of 2). */
+    private static final int STRIPES = 64;
+
+    /** Initial number of vertex slots. */
+    private static final int INITIAL_SLOTS = 16;
+
+    /** An empty graph, which is directed iff DIRECTED. */
+    public ConcurrentGraph(boolean directed) {
+        this.directed = directed;
+        slots = new Vertex[INITIAL_SLOTS];
+        stripes = new ReentrantLock[STRIPES];
+        tables = new EdgeTable[STRIPES];
+        for (int s = 0; s < STRIPES; s += 1) {
+            stripes[s] = new ReentrantLock();
+            tables[s] = new EdgeTable();
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return vcount;
+    }
+
+    @Override
+    public int maxVertex() {
+        return maxv;
+    }
+
+    @Override
+    public int edgeSize() {
+        return (int) ecount.sum();
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try {
+            Vertex x = find(v);
+            return x == null ? 0 : x.succ.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int inDegree(int v) {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try {
+            Vertex x = find(v);
+            return x == null ? 0 : x.pred.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(int u) {
+        ReentrantLock lock = stripe(u);
+        lock.lock();
+        try {
+            return find(u) != null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        synchronized (numbering) {
+            int v;
+            if (!freed.isEmpty() && freed.peek() < maxv) {
+                v = freed.poll();
+            } else {
+                freed.clear();
+                v = maxv + 1;
+                if (v == slots.length) {
+                    lockAll();
+                    try {
+                        slots = Arrays.copyOf(slots, 2 * slots.length);
+                    } finally {
+                        unlockAll();
+                    }
+                }
+            }
+            ReentrantLock lock = stripe(v);
+            lock.lock();
+            try {
+                slots[v] = new Vertex(directed);
+            } finally {
+                lock.unlock();
+            }
+            maxv = Math.max(maxv, v);
+            vcount += 1;
+            return v;
+        }
+    }
+
+    @Override
+    public int add(int u, int v) {
+        lock(u, v);
+        try {
+            Vertex a = vertex(u), b = vertex(v);
+            int f = first(u, v), s = second(u, v);
+            EdgeTable table = tables[f & (STRIPES - 1)];
+            int id = table.get(f, s);
+            if (id >= 0) {
+                return id;
+            }
+            id = newId();
+            a.succ.add(v);
+            a.succIds.add(id);
+            if (directed) {
+                b.pred.add(u);
+            } else if (u != v) {
+                b.succ.add(u);
+                b.succIds.add(id);
+            }
+            table.put(f, s, id);
+            ecount.increment();
+            return id;
+        } finally {
+            unlock(u, v);
+        }
+    }
+
+    @Override
+    public void remove(int v) {
+        synchronized (numbering) {
+            lockAll();
+            try {
+                Vertex x = vertex(v);
+                while (!x.succ.isEmpty()) {
+                    unlink(v, x.succ.get(x.succ.size() - 1));
+                }
+                while (!x.pred.isEmpty()) {
+                    unlink(x.pred.get(x.pred.size() - 1), v);
+                }
+                slots[v] = null;
+            } finally {
+                unlockAll();
+            }
+            vcount -= 1;
+            if (v == maxv) {
+                int m = maxv;
+                while (m > 0 && slots[m] == null) {
+                    m -= 1;
+                }
+                maxv = m;
+            } else {
+                freed.add(v);
+            }
+        }
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        lock(u, v);
+        try {
+            vertex(u);
+            vertex(v);
+            unlink(u, v);
+        } finally {
+            unlock(u, v);
+        }
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        synchronized (numbering) {
+            ArrayList<Integer> out = new ArrayList<>(vcount);
+            for (int v = 1; v <= maxv; v += 1) {
+                if (slots[v] != null) {
+                    out.add(v);
+                }
+            }
+            return Iteration.iteration(out);
+        }
+    }
+
+    @Override
+    public int successor(int v, int k) {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try {
+            Vertex x = find(v);
+            return x == null ? 0 : x.succ.get(k);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    int successorEdge(int v, int k) {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try {
+            Vertex x = find(v);
+            return x == null ? 0 : x.succIds.get(k);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int predecessor(int v, int k) {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try {
+            Vertex x = find(v);
+            return x == null ? 0 : x.pred.get(k);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return snapshot(v, true).iteration();
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return snapshot(v, false).iteration();
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (true) {
+                    for (; k < ends.size(); k += 1) {
+                        if (directed || ends.get(k) >= u) {
+                            return true;
+                        }
+                    }
+                    if (u >= maxv) {
+                        return false;
+                    }
+                    u += 1;
+                    ends = snapshot(u, true);
+                    k = 0;
+                }
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                edge[0] = u;
+                edge[1] = ends.get(k);
+                k += 1;
+                return edge;
+            }
+
+            /** The vertex whose edges are being delivered. */
+            private int u;
+            /** A copy of the successors of u. */
+            private IntList ends = new IntList();
+            /** Index in ends of the next edge to examine. */
+            private int k;
+            /** The (reused) result of next(). */
+            private final int[] edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        int f = first(u, v), s = second(u, v);
+        ReentrantLock lock = stripe(f);
+        lock.lock();
+        try {
+            return Math.max(tables[f & (STRIPES - 1)].get(f, s), 0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Returns an unused edge id, the most recently released if there
+     *  is one. */
+    private int newId() {
+        synchronized (freeIds) {
+            if (!freeIds.isEmpty()) {
+                return freeIds.pop();
+            }
+        }
+        return topId.incrementAndGet();
+    }
+
+    /** Returns the lock for vertex V's stripe. */
+    private ReentrantLock stripe(int v) {
+        return stripes[v & (STRIPES - 1)];
+    }
+
+    /** Lock the stripes of U and V, in increasing order of stripe. */
+    private void lock(int u, int v) {
+        int i = u & (STRIPES - 1), j = v & (STRIPES - 1);
+        stripes[Math.min(i, j)].lock();
+        if (i != j) {
+            stripes[Math.max(i, j)].lock();
+        }
+    }
+
+    /** Unlock the stripes of U and V. */
+    private void unlock(int u, int v) {
+        int i = u & (STRIPES - 1), j = v & (STRIPES - 1);
+        if (i != j) {
+            stripes[Math.max(i, j)].unlock();
+        }
+        stripes[Math.min(i, j)].unlock();
+    }
+
+    /** Lock every stripe, in order. */
+    private void lockAll() {
+        for (ReentrantLock lock : stripes) {
+            lock.lock();
+        }
+    }
+
+    /** Unlock every stripe. */
+    private void unlockAll() {
+        for (int s = STRIPES - 1; s >= 0; s -= 1) {
+            stripes[s].unlock();
+        }
+    }
+
+    /** Returns the Vertex for V, or null if V is not one of my vertices.
+     *  The caller must hold the lock of V's stripe. */
+    private Vertex find(int v) {
+        Vertex[] all = slots;
+        return v > 0 && v < all.length ? all[v] : null;
+    }
+
+    /** Returns the Vertex for V, which must be one of my vertices.  The
+     *  caller must hold the lock of V's stripe. */
+    private Vertex vertex(int v) {
+        Vertex x = find(v);
+        if (x == null) {
+            throw new IllegalArgumentException("vertex not from Graph");
+        }
+        return x;
+    }
+
+    /** Returns a copy of the successors of V, if SUCC, or else of its
+     *  predecessors.  Returns an empty list if V is not a vertex. */
+    private IntList snapshot(int v, boolean succ) {
+        ReentrantLock lock = stripe(v);
+        lock.lock();
+        try {
+            Vertex x = find(v);
+            if (x == null) {
+                return new IntList();
+            }
+            return succ ? x.succ.copy() : x.pred.copy();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Remove edge (U, V), if present.  The caller must hold the locks
+     *  of the stripes of U and V, which must be vertices. */
+    private void unlink(int u, int v) {
+        int f = first(u, v), s = second(u, v);
+        int id = tables[f & (STRIPES - 1)].remove(f, s);
+        if (id < 0) {
+            return;
+        }
+        Vertex a = slots[u], b = slots[v];
+        int k = a.succ.indexOf(v);
+        a.succ.removeAt(k);
+        a.succIds.removeAt(k);
+        if (directed) {
+            b.pred.remove(u);
+        } else if (u != v) {
+            k = b.succ.indexOf(u);
+            b.succ.removeAt(k);
+            b.succIds.removeAt(k);
+        }
+        synchronized (freeIds) {
+            freeIds.add(id);
+        }
+        ecount.decrement();
+    }
+
+    /** Returns the end of edge (U, V) under which it is indexed: U,
+     *  unless I am undirected and V is smaller. */
+    private int first(int u, int v) {
+        return directed ? u : Math.min(u, v);
+    }
+
+    /** Returns the other end of edge (U, V) from first(U, V). */
+    private int second(int u, int v) {
+        return directed ? v : Math.max(u, v);
+    }
+
+    /** The adjacency lists of one vertex, guarded by the lock of its
+     *  stripe. */
+    private static final class Vertex {
+        /** Adjacency lists for a vertex of a directed graph iff
+         *  DIRECTED. */
+        Vertex(boolean directed) {
+            pred = directed ? new IntList() : succ;
+        }
+
+        /** Successors (all neighbors, if undirected). */
+        private final IntList succ = new IntList();
+        /** Ids of the edges to succ, in order. */
+        private final IntList succIds = new IntList();
+        /** Predecessors; the same list as succ, if undirected. */
+        private final IntList pred;
+    }
+
+    /** True iff I am directed. */
+    private final boolean directed;
+    /** The stripe locks. */
+    private final ReentrantLock[] stripes;
+    /** tables[S] maps each edge whose first end is in stripe S to its
+     *  id.  Guarded by stripes[S]. */
+    private final EdgeTable[] tables;
+    /** Edge ids released by remove(int, int), reused most recent first,
+     *  so that ids stay bounded by about the most edges I have had at
+     *  once.  Guarded by its own monitor. */
+    private final IntList freeIds = new IntList();
+    /** Held while adding or removing a vertex, and so while choosing
+     *  vertex numbers.  Taken before any stripe. */
+    private final Object numbering = new Object();
+    /** Vertex slots, indexed by vertex number: slots[v] is null if V is
+     *  not one of my vertices.  Element V is guarded by V's stripe (and
+     *  changed only with numbering held); the array is replaced only with
+     *  all stripes locked. */
+    private volatile Vertex[] slots;
+    /** My maximum vertex number, or 0 if I am empty.  Changed only with
+     *  numbering held. */
+    private volatile int maxv;
+    /** The number of my vertices.  Changed only with numbering held. */
+    private volatile int vcount;
+    /** Free list of vertex numbers released by remove(int), as in
+     *  GraphObj.  Guarded by numbering. */
+    private final PriorityQueue<Integer> freed = new PriorityQueue<>();
+    /** The number of my edges. */
+    private final LongAdder ecount = new LongAdder();
+    /** The largest edge id handed out so far. */
+    private final AtomicInteger topId = new AtomicInteger();
+}
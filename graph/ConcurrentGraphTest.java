@@ -0,0 +1,267 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for ConcurrentGraph, including multi-threaded stress
+ *  tests that check the graph is consistent once the threads finish.
+ *  @author Netra Sathe
+ */
+public class ConcurrentGraphTest {
+
+    /** Number of threads in the stress tests. */
+    private static final int THREADS = 8;
+
+    /** A body for a test thread, which may throw anything. */
+    private interface Job {
+        /** Do the work of thread number T, using R for random choices. */
+        void run(int t, Random r) throws Exception;
+    }
+
+    /** Run JOB in THREADS threads at once and wait for them all, failing
+     *  if any of them throws. */
+    private static void runThreads(Job job) throws InterruptedException {
+        ArrayList<Thread> threads = new ArrayList<>();
+        ArrayList<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < THREADS; t += 1) {
+            final int id = t;
+            threads.add(new Thread(() -> {
+                try {
+                    job.run(id, new Random(id));
+                } catch (Throwable excp) {
+                    synchronized (errors) {
+                        errors.add(excp);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!errors.isEmpty()) {
+            throw new AssertionError("thread failed", errors.get(0));
+        }
+    }
+
+    /** Returns G's successors of V as a set. */
+    private static HashSet<Integer> successors(Graph G, int v) {
+        HashSet<Integer> result = new HashSet<>();
+        for (int w : G.successors(v)) {
+            result.add(w);
+        }
+        return result;
+    }
+
+    /** Check that the adjacency lists, edge index, edge ids, and counts
+     *  of G agree with each other. */
+    private static void checkConsistent(Graph G) {
+        int edges, ends;
+        edges = ends = 0;
+        HashSet<Integer> ids = new HashSet<>();
+        for (int[] e : G.edges()) {
+            edges += 1;
+            assertTrue(G.contains(e[0], e[1]));
+            assertTrue(ids.add(G.edgeId(e[0], e[1])));
+        }
+        assertEquals(G.edgeSize(), edges);
+        int vertices = 0;
+        for (int v : G.vertices()) {
+            vertices += 1;
+            HashSet<Integer> succ = successors(G, v);
+            assertEquals("duplicate successors of " + v,
+                         G.outDegree(v), succ.size());
+            for (int w : succ) {
+                assertTrue(G.contains(v, w));
+                ends += v == w && !G.isDirected() ? 2 : 1;
+                boolean back = false;
+                for (int u : G.predecessors(w)) {
+                    back |= u == v;
+                }
+                assertTrue(back);
+            }
+            for (int k = 0; k < G.outDegree(v); k += 1) {
+                assertEquals(G.edgeId(v, G.successor(v, k)),
+                             G.successorEdge(v, k));
+            }
+        }
+        assertEquals(G.vertexSize(), vertices);
+        assertEquals(G.isDirected() ? edges : 2 * edges, ends);
+    }
+
+    /** Apply the same random operations to a ConcurrentGraph and to a
+     *  sequential graph of the same kind and check that they agree. */
+    private static void checkAgrees(boolean directed) {
+        Graph C = new ConcurrentGraph(directed);
+        Graph G = directed ? new DirectedGraph() : new UndirectedGraph();
+        Random r = new Random(directed ? 1 : 2);
+        int most = 0;
+        for (int i = 0; i < 5000; i += 1) {
+            int n = G.maxVertex();
+            int op = r.nextInt(10);
+            if (n < 2 || op == 0) {
+                assertEquals(G.add(), C.add());
+            } else if (op == 1) {
+                int v = 1 + r.nextInt(n);
+                if (G.contains(v)) {
+                    G.remove(v);
+                    C.remove(v);
+                }
+            } else {
+                int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                if (!G.contains(u) || !G.contains(v)) {
+                    continue;
+                }
+                if (op < 7) {
+                    G.add(u, v);
+                    int id = C.add(u, v);
+                    most = Math.max(most, C.edgeSize());
+                    assertTrue(id > 0 && id <= most);
+                    assertEquals(id, C.edgeId(u, v));
+                } else {
+                    G.remove(u, v);
+                    C.remove(u, v);
+                }
+            }
+            assertEquals(G.vertexSize(), C.vertexSize());
+            assertEquals(G.maxVertex(), C.maxVertex());
+            assertEquals(G.edgeSize(), C.edgeSize());
+        }
+        for (int u : G.vertices()) {
+            assertTrue(C.contains(u));
+            assertEquals(successors(G, u), successors(C, u));
+            assertEquals(G.inDegree(u), C.inDegree(u));
+        }
+        checkConsistent(C);
+    }
+
+    @Test
+    public void testAgreesWithSequentialGraphs() {
+        checkAgrees(true);
+        checkAgrees(false);
+    }
+
+    @Test
+    public void testErrors() {
+        Graph G = new ConcurrentGraph(true);
+        G.add();
+        assertFalse(G.contains(2));
+        assertFalse(G.contains(1, 2));
+        assertEquals(0, G.successor(2, 0));
+        assertFalse(G.successors(2).hasNext());
+        try {
+            G.add(1, 2);
+            fail("edge to a missing vertex added");
+        } catch (IllegalArgumentException excp) {
+            assertEquals(0, G.edgeSize());
+        }
+    }
+
+    @Test
+    public void testParallelAdds() throws InterruptedException {
+        for (boolean directed : new boolean[] { true, false }) {
+            Graph G = new ConcurrentGraph(directed);
+            int n = 1000, perThread = 5000;
+            for (int i = 0; i < n; i += 1) {
+                G.add();
+            }
+            runThreads((t, r) -> {
+                for (int i = 0; i < perThread; i += 1) {
+                    int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                    int id = G.add(u, v);
+                    assertTrue(G.contains(u, v));
+                    assertEquals(id, G.add(u, v));
+                }
+            });
+            checkConsistent(G);
+            HashSet<Long> expected = new HashSet<>();
+            for (int t = 0; t < THREADS; t += 1) {
+                Random r = new Random(t);
+                for (int i = 0; i < perThread; i += 1) {
+                    int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                    assertTrue(G.contains(u, v));
+                    if (!directed && u > v) {
+                        expected.add((long) v * n + u);
+                    } else {
+                        expected.add((long) u * n + v);
+                    }
+                }
+            }
+            assertEquals(expected.size(), G.edgeSize());
+        }
+    }
+
+    @Test
+    public void testParallelUpdates() throws InterruptedException {
+        for (boolean directed : new boolean[] { true, false }) {
+            Graph G = new ConcurrentGraph(directed);
+            int n = 64;
+            for (int i = 0; i < n; i += 1) {
+                G.add();
+            }
+            runThreads((t, r) -> {
+                for (int i = 0; i < 20000; i += 1) {
+                    if (t == 0 && i % 100 == 0) {
+                        int v = G.add();
+                        G.add(v, 1 + r.nextInt(n));
+                        G.add(1 + r.nextInt(n), v);
+                        G.remove(v);
+                        continue;
+                    }
+                    int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                    switch (r.nextInt(4)) {
+                    case 0:
+                        G.remove(u, v);
+                        break;
+                    case 1:
+                        for (int w : G.successors(u)) {
+                            assertTrue(w >= 1 && w <= n + 1);
+                        }
+                        break;
+                    default:
+                        G.add(u, v);
+                        break;
+                    }
+                }
+            });
+            checkConsistent(G);
+            assertEquals(n, G.vertexSize());
+            assertEquals(n, G.maxVertex());
+        }
+    }
+
+    @Test
+    public void testContainsIsLinearizable() throws InterruptedException {
+        Graph G = new ConcurrentGraph(true);
+        int n = 20000;
+        for (int i = 0; i <= n; i += 1) {
+            G.add();
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        runThreads((t, r) -> {
+            if (t == 0) {
+                for (int v = 2; v <= n; v += 1) {
+                    G.add(1, v);
+                }
+                done.set(true);
+                return;
+            }
+            while (!done.get()) {
+                int v = 3 + r.nextInt(n - 2);
+                if (G.contains(1, v)) {
+                    assertTrue("edges seen out of order",
+                               G.contains(1, v - 1));
+                }
+            }
+        });
+        assertEquals(n - 1, G.outDegree(1));
+    }
+
+}
@@ -19,16 +19,17 @@ public class DirectedGraph extends GraphObj {
     @Override
     public int inDegree(int v) {
         if (contains(v)) {
-            return adj.get(find(v)).getPredecessor().size();
+            return adj[v].getPredecessor().size();
         }
         return 0;
     }
 
     @Override
     public int predecessor(int v, int k) {
-        int vPos = find(v);
-        ArrayList<Integer> temp = adj.get(vPos).getPredecessor();
-        return temp.get(k);
+        if (!contains(v)) {
+            return 0;
+        }
+        return adj[v].getPredecessor().get(k);
     }
 
     @Override
@@ -37,24 +38,7 @@ public class DirectedGraph extends GraphObj {
             ArrayList<Integer> bait = new ArrayList<>();
             return Iteration.iteration(bait);
         }
-        return Iteration.iteration(adj.get(find(v))
-                .getPredecessor().iterator());
-    }
-
-    /** given an edge value, find the array parent location. */
-    /**
-     *
-     * @param v value whose node needs to be found.
-     * @return index number of the node needed.
-     */
-    private int find(int v) {
-        checkMyVertex(v);
-        for (int i = 0; i < adj.size(); i++) {
-            if (adj.get(i).getValue() == v) {
-                return i;
-            }
-        }
-        return 0;
+        return adj[v].getPredecessor().iteration();
     }
 
 }
@@ -0,0 +1,134 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** An open-addressing hash table from edges (pairs of positive vertex
+ *  numbers) to non-negative ints, stored in primitive arrays with linear
+ *  probing.  Deletion shifts later entries back rather than leaving
+ *  tombstones, so lookups stay short under churn.
+ *  @author Netra Sathe
+ */
+class EdgeTable {
+
+    /** Initial number of buckets (a power of 2). */
+    private static final int INITIAL_BUCKETS = 16;
+
+    /** An empty table. */
+    EdgeTable() {
+        keys = new long[INITIAL_BUCKETS];
+        vals = new int[INITIAL_BUCKETS];
+    }
+
+    /** Returns the key for edge (U, V). */
+    static long key(int u, int v) {
+        return ((long) u << Integer.SIZE) | (v & 0xffffffffL);
+    }
+
+    /** Returns the number of entries in me. */
+    int size() {
+        return size;
+    }
+
+    /** Returns the value for edge (U, V), or -1 if it is absent. */
+    int get(int u, int v) {
+        long k = key(u, v);
+        int mask = keys.length - 1;
+        for (int i = bucket(k); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == k) {
+                return vals[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Set the value for edge (U, V) to VAL (non-negative). */
+    void put(int u, int v, int val) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(2 * keys.length);
+        }
+        long k = key(u, v);
+        int mask = keys.length - 1;
+        int i;
+        for (i = bucket(k); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == k) {
+                vals[i] = val;
+                return;
+            }
+        }
+        keys[i] = k;
+        vals[i] = val;
+        size += 1;
+    }
+
+    /** Remove edge (U, V).  Returns its value, or -1 if it was absent. */
+    int remove(int u, int v) {
+        long k = key(u, v);
+        int mask = keys.length - 1;
+        int i;
+        for (i = bucket(k); keys[i] != k; i = (i + 1) & mask) {
+            if (keys[i] == 0) {
+                return -1;
+            }
+        }
+        int result = vals[i];
+        size -= 1;
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int home = bucket(keys[j]);
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                vals[gap] = vals[j];
+                gap = j;
+            }
+        }
+        keys[gap] = 0;
+        return result;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    /** Returns the home bucket of key K. */
+    private int bucket(long k) {
+        long h = k * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> (Long.SIZE - shift()));
+    }
+
+    /** Returns log2 of my number of buckets. */
+    private int shift() {
+        return Integer.numberOfTrailingZeros(keys.length);
+    }
+
+    /** Rebuild me with N buckets. */
+    private void rehash(int n) {
+        long[] oldKeys = keys;
+        int[] oldVals = vals;
+        keys = new long[n];
+        vals = new int[n];
+        int mask = n - 1;
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldKeys[j] != 0) {
+                int i;
+                for (i = bucket(oldKeys[j]); keys[i] != 0;
+                     i = (i + 1) & mask) {
+                    continue;
+                }
+                keys[i] = oldKeys[j];
+                vals[i] = oldVals[j];
+            }
+        }
+    }
+
+    /** Keys of occupied buckets; 0 marks an empty bucket (no edge has
+     *  vertex 0 as an end). */
+    private long[] keys;
+    /** vals[I] is the value for keys[I]. */
+    private int[] vals;
+    /** Number of entries. */
+    private int size;
+}
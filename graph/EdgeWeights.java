@@ -0,0 +1,19 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A graph that records a double weight on each of its edges, which a
+ *  WeightedGraphPaths searches with.  Besides the usual lookup by end
+ *  points, the weights can be read by successor position, so a search
+ *  that is already walking a vertex's successors needs no edge lookup.
+ *  @author Netra Sathe
+ */
+public interface EdgeWeights {
+
+    /** Returns the weight of the edge (U, V), which must be one of my
+     *  edges. */
+    double getWeight(int u, int v);
+
+    /** Returns the weight of the edge from V to successor(V, K). */
+    double successorWeight(int v, int k);
+}
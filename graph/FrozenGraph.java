@@ -0,0 +1,266 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+
+/** A read-only snapshot of a Graph in compressed-sparse-row form.  The
+ *  successors of vertex V are targets[outStart[V] .. outStart[V+1]-1], and
+ *  likewise for predecessors, so neighbor scans run over one contiguous
+ *  int array.  Vertex numbers, successor order, and edge ids are those of
+ *  the graph that was frozen, so labels keyed by edge id (as in
+ *  LabeledGraph) remain valid.  All modifiers throw
+ *  UnsupportedOperationException.
+ *  @author Netra Sathe
+ */
+public final class FrozenGraph extends Graph {
+
+    /** Returns a frozen copy of G, or G itself if it is already frozen.
+     *  G may be any Graph, including a GraphFilter. */
+    public static FrozenGraph freeze(Graph G) {
+        if (G instanceof FrozenGraph) {
+            return (FrozenGraph) G;
+        }
+        return new FrozenGraph(G);
+    }
+
+    /** A frozen copy of G. */
+    private FrozenGraph(Graph G) {
+        directed = G.isDirected();
+        maxv = G.maxVertex();
+        present = new BitSet(maxv + 1);
+        for (int v : G.vertices()) {
+            present.set(v);
+        }
+        vcount = present.cardinality();
+
+        outStart = new int[maxv + 2];
+        for (int v = 1; v <= maxv; v += 1) {
+            outStart[v + 1] = outStart[v] + G.outDegree(v);
+        }
+        targets = new int[outStart[maxv + 1]];
+        outIds = new int[targets.length];
+        for (int v = 1; v <= maxv; v += 1) {
+            for (int k = outStart[v]; k < outStart[v + 1]; k += 1) {
+                targets[k] = G.successor(v, k - outStart[v]);
+                outIds[k] = G.successorEdge(v, k - outStart[v]);
+            }
+        }
+
+        if (directed) {
+            inStart = new int[maxv + 2];
+            for (int v = 1; v <= maxv; v += 1) {
+                inStart[v + 1] = inStart[v] + G.inDegree(v);
+            }
+            sources = new int[inStart[maxv + 1]];
+            for (int v = 1; v <= maxv; v += 1) {
+                for (int k = inStart[v]; k < inStart[v + 1]; k += 1) {
+                    sources[k] = G.predecessor(v, k - inStart[v]);
+                }
+            }
+        } else {
+            inStart = outStart;
+            sources = targets;
+        }
+
+        int e = G.edgeSize();
+        edgeFrom = new int[e];
+        edgeTo = new int[e];
+        int i = 0;
+        for (int[] edge : G.edges()) {
+            edgeFrom[i] = edge[0];
+            edgeTo[i] = edge[1];
+            i += 1;
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return vcount;
+    }
+
+    @Override
+    public int maxVertex() {
+        return maxv;
+    }
+
+    @Override
+    public int edgeSize() {
+        return edgeFrom.length;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return contains(v) ? outStart[v + 1] - outStart[v] : 0;
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return contains(v) ? inStart[v + 1] - inStart[v] : 0;
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return u > 0 && u <= maxv && present.get(u);
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        throw frozen();
+    }
+
+    @Override
+    public int add(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int v) {
+        throw frozen();
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        throw frozen();
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return new Iteration<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return next > 0;
+            }
+
+            @Override
+            public Integer next() {
+                if (next <= 0) {
+                    throw new NoSuchElementException();
+                }
+                int v = next;
+                next = present.nextSetBit(v + 1);
+                return v;
+            }
+
+            /** The next vertex to deliver, or -1 if none. */
+            private int next = present.nextSetBit(1);
+        };
+    }
+
+    @Override
+    public int successor(int v, int k) {
+        if (k < 0 || k >= outDegree(v)) {
+            return 0;
+        }
+        return targets[outStart[v] + k];
+    }
+
+    @Override
+    int successorEdge(int v, int k) {
+        if (k < 0 || k >= outDegree(v)) {
+            return 0;
+        }
+        return outIds[outStart[v] + k];
+    }
+
+    @Override
+    public int predecessor(int v, int k) {
+        if (k < 0 || k >= inDegree(v)) {
+            return 0;
+        }
+        return sources[inStart[v] + k];
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        if (!contains(v)) {
+            return Iteration.slice(targets, 0, 0);
+        }
+        return Iteration.slice(targets, outStart[v], outStart[v + 1]);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        if (!contains(v)) {
+            return Iteration.slice(sources, 0, 0);
+        }
+        return Iteration.slice(sources, inStart[v], inStart[v + 1]);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                return k < edgeFrom.length;
+            }
+
+            @Override
+            public int[] next() {
+                if (k >= edgeFrom.length) {
+                    throw new NoSuchElementException();
+                }
+                edge[0] = edgeFrom[k];
+                edge[1] = edgeTo[k];
+                k += 1;
+                return edge;
+            }
+
+            /** Index of the next edge to deliver. */
+            private int k;
+            /** The (reused) result of next(). */
+            private final int[] edge = new int[2];
+        };
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        for (int k = outStart[u]; k < outStart[u + 1]; k += 1) {
+            if (targets[k] == v) {
+                return outIds[k];
+            }
+        }
+        return 0;
+    }
+
+    /** Returns the exception thrown by all modifiers. */
+    private static UnsupportedOperationException frozen() {
+        return new UnsupportedOperationException("graph is frozen");
+    }
+
+    /** True iff I am directed. */
+    private final boolean directed;
+    /** My maximum vertex number. */
+    private final int maxv;
+    /** Number of my vertices. */
+    private final int vcount;
+    /** The set of my vertex numbers. */
+    private final BitSet present;
+    /** Successors of V are targets[outStart[V] .. outStart[V+1]-1]. */
+    private final int[] outStart;
+    /** Concatenated successor lists. */
+    private final int[] targets;
+    /** Edge ids parallel to targets. */
+    private final int[] outIds;
+    /** Predecessors of V are sources[inStart[V] .. inStart[V+1]-1].  The
+     *  same arrays as outStart and targets for undirected graphs. */
+    private final int[] inStart;
+    /** Concatenated predecessor lists. */
+    private final int[] sources;
+    /** Edge K of edges() is (edgeFrom[K], edgeTo[K]). */
+    private final int[] edgeFrom, edgeTo;
+}
@@ -0,0 +1,95 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for FrozenGraph.
+ *  @author Netra Sathe
+ */
+public class FrozenGraphTest {
+
+    /** Edges of the test graph. */
+    private static final int[][] EDGES = {
+        { 2, 5 }, { 2, 3 }, { 2, 6 }, { 3, 7 }, { 3, 8 }, { 8, 1 },
+        { 8, 9 }, { 1, 1 }, { 8, 8 }, { 1, 2 }, { 1, 3 }, { 8, 10 },
+        { 10, 7 } };
+
+    /** Returns G filled with 10 vertices and EDGES, minus vertex 4. */
+    private static Graph fill(Graph G) {
+        for (int i = 0; i < 10; i += 1) {
+            G.add();
+        }
+        for (int[] e : EDGES) {
+            G.add(e[0], e[1]);
+        }
+        G.add(4, 5);
+        G.remove(4);
+        return G;
+    }
+
+    /** Check that FROZEN has the same structure as G. */
+    private static void checkSame(Graph G, Graph frozen) {
+        assertEquals(G.isDirected(), frozen.isDirected());
+        assertEquals(G.vertexSize(), frozen.vertexSize());
+        assertEquals(G.maxVertex(), frozen.maxVertex());
+        assertEquals(G.edgeSize(), frozen.edgeSize());
+        for (int v = 0; v <= G.maxVertex() + 1; v += 1) {
+            assertEquals(G.contains(v), frozen.contains(v));
+            assertEquals(G.outDegree(v), frozen.outDegree(v));
+            assertEquals(G.inDegree(v), frozen.inDegree(v));
+            for (int k = 0; k < G.outDegree(v); k += 1) {
+                assertEquals(G.successor(v, k), frozen.successor(v, k));
+            }
+            for (int k = 0; k < G.inDegree(v); k += 1) {
+                assertEquals(G.predecessor(v, k), frozen.predecessor(v, k));
+            }
+            for (int w = 0; w <= G.maxVertex(); w += 1) {
+                assertEquals(G.contains(v, w), frozen.contains(v, w));
+                assertEquals(G.edgeId(v, w), frozen.edgeId(v, w));
+            }
+        }
+        Iteration<int[]> edges = frozen.edges();
+        for (int[] e : G.edges()) {
+            assertTrue(edges.hasNext());
+            assertArrayEquals(e, edges.next().clone());
+        }
+        assertFalse(edges.hasNext());
+    }
+
+    @Test
+    public void testFreezeDirected() {
+        Graph g = fill(new DirectedGraph());
+        checkSame(g, FrozenGraph.freeze(g));
+    }
+
+    @Test
+    public void testFreezeUndirected() {
+        Graph g = fill(new UndirectedGraph());
+        checkSame(g, FrozenGraph.freeze(g));
+    }
+
+    @Test
+    public void testFreezeLabeled() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(new DirectedGraph());
+        for (int i = 1; i <= 10; i += 1) {
+            g.add("V" + i);
+        }
+        for (int[] e : EDGES) {
+            g.add(e[0], e[1], e[0] + "-" + e[1]);
+        }
+        g.freeze();
+        for (int[] e : EDGES) {
+            assertEquals(e[0] + "-" + e[1], g.getLabel(e[0], e[1]));
+        }
+        assertEquals("V7", g.getLabel(7));
+        assertEquals(EDGES.length, g.edgeSize());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFrozenIsReadOnly() {
+        Graph g = FrozenGraph.freeze(fill(new DirectedGraph()));
+        g.add(1, 5);
+    }
+
+}
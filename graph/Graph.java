@@ -122,6 +122,14 @@ public abstract class Graph {
         }
     }
 
+    /** Returns edgeId(V, successor(V, K)), or 0 if there is no such
+     *  successor.  Implementations that keep edge ids alongside their
+     *  adjacency lists override this to avoid the edge lookup. */
+    int successorEdge(int v, int k) {
+        int w = successor(v, k);
+        return w == 0 ? 0 : edgeId(v, w);
+    }
+
     /** Returns a unique positive identifier for the edge (U, V), if it
      *  is present, or 0 otherwise.  This value should always be bounded by
      *  a small multiple of the meximum number of the edges in the graph.
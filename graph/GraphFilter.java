@@ -11,6 +11,14 @@ public abstract class GraphFilter extends Graph {
         _G = G;
     }
 
+    /** Replace my underlying graph with a FrozenGraph copy of it.  The
+     *  vertex numbers and edge ids are unchanged, so anything I keep keyed
+     *  by them (such as labels) stays valid, but any later attempt to
+     *  modify my structure throws UnsupportedOperationException. */
+    public void freeze() {
+        _G = FrozenGraph.freeze(_G);
+    }
+
     @Override
     public int add() {
         return _G.add();
@@ -106,13 +114,18 @@ public abstract class GraphFilter extends Graph {
         return _G.edgeId(u, v);
     }
 
+    @Override
+    int successorEdge(int v, int k) {
+        return _G.successorEdge(v, k);
+    }
+
     @Override
     protected void checkMyVertex(int v) {
         _G.checkMyVertex(v);
     }
 
     /** My underlying graph. */
-    private final Graph _G;
+    private Graph _G;
 }
 
 
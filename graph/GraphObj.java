@@ -3,6 +3,9 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 
 
 /** A partial implementation of Graph containing elements common to
@@ -12,40 +15,69 @@ import java.util.ArrayList;
  */
 abstract class GraphObj extends Graph {
 
-    /** An ArrayList of LinkedLists for the adj list. */
-    protected ArrayList<Node> adj;
+    /** Initial number of vertex slots. */
+    private static final int INITIAL_SLOTS = 16;
 
-    /** An ArrayList consisting of all of the intz. */
-    protected ArrayList<Integer> done;
+    /** Vertex slots, indexed by vertex number: adj[v] is the Node for
+     *  vertex V, or null if V is not one of my vertices.  Slot 0 is
+     *  never used. */
+    protected Node[] adj;
 
-    /** An ArrayList for edgez. */
-    protected ArrayList<int[]> edgy;
+    /** The number of vertices in me. */
+    protected int vcount;
+
+    /** My maximum vertex number, or 0 if I am empty. */
+    protected int maxv;
+
+    /** Free list of vertex numbers released by remove(int), smallest
+     *  first.  Entries greater than maxv are stale (the slots above maxv
+     *  are all free anyway) and are discarded by add(). */
+    protected PriorityQueue<Integer> freed;
+
+    /** The edge with id I is (edgeFrom[I], edgeTo[I]), in the orientation
+     *  in which it was added, for 1 <= I <= topId.  Both are 0 for an id
+     *  that is not in use. */
+    protected int[] edgeFrom, edgeTo;
+
+    /** The number of edges in me. */
+    protected int ecount;
+
+    /** The largest edge id handed out so far. */
+    protected int topId;
+
+    /** Edge ids at or below topId released by remove(int, int), reused
+     *  most recent first.  Ids thus never exceed the largest number of
+     *  edges I have had at once. */
+    protected IntList freeIds;
+
+    /** Maps each edge to its id.  Undirected edges are entered with their
+     *  smaller end first. */
+    protected EdgeTable edgy;
 
 
     /** A new Graph object. */
     GraphObj() {
-        adj = new ArrayList<>();
-        done = new ArrayList<>();
-        edgy = new ArrayList<int[]>();
+        adj = new Node[INITIAL_SLOTS];
+        freed = new PriorityQueue<>();
+        edgeFrom = new int[INITIAL_SLOTS];
+        edgeTo = new int[INITIAL_SLOTS];
+        freeIds = new IntList();
+        edgy = new EdgeTable();
     }
 
     @Override
     public int vertexSize() {
-        return adj.size();
+        return vcount;
     }
 
     @Override
     public int maxVertex() {
-        int maxx = 0;
-        for (int i = 0; i < adj.size(); i += 1) {
-            maxx = Integer.max(maxx, adj.get(i).getValue());
-        }
-        return maxx;
+        return maxv;
     }
 
     @Override
     public int edgeSize() {
-        return edgy.size();
+        return ecount;
     }
 
     @Override
@@ -53,13 +85,10 @@ abstract class GraphObj extends Graph {
 
     @Override
     public int outDegree(int v) {
-        int out = 0;
         if (contains(v)) {
-            for (int i:successors(v)) {
-                out++;
-            }
+            return adj[v].getSuccessor().size();
         }
-        return out;
+        return 0;
     }
 
     @Override
@@ -67,103 +96,158 @@ abstract class GraphObj extends Graph {
 
     @Override
     public boolean contains(int u) {
-        if (done.contains(u)) {
-            return true;
-        }
-        return false;
+        return u > 0 && u <= maxv && adj[u] != null;
     }
 
     @Override
     public boolean contains(int u, int v) {
-        if (contains(u) && contains(v)) {
-            return adj.get(find(u)).getSuccessor().contains(v);
-        }
-        return false;
+        return edgeId(u, v) != 0;
     }
 
     @Override
     public int add() {
-        Integer indx = 1;
-        while (done.contains(indx)) {
-            indx++;
+        int indx;
+        if (!freed.isEmpty() && freed.peek() < maxv) {
+            indx = freed.poll();
+        } else {
+            freed.clear();
+            indx = maxv + 1;
+            if (indx == adj.length) {
+                adj = Arrays.copyOf(adj, 2 * adj.length);
+            }
+            maxv = indx;
         }
-        Node temp = new Node(indx);
-        adj.add(temp);
-        done.add(indx);
+        adj[indx] = new Node(indx);
+        vcount += 1;
         return indx;
     }
 
     @Override
     public int add(int u, int v) {
-        int p = find(u);
-        ArrayList neww = adj.get(p).getSuccessor();
-        for (int i = 0; i < neww.size(); i++) {
-            if (neww.get(i).equals(v)) {
-                return 0;
+        Node p = node(u);
+        Node par = node(v);
+        if (contains(u, v)) {
+            return edgeId(u, v);
+        }
+        int id;
+        if (freeIds.isEmpty()) {
+            topId += 1;
+            id = topId;
+            if (id == edgeFrom.length) {
+                edgeFrom = Arrays.copyOf(edgeFrom, 2 * id);
+                edgeTo = Arrays.copyOf(edgeTo, 2 * id);
             }
+        } else {
+            id = freeIds.pop();
         }
-        adj.get(p).addSuccessor(v);
-        adj.get(p).addTotal(v);
-
-        int par = find(v);
-        adj.get(par).addPredecessor(u);
-        adj.get(par).addTotal(u);
-
-        int[] t = {u, v};
-        edgy.add(t);
-        return edgeId(u, v);
+        edgeFrom[id] = u;
+        edgeTo[id] = v;
+        edgy.put(first(u, v), second(u, v), id);
+        p.addSuccessor(v, id);
+        p.addTotal(v, id);
+        if (isDirected() || u != v) {
+            par.addPredecessor(u);
+            par.addTotal(u, id);
+        }
+        ecount += 1;
+        return id;
     }
 
+    /** Removes V and its edges.  Each neighbor's adjacency lists are
+     *  compacted in one pass, keeping their order, so this takes time
+     *  proportional to the degree of V plus the degrees of its
+     *  neighbors. */
     @Override
     public void remove(int v) {
-        int k = find(v);
-
-        ArrayList<Integer> succ = adj.get(k).getSuccessor();
-        ArrayList<Integer> pred = adj.get(k).getPredecessor();
-
-        while (!succ.isEmpty()) {
-            remove(v, succ.get(0));
+        Node k = node(v);
+
+        IntList succ = k.getSuccessor(), succIds = k.getSuccessorIds();
+        IntList pred = k.getPredecessor();
+
+        for (int i = 0, n = succ.size(); i < n; i += 1) {
+            int w = succ.get(i);
+            edgy.remove(first(v, w), second(v, w));
+            releaseId(succIds.get(i));
+            if (w != v) {
+                adj[w].getPredecessor().removeAll(v, null);
+                adj[w].removeAllTotal(v);
+            }
         }
-        while (!pred.isEmpty()) {
-            remove(pred.get(0), v);
+        for (int i = 0, n = pred.size(); i < n; i += 1) {
+            int u = pred.get(i);
+            if (u != v) {
+                releaseId(edgy.remove(first(u, v), second(u, v)));
+                adj[u].getSuccessor().removeAll(v,
+                                                adj[u].getSuccessorIds());
+                adj[u].removeAllTotal(v);
+            }
+        }
+        adj[v] = null;
+        vcount -= 1;
+        if (v == maxv) {
+            while (maxv > 0 && adj[maxv] == null) {
+                maxv -= 1;
+            }
+        } else {
+            freed.add(v);
         }
-        adj.remove(k);
-        done.remove(done.indexOf(v));
     }
 
-    /** Removes from edges. */
+    /** Removes edge (U, V), if present, in time proportional to the
+     *  degrees of U and V, since their adjacency lists keep their order
+     *  and so are shifted down over the removed entries. */
     @Override
     public void remove(int u, int v) {
-        int p = find(u);
-        int par = find(v);
-        adj.get(p).removeSuccessor(v);
-        adj.get(p).removeTotal(v);
-        adj.get(par).removePredecessor(u);
-        adj.get(par).removeTotal(u);
-        for (int i = 0; i < edgy.size(); i++) {
-            if (edgy.get(i)[0] == u && edgy.get(i)[1] == v) {
-                edgy.remove(i);
-            }
+        node(u);
+        node(v);
+        int id = edgy.remove(first(u, v), second(u, v));
+        if (id < 0) {
+            return;
         }
+        int from = edgeFrom[id], to = edgeTo[id];
+        adj[from].removeSuccessor(to);
+        adj[from].removeTotal(to);
+        if (isDirected() || from != to) {
+            adj[to].removePredecessor(from);
+            adj[to].removeTotal(from);
+        }
+
+        releaseId(id);
+    }
+
+    /** Release the id ID of an edge that has been removed from edgy and
+     *  from all adjacency lists, for reuse by a later edge. */
+    private void releaseId(int id) {
+        edgeFrom[id] = edgeTo[id] = 0;
+        freeIds.add(id);
+        ecount -= 1;
     }
 
     @Override
     public Iteration<Integer> vertices() {
-        ArrayList<Integer> out = new ArrayList<>();
-        int ind = 1;
-        while (out.size() < done.size()) {
-            if (done.contains(ind)) {
+        ArrayList<Integer> out = new ArrayList<>(vcount);
+        for (int ind = 1; ind <= maxv; ind += 1) {
+            if (adj[ind] != null) {
                 out.add(ind);
             }
-            ind++;
         }
         return Iteration.iteration(out.iterator());
     }
 
     @Override
     public int successor(int v, int k) {
-        int position = find(v);
-        return adj.get(position).getSuccessor().get(k);
+        if (!contains(v)) {
+            return 0;
+        }
+        return adj[v].getSuccessor().get(k);
+    }
+
+    @Override
+    int successorEdge(int v, int k) {
+        if (!contains(v)) {
+            return 0;
+        }
+        return adj[v].getSuccessorIds().get(k);
     }
 
     @Override
@@ -172,7 +256,7 @@ abstract class GraphObj extends Graph {
             ArrayList<Integer> lol = new ArrayList<>();
             return Iteration.iteration(lol);
         }
-        return Iteration.iteration(adj.get(find(v)).getSuccessor().iterator());
+        return adj[v].getSuccessor().iteration();
     }
 
     @Override
@@ -183,7 +267,31 @@ abstract class GraphObj extends Graph {
 
     @Override
     public Iteration<int[]> edges() {
-        return Iteration.iteration(edgy.iterator());
+        return new Iteration<int[]>() {
+            @Override
+            public boolean hasNext() {
+                while (k <= topId && edgeFrom[k] == 0) {
+                    k += 1;
+                }
+                return k <= topId;
+            }
+
+            @Override
+            public int[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                edge[0] = edgeFrom[k];
+                edge[1] = edgeTo[k];
+                k += 1;
+                return edge;
+            }
+
+            /** Id of the next edge to examine. */
+            private int k = 1;
+            /** The (reused) result of next(). */
+            private final int[] edge = new int[2];
+        };
     }
 
     @Override
@@ -193,32 +301,36 @@ abstract class GraphObj extends Graph {
         }
     }
 
+    /** Returns the id of edge (U, V), or 0 if there is no such edge.  Ids
+     *  are allocated densely from 1 and recycled when edges are removed,
+     *  so they are bounded by the largest number of edges I have had. */
     @Override
     protected int edgeId(int u, int v) {
-        if (!contains(u, v)) {
+        if (!contains(u) || !contains(v)) {
             return 0;
         }
-        if (!isDirected()) {
-            int upper = Integer.max(u, v);
-            int lower = Integer.min(u, v);
-            return ((upper + lower) * (upper + lower + 1) / 2 + lower);
-        }
-        return ((u + v) * (u + v + 1) / 2 + v);
+        return Math.max(edgy.get(first(u, v), second(u, v)), 0);
     }
 
-    /** Finds parent loc.
+    /** Finds the node for a vertex in constant time.
      *
-     * @param v value whose node position needs to be found.
-     * @return the index number of the node needed.
+     * @param v vertex whose node is needed; must be one of my vertices.
+     * @return the node for V.
      */
-    private int find(int v) {
+    Node node(int v) {
         checkMyVertex(v);
-        for (int i = 0; i < adj.size(); i++) {
-            if (adj.get(i).getValue() == v) {
-                return i;
-            }
-        }
-        return 0;
+        return adj[v];
+    }
+
+    /** Returns the end of edge (U, V) that comes first in edgy: U, unless
+     *  I am undirected and V is smaller. */
+    private int first(int u, int v) {
+        return isDirected() ? u : Math.min(u, v);
+    }
+
+    /** Returns the end of edge (U, V) that comes second in edgy. */
+    private int second(int u, int v) {
+        return isDirected() ? v : Math.max(u, v);
     }
 
     /** private node with vertex info. */
@@ -226,11 +338,16 @@ abstract class GraphObj extends Graph {
         /** Values stored. */
         private int valyoo;
         /** Successor list. */
-        private ArrayList<Integer> succ;
+        private IntList succ;
+        /** Ids of the edges to the successors, parallel to succ. */
+        private IntList succIds;
         /** Pred list. */
-        private ArrayList<Integer> pred;
-        /** All edges list. */
-        private ArrayList<Integer> edges;
+        private IntList pred;
+        /** All edges list (maintained only for undirected graphs, where
+         *  it is the neighbor list). */
+        private IntList edges;
+        /** Ids of the edges to the neighbors, parallel to edges. */
+        private IntList edgeIds;
 
         /** The Constructor.
          *
@@ -238,51 +355,86 @@ abstract class GraphObj extends Graph {
          */
         Node(int val) {
             valyoo = val;
-            succ = new ArrayList<Integer>();
-            pred = new ArrayList<Integer>();
-            edges = new ArrayList<Integer>();
+            succ = new IntList();
+            succIds = new IntList();
+            pred = new IntList();
+            edges = new IntList();
+            edgeIds = new IntList();
         }
 
         /** Get method to get predecessor.
          * @return the list of predecessors.
          */
-        ArrayList<Integer> getPredecessor() {
+        IntList getPredecessor() {
             return pred;
         }
 
         /** Get method to return successor.
          * @return the list of successors.
          */
-        ArrayList<Integer> getSuccessor() {
+        IntList getSuccessor() {
             return succ;
         }
 
+        /** Get method to return successor edge ids.
+         * @return the ids of the edges to getSuccessor(), in order.
+         */
+        IntList getSuccessorIds() {
+            return succIds;
+        }
+
         /** Get method to return all edges.
          * @return the list of all edges to and from.
          */
-        ArrayList<Integer> getTotal() {
+        IntList getTotal() {
             return edges;
         }
 
+        /** Get method to return the ids of all edges.
+         * @return the ids of the edges to getTotal(), in order.
+         */
+        IntList getTotalIds() {
+            return edgeIds;
+        }
+
         /** removes the predecessor of the value n.
          * @param n remove the nth predecessor.
          */
         void removePredecessor(int n) {
-            pred.remove(pred.indexOf(n));
+            pred.remove(n);
         }
 
         /** Setter method to remove successor.
          * @param n return the nth successor.
          */
         void removeSuccessor(int n) {
-            succ.remove(succ.indexOf(n));
+            int k = succ.indexOf(n);
+            if (k >= 0) {
+                succ.removeAt(k);
+                succIds.removeAt(k);
+            }
         }
 
         /** Setter method to remove item.
          * @param n remove the nth item from totals.
          */
         void removeTotal(int n) {
-            edges.remove(edges.indexOf(n));
+            if (!isDirected()) {
+                int k = edges.indexOf(n);
+                if (k >= 0) {
+                    edges.removeAt(k);
+                    edgeIds.removeAt(k);
+                }
+            }
+        }
+
+        /** Removes every edge to or from N from the list of all edges.
+         * @param n the neighbor to remove.
+         */
+        void removeAllTotal(int n) {
+            if (!isDirected()) {
+                edges.removeAll(n, edgeIds);
+            }
         }
 
         /** adds an edge to the predecessor to item n.
@@ -294,19 +446,21 @@ abstract class GraphObj extends Graph {
 
         /** Setter method to set successor.
          * @param n integer to be added as successor.
+         * @param id id of the edge to N.
          */
-        void addSuccessor(int n) {
+        void addSuccessor(int n, int id) {
             succ.add(n);
+            succIds.add(id);
         }
 
         /** Setter method to add edge.
          * @param n integer to be added to total.
+         * @param id id of the edge to or from N.
          */
-        void addTotal(int n) {
-            if (isDirected()) {
-                edges.add(n);
-            } else if (!edges.contains(n)) {
+        void addTotal(int n, int id) {
+            if (!isDirected()) {
                 edges.add(n);
+                edgeIds.add(id);
             }
         }
 
@@ -1,5 +1,10 @@
 package graph;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -138,5 +143,251 @@ public class GraphTest {
         }
     }
 
+    @Test
+    public void testVertexReuse() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 40; i++) {
+            g.add();
+        }
+        g.add(39, 40);
+        g.remove(40);
+        g.remove(39);
+        g.remove(7);
+        assertEquals(37, g.vertexSize());
+        assertEquals(38, g.maxVertex());
+        assertFalse(g.contains(7));
+        assertFalse(g.contains(39));
+        assertEquals(7, g.add());
+        assertEquals(39, g.add());
+        assertEquals(40, g.add());
+        assertEquals(40, g.maxVertex());
+        assertFalse(g.contains(39, 40));
+    }
+
+    @Test
+    public void testSuccessorOrderAfterRemove() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 5; i++) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(1, 3);
+        g.add(1, 4);
+        g.add(1, 5);
+        g.remove(1, 3);
+        assertEquals(3, g.outDegree(1));
+        assertEquals(2, g.successor(1, 0));
+        assertEquals(4, g.successor(1, 1));
+        assertEquals(5, g.successor(1, 2));
+        assertEquals(0, g.successor(1, 3));
+        assertEquals(0, g.inDegree(3));
+    }
+
+    @Test
+    public void testTraversalOrderAndClear() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 6; i++) {
+            g.add();
+        }
+        g.add(1, 2);
+        g.add(1, 3);
+        g.add(2, 4);
+        g.add(3, 4);
+        g.add(4, 5);
+        final ArrayList<Integer> pre = new ArrayList<>();
+        final ArrayList<Integer> post = new ArrayList<>();
+        DepthFirstTraversal dfs = new DepthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                pre.add(v);
+                return true;
+            }
+
+            @Override
+            protected boolean postVisit(int v) {
+                post.add(v);
+                return true;
+            }
+        };
+        dfs.traverse(1);
+        assertEquals(Arrays.asList(1, 2, 4, 5, 3), pre);
+        assertEquals(Arrays.asList(5, 4, 2, 3, 1), post);
+        dfs.traverse(3);
+        assertEquals(5, pre.size());
+        dfs.clear();
+        dfs.traverse(3);
+        assertEquals(Arrays.asList(1, 2, 4, 5, 3, 3, 4, 5), pre);
+        assertEquals(Arrays.asList(5, 4, 2, 3, 1, 5, 4, 3), post);
+
+        final ArrayList<Integer> bfs = new ArrayList<>();
+        new BreadthFirstTraversal(g) {
+            @Override
+            protected boolean visit(int v) {
+                bfs.add(v);
+                return true;
+            }
+        }.traverse(1);
+        assertEquals(Arrays.asList(1, 2, 3, 4, 5), bfs);
+    }
+
+    /** Returns the successors and predecessors of each vertex of G. */
+    private static ArrayList<ArrayList<Integer>> neighbors(Graph G) {
+        ArrayList<ArrayList<Integer>> result = new ArrayList<>();
+        for (int v = 1; v <= G.maxVertex(); v += 1) {
+            ArrayList<Integer> succ = new ArrayList<>(),
+                pred = new ArrayList<>();
+            for (int w : G.successors(v)) {
+                succ.add(w);
+            }
+            for (int w : G.predecessors(v)) {
+                pred.add(w);
+            }
+            result.add(succ);
+            result.add(pred);
+        }
+        return result;
+    }
+
+    /** Check that removing a hub vertex of G and H, which must be empty
+     *  graphs of the same kind, leaves the same graph as removing its
+     *  edges one at a time first. */
+    private static void checkRemoveHub(Graph G, Graph H) {
+        Random r = new Random(7);
+        int n = 200, hub = 17;
+        for (Graph g : new Graph[] { G, H }) {
+            for (int i = 0; i < n; i += 1) {
+                g.add();
+            }
+            g.add(hub, hub);
+        }
+        for (int i = 0; i < 2000; i += 1) {
+            int u = r.nextInt(n) + 1, v = r.nextInt(n) + 1;
+            if (r.nextBoolean()) {
+                u = hub;
+            } else if (r.nextBoolean()) {
+                v = hub;
+            }
+            G.add(u, v);
+            H.add(u, v);
+        }
+        while (H.degree(hub) > 0) {
+            if (H.outDegree(hub) > 0) {
+                H.remove(hub, H.successor(hub, 0));
+            } else {
+                H.remove(H.predecessor(hub, 0), hub);
+            }
+        }
+        int top = 0;
+        for (int[] edge : G.edges()) {
+            top = Math.max(top, G.edgeId(edge[0], edge[1]));
+        }
+        G.remove(hub);
+        H.remove(hub);
+        assertEquals(H.edgeSize(), G.edgeSize());
+        assertEquals(neighbors(H), neighbors(G));
+        assertFalse(G.contains(hub, hub));
+        assertEquals(hub, G.add());
+        for (int v = 1; v <= n; v += 1) {
+            assertFalse(G.contains(v, hub));
+            assertFalse(G.contains(hub, v));
+        }
+        HashSet<Integer> ids = new HashSet<>();
+        for (int v = 1; v <= n; v += 1) {
+            for (int w : G.successors(v)) {
+                ids.add(G.edgeId(v, w));
+            }
+        }
+        assertEquals(G.edgeSize(), ids.size());
+        int e = G.add(1, hub);
+        assertFalse(ids.contains(e));
+        assertTrue(e <= top);
+    }
+
+    @Test
+    public void testRemoveHub() {
+        checkRemoveHub(new DirectedGraph(), new DirectedGraph());
+        checkRemoveHub(new UndirectedGraph(), new UndirectedGraph());
+    }
+
+    @Test
+    public void testUndirectedEdgeEitherWay() {
+        UndirectedGraph g = new UndirectedGraph();
+        g.add();
+        g.add();
+        int e = g.add(2, 1);
+        assertEquals(e, g.add(1, 2));
+        assertEquals(1, g.edgeSize());
+        assertTrue(g.contains(1, 2));
+        g.remove(1, 2);
+        assertFalse(g.contains(2, 1));
+        assertEquals(0, g.edgeSize());
+        assertEquals(0, g.degree(1));
+        assertEquals(0, g.degree(2));
+    }
+
+    @Test
+    public void testEdgeChurn() {
+        Random r = new Random(61);
+        DirectedGraph g = new DirectedGraph();
+        HashSet<Long> model = new HashSet<>();
+        int n = 50;
+        for (int i = 0; i < n; i++) {
+            g.add();
+        }
+        for (int i = 0; i < 5000; i++) {
+            int u = r.nextInt(n) + 1, v = r.nextInt(n) + 1;
+            long key = (long) u * (n + 1) + v;
+            if (r.nextInt(3) == 0) {
+                g.remove(u, v);
+                model.remove(key);
+            } else {
+                g.add(u, v);
+                model.add(key);
+            }
+            assertEquals(model.size(), g.edgeSize());
+        }
+        HashSet<Long> seen = new HashSet<>();
+        for (int[] e : g.edges()) {
+            assertTrue(seen.add((long) e[0] * (n + 1) + e[1]));
+        }
+        assertEquals(model, seen);
+        for (int u = 1; u <= n; u++) {
+            for (int v = 1; v <= n; v++) {
+                assertEquals(model.contains((long) u * (n + 1) + v),
+                             g.contains(u, v));
+            }
+        }
+    }
+
+    @Test
+    public void testEdgeIdsDenseAndRecycled() {
+        DirectedGraph g = new DirectedGraph();
+        for (int i = 0; i < 100000; i++) {
+            g.add();
+        }
+        int e1 = g.add(99999, 100000);
+        int e2 = g.add(100000, 99999);
+        assertEquals(1, e1);
+        assertEquals(2, e2);
+        assertEquals(e1, g.edgeId(99999, 100000));
+        g.remove(99999, 100000);
+        assertEquals(0, g.edgeId(99999, 100000));
+        assertEquals(e1, g.add(1, 2));
+        assertEquals(3, g.add(2, 1));
+    }
+
+    @Test
+    public void testRecycledEdgeIdHasNoLabel() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(new UndirectedGraph());
+        g.add("a");
+        g.add("b");
+        g.add("c");
+        g.add(1, 2, "ab");
+        g.remove(2);
+        g.add();
+        g.add(1, 3);
+        assertNull(g.getLabel(1, 3));
+    }
 
 }
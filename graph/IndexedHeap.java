@@ -0,0 +1,233 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** A d-ary min-heap of positive int items (vertex numbers), each with a
+ *  double priority that is cached when the item is inserted or updated,
+ *  so priorities are never recomputed during sifting.  An index from
+ *  item to heap position allows contains, removal, and decrease-key in
+ *  O(log n).  Items with equal priorities come out in increasing order.
+ *  The index is an array indexed by item, or for a sparse heap, whose
+ *  items are few but may be large, an IntMap.
+ *  @author Netra Sathe
+ */
+class IndexedHeap {
+
+    /** An empty heap with the given ARITY (at least 2) whose items are
+     *  expected to be less than CAPACITY (larger items are accepted). */
+    IndexedHeap(int arity, int capacity) {
+        this(arity, capacity, false);
+    }
+
+    /** An empty heap with the given ARITY (at least 2) whose items are
+     *  expected to be less than CAPACITY, and whose index is an IntMap
+     *  iff SPARSE. */
+    IndexedHeap(int arity, int capacity, boolean sparse) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("heap arity must be >= 2");
+        }
+        d = arity;
+        if (sparse) {
+            pos = null;
+            sparsePos = new IntMap();
+        } else {
+            pos = new int[Math.max(capacity, 1)];
+            sparsePos = null;
+        }
+        items = new int[16];
+        keys = new double[16];
+    }
+
+    /** Returns true iff my index is an IntMap. */
+    boolean isSparse() {
+        return sparsePos != null;
+    }
+
+    /** Returns the number of items in me. */
+    int size() {
+        return size;
+    }
+
+    /** Returns true iff I am empty. */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns true iff V is in me. */
+    boolean contains(int v) {
+        return v > 0 && posOf(v) >= 0;
+    }
+
+    /** Returns the priority of V, which must be in me. */
+    double key(int v) {
+        return keys[posOf(v)];
+    }
+
+    /** Insert V with priority KEY, or change V's priority to KEY if it is
+     *  already present. */
+    void put(int v, double key) {
+        if (contains(v)) {
+            int i = posOf(v);
+            double old = keys[i];
+            keys[i] = key;
+            if (key < old) {
+                siftUp(i);
+            } else if (key > old) {
+                siftDown(i);
+            }
+            return;
+        }
+        if (size == items.length) {
+            items = Arrays.copyOf(items, 2 * size);
+            keys = Arrays.copyOf(keys, 2 * size);
+        }
+        items[size] = v;
+        keys[size] = key;
+        setPos(v, size);
+        size += 1;
+        siftUp(size - 1);
+    }
+
+    /** Returns my minimum item, or 0 if I am empty. */
+    int peek() {
+        return size == 0 ? 0 : items[0];
+    }
+
+    /** Remove and return my minimum item, or 0 if I am empty. */
+    int poll() {
+        if (size == 0) {
+            return 0;
+        }
+        int v = items[0];
+        removeAt(0);
+        return v;
+    }
+
+    /** Remove V, if present.  Returns true iff it was present. */
+    boolean remove(int v) {
+        if (!contains(v)) {
+            return false;
+        }
+        removeAt(posOf(v));
+        return true;
+    }
+
+    /** Remove all items, in time proportional to my size. */
+    void clear() {
+        if (sparsePos != null) {
+            sparsePos.clear();
+        } else {
+            for (int i = 0; i < size; i += 1) {
+                pos[items[i]] = 0;
+            }
+        }
+        size = 0;
+    }
+
+    /** Returns item I of my heap array (for iteration). */
+    int get(int i) {
+        return items[i];
+    }
+
+    /** Remove the item at heap position I. */
+    private void removeAt(int i) {
+        setPos(items[i], -1);
+        size -= 1;
+        if (i == size) {
+            return;
+        }
+        items[i] = items[size];
+        keys[i] = keys[size];
+        setPos(items[i], i);
+        siftDown(i);
+        siftUp(i);
+    }
+
+    /** Returns true iff the item at position I belongs above that at J. */
+    private boolean less(int i, int j) {
+        return keys[i] < keys[j]
+            || (keys[i] == keys[j] && items[i] < items[j]);
+    }
+
+    /** Move the item at position I up to its proper place. */
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) / d;
+            if (!less(i, parent)) {
+                break;
+            }
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    /** Move the item at position I down to its proper place. */
+    private void siftDown(int i) {
+        while (true) {
+            int first = d * i + 1;
+            if (first >= size) {
+                break;
+            }
+            int best = first;
+            int last = Math.min(first + d, size);
+            for (int c = first + 1; c < last; c += 1) {
+                if (less(c, best)) {
+                    best = c;
+                }
+            }
+            if (!less(best, i)) {
+                break;
+            }
+            swap(i, best);
+            i = best;
+        }
+    }
+
+    /** Exchange the items at positions I and J. */
+    private void swap(int i, int j) {
+        int v = items[i];
+        double k = keys[i];
+        items[i] = items[j];
+        keys[i] = keys[j];
+        items[j] = v;
+        keys[j] = k;
+        setPos(items[i], i);
+        setPos(items[j], j);
+    }
+
+    /** Returns the heap position of V, or -1 if V is absent. */
+    private int posOf(int v) {
+        if (sparsePos != null) {
+            return sparsePos.get(v);
+        }
+        return v < pos.length ? pos[v] - 1 : -1;
+    }
+
+    /** Record that V is at heap position I, or absent if I is -1. */
+    private void setPos(int v, int i) {
+        if (sparsePos != null) {
+            sparsePos.put(v, i);
+            return;
+        }
+        if (v >= pos.length) {
+            pos = Arrays.copyOf(pos, Math.max(v + 1, 2 * pos.length));
+        }
+        pos[v] = i + 1;
+    }
+
+    /** Arity of the heap. */
+    private final int d;
+    /** pos[V] is 1 + the heap position of item V, or 0 if V is absent;
+     *  null if I am sparse. */
+    private int[] pos;
+    /** Heap position of each item, or -1, if I am sparse; else null. */
+    private final IntMap sparsePos;
+    /** Heap-ordered items, in positions [0 .. size-1]. */
+    private int[] items;
+    /** keys[I] is the cached priority of items[I]. */
+    private double[] keys;
+    /** Number of items. */
+    private int size;
+}
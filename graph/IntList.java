@@ -0,0 +1,150 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/** A growable list of ints, used for adjacency lists so that neighbors
+ *  are stored unboxed and contiguously.  Removal preserves the order of
+ *  the remaining items, since successor numbering (and hence traversal
+ *  order) depends on it.
+ *  @author Netra Sathe
+ */
+class IntList {
+
+    /** Initial capacity of a non-empty list. */
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** Shared backing array for lists that have never held anything. */
+    private static final int[] EMPTY = new int[0];
+
+    /** An empty list. */
+    IntList() {
+        items = EMPTY;
+    }
+
+    /** Returns the number of items in me. */
+    int size() {
+        return size;
+    }
+
+    /** Returns true iff I am empty. */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /** Returns item K, numbering from 0, or 0 if there is no such item. */
+    int get(int k) {
+        if (k < 0 || k >= size) {
+            return 0;
+        }
+        return items[k];
+    }
+
+    /** Append X to me. */
+    void add(int x) {
+        if (size == items.length) {
+            items = Arrays.copyOf(items,
+                                  Math.max(INITIAL_CAPACITY, 2 * size));
+        }
+        items[size] = x;
+        size += 1;
+    }
+
+    /** Remove and return my last item, which must exist. */
+    int pop() {
+        size -= 1;
+        return items[size];
+    }
+
+    /** Returns the index of the first occurrence of X, or -1. */
+    int indexOf(int x) {
+        for (int i = 0; i < size; i += 1) {
+            if (items[i] == x) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Returns true iff X is one of my items. */
+    boolean contains(int x) {
+        return indexOf(x) >= 0;
+    }
+
+    /** Remove item K, shifting later items down. */
+    void removeAt(int k) {
+        System.arraycopy(items, k + 1, items, k, size - k - 1);
+        size -= 1;
+    }
+
+    /** Remove the first occurrence of X, if any.  Returns true iff there
+     *  was one. */
+    boolean remove(int x) {
+        int k = indexOf(x);
+        if (k < 0) {
+            return false;
+        }
+        removeAt(k);
+        return true;
+    }
+
+    /** Remove every occurrence of X, and the items at the same positions
+     *  in PARALLEL (if not null), which must be as long as I am, keeping
+     *  the order of the remaining items.  Takes one pass over me. */
+    void removeAll(int x, IntList parallel) {
+        int n = 0;
+        for (int i = 0; i < size; i += 1) {
+            if (items[i] != x) {
+                items[n] = items[i];
+                if (parallel != null) {
+                    parallel.items[n] = parallel.items[i];
+                }
+                n += 1;
+            }
+        }
+        size = n;
+        if (parallel != null) {
+            parallel.size = n;
+        }
+    }
+
+    /** Returns a new list with the same items as I have now. */
+    IntList copy() {
+        IntList result = new IntList();
+        if (size > 0) {
+            result.items = Arrays.copyOf(items, size);
+            result.size = size;
+        }
+        return result;
+    }
+
+    /** Returns an iteration over my items.  The iteration reads my
+     *  storage directly and so must not be used across modifications. */
+    Iteration<Integer> iteration() {
+        return new Iteration<Integer>() {
+            @Override
+            public boolean hasNext() {
+                return k < size;
+            }
+
+            @Override
+            public Integer next() {
+                if (k >= size) {
+                    throw new NoSuchElementException();
+                }
+                k += 1;
+                return items[k - 1];
+            }
+
+            /** Index of the next item to deliver. */
+            private int k;
+        };
+    }
+
+    /** My items, in positions [0 .. size-1]. */
+    private int[] items;
+    /** Number of items in me. */
+    private int size;
+}
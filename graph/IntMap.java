@@ -0,0 +1,98 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** An open-addressing hash map from positive ints (vertex numbers) to
+ *  ints, with linear probing, stored in primitive arrays.  Entries are
+ *  never removed individually; clear() takes time proportional to the
+ *  table's size, which stays proportional to the number of entries it
+ *  has held.
+ *  @author Netra Sathe
+ */
+class IntMap {
+
+    /** Initial number of buckets (a power of 2). */
+    private static final int INITIAL_BUCKETS = 16;
+
+    /** An empty map. */
+    IntMap() {
+        keys = new int[INITIAL_BUCKETS];
+        vals = new int[INITIAL_BUCKETS];
+    }
+
+    /** Returns the number of entries in me. */
+    int size() {
+        return size;
+    }
+
+    /** Returns the value for K, or -1 if K is absent. */
+    int get(int k) {
+        int mask = keys.length - 1;
+        for (int i = bucket(k, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == k) {
+                return vals[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Set the value for K (positive) to VAL. */
+    void put(int k, int val) {
+        if (2 * (size + 1) > keys.length) {
+            rehash(2 * keys.length);
+        }
+        int mask = keys.length - 1;
+        int i;
+        for (i = bucket(k, mask); keys[i] != 0; i = (i + 1) & mask) {
+            if (keys[i] == k) {
+                vals[i] = val;
+                return;
+            }
+        }
+        keys[i] = k;
+        vals[i] = val;
+        size += 1;
+    }
+
+    /** Remove all entries. */
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            size = 0;
+        }
+    }
+
+    /** Returns the home bucket of K in a table with the given MASK. */
+    private static int bucket(int k, int mask) {
+        int h = k * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /** Rebuild me with N buckets. */
+    private void rehash(int n) {
+        int[] oldKeys = keys, oldVals = vals;
+        keys = new int[n];
+        vals = new int[n];
+        int mask = n - 1;
+        for (int j = 0; j < oldKeys.length; j += 1) {
+            if (oldKeys[j] != 0) {
+                int i;
+                for (i = bucket(oldKeys[j], mask); keys[i] != 0;
+                     i = (i + 1) & mask) {
+                    continue;
+                }
+                keys[i] = oldKeys[j];
+                vals[i] = oldVals[j];
+            }
+        }
+    }
+
+    /** Keys of occupied buckets; 0 marks an empty bucket. */
+    private int[] keys;
+    /** vals[I] is the value for keys[I]. */
+    private int[] vals;
+    /** Number of entries. */
+    private int size;
+}
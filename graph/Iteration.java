@@ -3,6 +3,7 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /** An Iteration<TYPE> is an Iterator<TYPE> that may also be used in a foreach
  *  loop.  That is, it implements the Iterable<TYPE> interface by simply
@@ -46,6 +47,37 @@ public abstract class Iteration<Type>
         private Iterator<Type> _iter;
     }
 
+    /** An iteration over ITEMS[START .. END-1]. */
+    private static class Slice extends Iteration<Integer> {
+        /** Iteration over ITEMS[START .. END-1]. */
+        Slice(int[] items, int start, int end) {
+            _items = items;
+            _k = start;
+            _end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _end;
+        }
+
+        @Override
+        public Integer next() {
+            if (_k >= _end) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _items[_k - 1];
+        }
+
+        /** The array being iterated. */
+        private final int[] _items;
+        /** Index of next item. */
+        private int _k;
+        /** Limit of iteration. */
+        private final int _end;
+    }
+
     /** Returns an Iteration<TYPE> that delegates to IT. */
     static <Type> Iteration<Type> iteration(Iterator<Type> it) {
         return new SimpleIteration<>(it);
@@ -55,4 +87,10 @@ public abstract class Iteration<Type>
     static <Type> Iteration<Type> iteration(Iterable<Type> iterable) {
         return new SimpleIteration<>(iterable.iterator());
     }
+
+    /** Returns an Iteration over ITEMS[START .. END-1], which reads ITEMS
+     *  directly. */
+    static Iteration<Integer> slice(int[] items, int start, int end) {
+        return new Slice(items, start, end);
+    }
 }
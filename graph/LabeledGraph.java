@@ -3,12 +3,17 @@ package graph;
 /* See restrictions in Graph.java. */
 
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /** A Graph whose vertices are labeled with type VL and whose edges are
- *  labeled with type EL.
+ *  labeled with type EL.  In addition to their labels, edges carry a
+ *  double weight and an int tag, kept in primitive arrays indexed by edge
+ *  id, so that numeric attributes can be read without dereferencing
+ *  label objects.  A WeightedGraphPaths searches with the weights.
  *  @author P. N. Hilfinger
  */
-public class LabeledGraph<VL, EL> extends GraphFilter {
+public class LabeledGraph<VL, EL> extends GraphFilter
+    implements EdgeWeights {
 
     /** A labeling of the graph G.  Accessors and modifiers of the graph
      *  act upon G.  Attempts to modify the graph structure directly through
@@ -22,6 +27,10 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
     private final ArrayList<VL> _vlabel = new ArrayList<>();
     /** Mapping of unique edge ids to edge labels. */
     private final ArrayList<EL> _elabel = new ArrayList<>();
+    /** Mapping of unique edge ids to edge weights. */
+    private double[] _eweight = new double[0];
+    /** Mapping of unique edge ids to edge tags. */
+    private int[] _etag = new int[0];
 
     /** Returns the label on vertex V, which must be one of my
      *  vertices. */
@@ -61,6 +70,45 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         }
     }
 
+    /** Returns the weight of the edge (U, V), which must be one of my
+     *  edges.  Weights are 0 until set. */
+    @Override
+    public double getWeight(int u, int v) {
+        return weight(checkedEdgeId(u, v));
+    }
+
+    @Override
+    public double successorWeight(int v, int k) {
+        return weight(successorEdge(v, k));
+    }
+
+    /** Set getWeight(U, V) to W. (U, V) must be one of my edges. */
+    public void setWeight(int u, int v, double w) {
+        int e = checkedEdgeId(u, v);
+        if (e >= _eweight.length) {
+            _eweight = Arrays.copyOf(_eweight,
+                                     Math.max(e + 1, 2 * _eweight.length));
+        }
+        _eweight[e] = w;
+    }
+
+    /** Returns the tag on the edge (U, V), which must be one of my edges.
+     *  Tags are small integer attributes (such as an enum's ordinal),
+     *  and are 0 until set. */
+    public int getTag(int u, int v) {
+        int e = checkedEdgeId(u, v);
+        return e < _etag.length ? _etag[e] : 0;
+    }
+
+    /** Set getTag(U, V) to TAG. (U, V) must be one of my edges. */
+    public void setTag(int u, int v, int tag) {
+        int e = checkedEdgeId(u, v);
+        if (e >= _etag.length) {
+            _etag = Arrays.copyOf(_etag, Math.max(e + 1, 2 * _etag.length));
+        }
+        _etag[e] = tag;
+    }
+
     /** Returns a new vertex labeled LAB, and adds it to me with no
      *  incident edges. */
     public int add(VL lab) {
@@ -82,8 +130,23 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         return e;
     }
 
+    /** Adds an edge incident on U and V, labeled with LAB and with weight
+     *  WEIGHT, and returns the same value as for add(u, v). */
+    public int add(int u, int v, EL lab, double weight) {
+        int e = add(u, v, lab);
+        setWeight(u, v, weight);
+        return e;
+    }
+
     @Override
     public void remove(int v) {
+        checkMyVertex(v);
+        for (int k = 0, n = outDegree(v); k < n; k += 1) {
+            clearEdgeLabel(edgeId(v, successor(v, k)));
+        }
+        for (int k = 0, n = inDegree(v); k < n; k += 1) {
+            clearEdgeLabel(edgeId(predecessor(v, k), v));
+        }
         super.remove(v);
         if (v < _vlabel.size()) {
             _vlabel.set(v, null);
@@ -95,9 +158,35 @@ public class LabeledGraph<VL, EL> extends GraphFilter {
         int e = edgeId(u, v);
         if (e != 0) {
             super.remove(u, v);
-            if (e < _elabel.size()) {
-                _elabel.set(e, null);
-            }
+            clearEdgeLabel(e);
+        }
+    }
+
+    /** Returns the weight of the edge whose id is E. */
+    double weight(int e) {
+        return e < _eweight.length ? _eweight[e] : 0.0;
+    }
+
+    /** Returns edgeId(U, V), which must not be 0. */
+    private int checkedEdgeId(int u, int v) {
+        int e = edgeId(u, v);
+        if (e == 0) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        return e;
+    }
+
+    /** Remove the label, weight, and tag on the edge whose id is E, so that
+     *  they do not reappear on a later edge that is given the same id. */
+    private void clearEdgeLabel(int e) {
+        if (e < _elabel.size()) {
+            _elabel.set(e, null);
+        }
+        if (e < _eweight.length) {
+            _eweight[e] = 0.0;
+        }
+        if (e < _etag.length) {
+            _etag[e] = 0;
         }
     }
 
@@ -0,0 +1,63 @@
+package graph;
+
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import ucb.junit.textui;
+import static org.junit.Assert.*;
+import static graph.ScalingTest.assertScales;
+
+/** Checks, using ScalingTest.assertScales, that the operations of the
+ *  Graph classes scale within their bounds.  The checks time graphs of
+ *  up to tens of thousands of vertices, take tens of seconds, and may
+ *  fail on a loaded machine, so they are not part of UnitTest.  Run them
+ *  with "make scaling".
+ *  @author Netra Sathe
+ */
+public class ScalingChecks {
+
+    /** Run the scaling checks. */
+    public static void main(String[] ignored) {
+        System.exit(textui.runClasses(ScalingChecks.class));
+    }
+
+    @Test
+    public void testDirectedGraph() {
+        assertScales(DirectedGraph::new);
+    }
+
+    @Test
+    public void testUndirectedGraph() {
+        assertScales(UndirectedGraph::new);
+    }
+
+    @Test
+    public void testLabeledGraphs() {
+        assertScales(() -> new LabeledGraph<String, String>(
+                               new DirectedGraph()));
+        assertScales(() -> new LabeledGraph<String, String>(
+                               new UndirectedGraph()));
+    }
+
+    @Test
+    public void testDetectsQuadratic() {
+        Supplier<Graph> slow = () -> new GraphFilter(new DirectedGraph()) {
+            @Override
+            public int maxVertex() {
+                int max = 0;
+                for (int v : vertices()) {
+                    max = Math.max(max, v);
+                }
+                return max;
+            }
+        };
+        try {
+            assertScales(slow, 1 << 9, ScalingTest.STEPS);
+        } catch (AssertionError excp) {
+            assertTrue(excp.getMessage().contains("sizes"));
+            return;
+        }
+        fail("quadratic maxVertex not detected");
+    }
+
+}
@@ -0,0 +1,374 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Tests that the cost of each Graph operation and traversal grows no
+ *  faster than its documented bound.  Each operation is timed on graphs
+ *  of geometrically increasing sizes; the growth exponent is the slope
+ *  of the least-squares line through log(time) against log(size), and
+ *  must not exceed the bound by more than SLACK.  Every workload does
+ *  O(N) calls on a graph of N vertices and O(N) edges, so an operation
+ *  that takes constant or O(degree) time per call has bound 1, and one
+ *  that accidentally scans the graph shows up with an exponent near 2.
+ *  assertScales applies the same checks to any kind of Graph.  Timing
+ *  takes tens of seconds and wants an otherwise idle machine, so only the
+ *  harness itself is tested here, as part of UnitTest; ScalingChecks
+ *  applies it to the graph classes ("make scaling").
+ *  @author Netra Sathe
+ */
+public class ScalingTest {
+
+    /** Default number of vertices of the smallest graphs timed. */
+    static final int MIN_SIZE = 1 << 12;
+
+    /** Default number of sizes timed, each twice the last. */
+    static final int STEPS = 4;
+
+    /** Average number of edges leaving each vertex of a test graph. */
+    static final int DEGREE = 4;
+
+    /** Amount by which a measured exponent may exceed its bound. */
+    static final double SLACK = 0.6;
+
+    /** Number of timings at each size, of which the least is used. */
+    static final int REPEATS = 3;
+
+    /** Number of times a check that exceeds its bound is measured again
+     *  before it is reported, since operations that touch memory all over
+     *  a large graph are now and then slowed by the memory system. */
+    static final int RETRIES = 2;
+
+    /** Kinds of graph that workloads start from. */
+    private enum Input {
+        /** An empty graph. */
+        EMPTY,
+        /** A graph with N vertices and no edges. */
+        VERTICES,
+        /** A graph with N vertices and about DEGREE * N edges, including
+         *  edges (V, V+1), so that every vertex is reachable from 1. */
+        RANDOM
+    }
+
+    /** A timed operation on a graph of N vertices. */
+    private interface Workload {
+        /** Perform the operation on G, which has N vertices (or none, for
+         *  Input.EMPTY), using R for random choices.  Returns a value
+         *  that depends on all the work done. */
+        long run(Graph G, int n, Random r);
+    }
+
+    /** One of the checks made by assertScales. */
+    private static class Check {
+        /** The check of workload W, named NAME, starting from INPUT, whose
+         *  cost grows as N to the power BOUND; MUTATES is true if it
+         *  changes the graph. */
+        Check(String name, double bound, Input input, boolean mutates,
+              Workload w) {
+            _name = name;
+            _bound = bound;
+            _input = input;
+            _mutates = mutates;
+            _work = w;
+        }
+
+        /** Name of the check. */
+        private final String _name;
+        /** Maximum growth exponent. */
+        private final double _bound;
+        /** Kind of graph the workload starts from. */
+        private final Input _input;
+        /** True iff the workload changes its graph. */
+        private final boolean _mutates;
+        /** The operation timed. */
+        private final Workload _work;
+    }
+
+    /** All the checks made by assertScales. */
+    private static final Check[] CHECKS = {
+        new Check("add()", 1, Input.EMPTY, true, (G, n, r) -> {
+            long sum = 0;
+            for (int i = 0; i < n; i += 1) {
+                sum += G.add();
+            }
+            return sum;
+        }),
+        new Check("add(u, v)", 1, Input.VERTICES, true, (G, n, r) -> {
+            long sum = 0;
+            for (int i = 0; i < DEGREE * n; i += 1) {
+                sum += G.add(1 + r.nextInt(n), 1 + r.nextInt(n));
+            }
+            return sum;
+        }),
+        new Check("contains(u, v)", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int i = 0; i < DEGREE * n; i += 1) {
+                int u = 1 + r.nextInt(n);
+                sum += G.contains(u, u + 1) ? 1 : 0;
+                sum += G.contains(u, 1 + r.nextInt(n)) ? 1 : 0;
+            }
+            return sum;
+        }),
+        new Check("contains(v)", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int i = 0; i < n; i += 1) {
+                sum += G.contains(1 + r.nextInt(2 * n)) ? 1 : 0;
+            }
+            return sum;
+        }),
+        new Check("sizes", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int i = 0; i < n; i += 1) {
+                sum += G.vertexSize() + G.edgeSize() + G.maxVertex();
+            }
+            return sum;
+        }),
+        new Check("degrees", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int v = 1; v <= n; v += 1) {
+                sum += G.outDegree(v) + G.inDegree(v) + G.degree(v);
+            }
+            return sum;
+        }),
+        new Check("successors()", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int v = 1; v <= n; v += 1) {
+                for (int w : G.successors(v)) {
+                    sum += w;
+                }
+            }
+            return sum;
+        }),
+        new Check("predecessors()", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int v = 1; v <= n; v += 1) {
+                for (int w : G.predecessors(v)) {
+                    sum += w;
+                }
+            }
+            return sum;
+        }),
+        new Check("successor(v, k)", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int v = 1; v <= n; v += 1) {
+                for (int k = 0, d = G.outDegree(v); k < d; k += 1) {
+                    sum += G.successor(v, k);
+                }
+            }
+            return sum;
+        }),
+        new Check("vertices()", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int v : G.vertices()) {
+                sum += v;
+            }
+            return sum;
+        }),
+        new Check("edges()", 1, Input.RANDOM, false, (G, n, r) -> {
+            long sum = 0;
+            for (int[] e : G.edges()) {
+                sum += e[0] - e[1];
+            }
+            return sum;
+        }),
+        new Check("remove(u, v)", 1, Input.RANDOM, true, (G, n, r) -> {
+            ArrayList<int[]> edges = new ArrayList<>();
+            for (int[] e : G.edges()) {
+                edges.add(e);
+            }
+            for (int[] e : edges) {
+                G.remove(e[0], e[1]);
+            }
+            return G.edgeSize();
+        }),
+        new Check("remove(v)", 1, Input.RANDOM, true, (G, n, r) -> {
+            for (int v = 1; v <= n; v += 2) {
+                G.remove(v);
+            }
+            return G.edgeSize();
+        }),
+        new Check("remove(hub)", 1, Input.VERTICES, true, (G, n, r) -> {
+            for (int v = 2; v <= n; v += 1) {
+                G.add(1, v);
+                G.add(v, 1);
+                if (v < n) {
+                    G.add(v, v + 1);
+                }
+            }
+            G.remove(1);
+            return G.edgeSize();
+        }),
+        new Check("add() after remove(v)", 1, Input.RANDOM, true,
+            (G, n, r) -> {
+                for (int v = 2; v <= n; v += 2) {
+                    G.remove(v);
+                }
+                long sum = 0;
+                for (int v = 2; v <= n; v += 2) {
+                    sum += G.add();
+                }
+                return sum;
+            }),
+        new Check("BreadthFirstTraversal", 1, Input.RANDOM, false,
+            (G, n, r) -> {
+                long[] sum = { 0 };
+                new BreadthFirstTraversal(G) {
+                    @Override
+                    protected boolean visit(int v) {
+                        sum[0] += v;
+                        return true;
+                    }
+                }.traverse(1);
+                return sum[0];
+            }),
+        new Check("DepthFirstTraversal", 1, Input.RANDOM, false,
+            (G, n, r) -> {
+                long[] sum = { 0 };
+                new DepthFirstTraversal(G) {
+                    @Override
+                    protected boolean postVisit(int v) {
+                        sum[0] += v;
+                        return true;
+                    }
+                }.traverse(1);
+                return sum[0];
+            }),
+        new Check("SimpleShortestPaths", 1, Input.RANDOM, false,
+            (G, n, r) -> {
+                SimpleShortestPaths paths = new SimpleShortestPaths(G, 1) {
+                    @Override
+                    protected double getWeight(int u, int v) {
+                        return 1.0 + ((u ^ v) & 7);
+                    }
+                };
+                paths.setPaths();
+                long sum = (long) paths.getWeight(n);
+                paths.release();
+                return sum;
+            }),
+    };
+
+    /** Assert that every operation on the graphs produced by FACTORY
+     *  scales within its bound, timing graphs of MIN_SIZE vertices and
+     *  larger. */
+    public static void assertScales(Supplier<Graph> factory) {
+        assertScales(factory, MIN_SIZE, STEPS);
+    }
+
+    /** Assert that every operation on the graphs produced by FACTORY
+     *  scales within its bound, timing graphs of MINSIZE vertices and
+     *  then STEPS - 1 successively doubled sizes. */
+    public static void assertScales(Supplier<Graph> factory, int minSize,
+                                    int steps) {
+        for (Check check : CHECKS) {
+            time(check, factory, minSize);
+        }
+        StringBuilder failures = new StringBuilder();
+        for (Check check : CHECKS) {
+            double exponent = exponent(check, factory, minSize, steps);
+            for (int k = 0; k < RETRIES && exponent > check._bound + SLACK;
+                 k += 1) {
+                exponent = Math.min(exponent,
+                                    exponent(check, factory, minSize, steps));
+            }
+            if (exponent > check._bound + SLACK) {
+                failures.append(String.format("%n  %s grows as n^%.2f "
+                                              + "(bound n^%.0f)",
+                                              check._name, exponent,
+                                              check._bound));
+            }
+        }
+        if (failures.length() > 0) {
+            fail("operations of " + factory.get().getClass().getName()
+                 + " scale too fast:" + failures);
+        }
+    }
+
+    /** Returns the measured growth exponent of CHECK on graphs from
+     *  FACTORY of MINSIZE vertices and STEPS - 1 doublings of that. */
+    private static double exponent(Check check, Supplier<Graph> factory,
+                                   int minSize, int steps) {
+        double[] x = new double[steps], y = new double[steps];
+        for (int i = 0; i < steps; i += 1) {
+            int n = minSize << i;
+            x[i] = Math.log(n);
+            y[i] = Math.log(Math.max(1, time(check, factory, n)));
+        }
+        return slope(x, y);
+    }
+
+    /** Returns the least time, in nanoseconds, of REPEATS runs of CHECK
+     *  on graphs from FACTORY of N vertices.  Each run starts after a
+     *  garbage collection, so that it is not charged for collecting the
+     *  garbage of earlier runs. */
+    private static long time(Check check, Supplier<Graph> factory, int n) {
+        long best = Long.MAX_VALUE;
+        Graph G = null;
+        for (int k = 0; k < REPEATS; k += 1) {
+            if (G == null || check._mutates) {
+                G = input(check._input, factory, n);
+            }
+            Random r = new Random(n + k);
+            System.gc();
+            long start = System.nanoTime();
+            sink += check._work.run(G, n, r);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /** Returns a graph from FACTORY of the kind INPUT with N vertices. */
+    private static Graph input(Input input, Supplier<Graph> factory, int n) {
+        Graph G = factory.get();
+        if (input == Input.EMPTY) {
+            return G;
+        }
+        for (int i = 0; i < n; i += 1) {
+            G.add();
+        }
+        if (input == Input.RANDOM) {
+            Random r = new Random(n);
+            for (int v = 1; v <= n; v += 1) {
+                if (v < n) {
+                    G.add(v, v + 1);
+                }
+                for (int k = 1; k < DEGREE; k += 1) {
+                    G.add(v, 1 + r.nextInt(n));
+                }
+            }
+        }
+        return G;
+    }
+
+    /** Returns the slope of the least-squares line through the points
+     *  (X[i], Y[i]). */
+    static double slope(double[] x, double[] y) {
+        double mx = 0, my = 0;
+        for (int i = 0; i < x.length; i += 1) {
+            mx += x[i] / x.length;
+            my += y[i] / y.length;
+        }
+        double sxy = 0, sxx = 0;
+        for (int i = 0; i < x.length; i += 1) {
+            sxy += (x[i] - mx) * (y[i] - my);
+            sxx += (x[i] - mx) * (x[i] - mx);
+        }
+        return sxy / sxx;
+    }
+
+    /** Accumulates the results of workloads, so that they are not
+     *  optimized away. */
+    private static long sink;
+
+    @Test
+    public void testSlope() {
+        double[] x = { 1, 2, 3, 4 };
+        assertEquals(2.0, slope(x, new double[] { 3, 5, 7, 9 }), 1e-9);
+        assertEquals(0.0, slope(x, new double[] { 1, 1, 1, 1 }), 1e-9);
+    }
+
+}
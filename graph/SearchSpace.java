@@ -0,0 +1,356 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/** The per-vertex state of one shortest-path search: tentative weights,
+ *  predecessors, marks, and cached distance estimates, plus the heap that
+ *  orders the fringe.  Spaces are pooled per thread: acquire() one before
+ *  a search and release() it when its results are no longer needed,
+ *  after which the next search on the same thread reuses its storage.
+ *
+ *  The state is stored in one of two ways.  A dense space keeps arrays
+ *  indexed by vertex number and sized by the graph's maxVertex(), with
+ *  a version stamp per entry, so reset() takes constant time.  A sparse
+ *  space gives each vertex it touches a slot through an IntMap, so its
+ *  size is proportional to the part of the graph searched, however large
+ *  the vertex numbers are.  A search starts sparse on a large graph
+ *  unless the space already has dense arrays big enough, and switches to
+ *  dense once it has touched more than 1/SPARSE_RATIO of the vertex
+ *  numbers, since by then the dense arrays cost little more memory and
+ *  are faster.  Either way, a search costs time proportional to the
+ *  vertices it touches.
+ *  @author Netra Sathe
+ */
+final class SearchSpace {
+
+    /** Maximum number of released spaces kept per thread. */
+    private static final int POOL_SIZE = 4;
+
+    /** Graphs whose vertex numbers are all below this are always searched
+     *  with dense spaces. */
+    static final int DENSE_LIMIT = 1 << 12;
+
+    /** A sparse search switches to dense arrays once it has touched more
+     *  than one in this many possible vertex numbers. */
+    static final int SPARSE_RATIO = 16;
+
+    /** Bits of the flags of a sparse slot. */
+    private static final int WEIGHED = 1, MARKED = 2, ESTIMATED = 4;
+
+    /** Released spaces of each thread. */
+    private static final ThreadLocal<ArrayDeque<SearchSpace>> POOL =
+        ThreadLocal.withInitial(ArrayDeque::new);
+
+    /** A new, empty space. */
+    private SearchSpace() {
+        stamp = markStamp = estimateStamp = new int[0];
+        weight = estimate = new double[0];
+        pred = new int[0];
+        version = 1;
+        dense = true;
+    }
+
+    /** Returns a reset space for searching G, taken from this thread's
+     *  pool if possible. */
+    static SearchSpace acquire(Graph G) {
+        SearchSpace space = POOL.get().poll();
+        if (space == null) {
+            space = new SearchSpace();
+        }
+        space.reset(G);
+        return space;
+    }
+
+    /** Return me to this thread's pool.  I must not be used afterwards. */
+    void release() {
+        ArrayDeque<SearchSpace> pool = POOL.get();
+        if (pool.size() < POOL_SIZE) {
+            pool.push(this);
+        }
+    }
+
+    /** Invalidate all entries and prepare for a search of G, choosing
+     *  between dense and sparse storage. */
+    void reset(Graph G) {
+        range = G.maxVertex() + 1;
+        version += 1;
+        if (version == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            Arrays.fill(markStamp, 0);
+            Arrays.fill(estimateStamp, 0);
+            version = 1;
+        }
+        dense = range <= DENSE_LIMIT || stamp.length >= range;
+        if (dense) {
+            ensureCapacity(range);
+        } else {
+            if (slots == null) {
+                slots = new IntMap();
+                slotVertex = new int[16];
+                flags = new int[16];
+                sWeight = new double[16];
+                sEstimate = new double[16];
+                sPred = new int[16];
+            }
+            slots.clear();
+            nslots = 0;
+        }
+        if (heap != null) {
+            heap.clear();
+        }
+    }
+
+    /** Returns true iff I am currently using dense arrays. */
+    boolean isDense() {
+        return dense;
+    }
+
+    /** Returns the weight of V, or Double.MAX_VALUE if none has been set
+     *  since the last reset. */
+    double weight(int v) {
+        if (dense) {
+            return v < stamp.length && stamp[v] == version
+                ? weight[v] : Double.MAX_VALUE;
+        }
+        int s = slots.get(v);
+        return s >= 0 && (flags[s] & WEIGHED) != 0
+            ? sWeight[s] : Double.MAX_VALUE;
+    }
+
+    /** Returns the predecessor of V, or 0 if none has been set. */
+    int pred(int v) {
+        if (dense) {
+            return v < stamp.length && stamp[v] == version ? pred[v] : 0;
+        }
+        int s = slots.get(v);
+        return s >= 0 && (flags[s] & WEIGHED) != 0 ? sPred[s] : 0;
+    }
+
+    /** Set the weight of V to W. */
+    void setWeight(int v, double w) {
+        if (dense) {
+            touch(v);
+            weight[v] = w;
+        } else {
+            int s = weighed(v);
+            if (dense) {
+                weight[v] = w;
+            } else {
+                sWeight[s] = w;
+            }
+        }
+    }
+
+    /** Set the predecessor of V to U. */
+    void setPred(int v, int u) {
+        if (dense) {
+            touch(v);
+            pred[v] = u;
+        } else {
+            int s = weighed(v);
+            if (dense) {
+                pred[v] = u;
+            } else {
+                sPred[s] = u;
+            }
+        }
+    }
+
+    /** Returns true iff V is marked. */
+    boolean marked(int v) {
+        if (dense) {
+            return v < markStamp.length && markStamp[v] == version;
+        }
+        int s = slots.get(v);
+        return s >= 0 && (flags[s] & MARKED) != 0;
+    }
+
+    /** Mark V. */
+    void mark(int v) {
+        if (dense) {
+            ensureCapacity(v + 1);
+            markStamp[v] = version;
+        } else {
+            int s = slot(v);
+            if (dense) {
+                markStamp[v] = version;
+            } else {
+                flags[s] |= MARKED;
+            }
+        }
+    }
+
+    /** Returns true iff an estimate has been cached for V. */
+    boolean hasEstimate(int v) {
+        if (dense) {
+            return v < estimateStamp.length && estimateStamp[v] == version;
+        }
+        int s = slots.get(v);
+        return s >= 0 && (flags[s] & ESTIMATED) != 0;
+    }
+
+    /** Returns the estimate cached for V. */
+    double estimate(int v) {
+        return dense ? estimate[v] : sEstimate[slots.get(v)];
+    }
+
+    /** Cache X as the estimate for V. */
+    void setEstimate(int v, double x) {
+        if (dense) {
+            ensureCapacity(v + 1);
+            estimateStamp[v] = version;
+            estimate[v] = x;
+        } else {
+            int s = slot(v);
+            if (dense) {
+                estimateStamp[v] = version;
+                estimate[v] = x;
+            } else {
+                flags[s] |= ESTIMATED;
+                sEstimate[s] = x;
+            }
+        }
+    }
+
+    /** Returns my (empty, after a reset) heap, which has the given ARITY
+     *  and is indexed sparsely iff I am sparse. */
+    IndexedHeap heap(int arity) {
+        if (heap == null || heapArity != arity || heap.isSparse() == dense) {
+            heap = new IndexedHeap(arity, dense ? range : 0, !dense);
+            heapArity = arity;
+        }
+        return heap;
+    }
+
+    /** Give V a valid weight and predecessor entry in my dense arrays,
+     *  initially Double.MAX_VALUE and 0. */
+    private void touch(int v) {
+        ensureCapacity(v + 1);
+        if (stamp[v] != version) {
+            stamp[v] = version;
+            weight[v] = Double.MAX_VALUE;
+            pred[v] = 0;
+        }
+    }
+
+    /** Returns the slot of V, with a valid weight and predecessor, as for
+     *  touch.  If that makes me dense, the result is meaningless. */
+    private int weighed(int v) {
+        int s = slot(v);
+        if (dense) {
+            touch(v);
+        } else if ((flags[s] & WEIGHED) == 0) {
+            flags[s] |= WEIGHED;
+            sWeight[s] = Double.MAX_VALUE;
+            sPred[s] = 0;
+        }
+        return s;
+    }
+
+    /** Returns the slot of V, allocating one if needed.  If allocation
+     *  makes me switch to dense arrays, the result is meaningless. */
+    private int slot(int v) {
+        int s = slots.get(v);
+        if (s >= 0) {
+            return s;
+        }
+        if ((long) SPARSE_RATIO * (nslots + 1) > range) {
+            toDense();
+            ensureCapacity(v + 1);
+            return -1;
+        }
+        if (nslots == slotVertex.length) {
+            int n = 2 * nslots;
+            slotVertex = Arrays.copyOf(slotVertex, n);
+            flags = Arrays.copyOf(flags, n);
+            sWeight = Arrays.copyOf(sWeight, n);
+            sEstimate = Arrays.copyOf(sEstimate, n);
+            sPred = Arrays.copyOf(sPred, n);
+        }
+        s = nslots;
+        nslots += 1;
+        slots.put(v, s);
+        slotVertex[s] = v;
+        flags[s] = 0;
+        return s;
+    }
+
+    /** Move my sparse entries into dense arrays and use those from now
+     *  on. */
+    private void toDense() {
+        ensureCapacity(range);
+        for (int s = 0; s < nslots; s += 1) {
+            int v = slotVertex[s];
+            ensureCapacity(v + 1);
+            if ((flags[s] & WEIGHED) != 0) {
+                stamp[v] = version;
+                weight[v] = sWeight[s];
+                pred[v] = sPred[s];
+            }
+            if ((flags[s] & MARKED) != 0) {
+                markStamp[v] = version;
+            }
+            if ((flags[s] & ESTIMATED) != 0) {
+                estimateStamp[v] = version;
+                estimate[v] = sEstimate[s];
+            }
+        }
+        dense = true;
+    }
+
+    /** Make room in my dense arrays for vertices less than N. */
+    private void ensureCapacity(int n) {
+        if (n > stamp.length) {
+            n = Math.max(n, stamp.length + stamp.length / 2);
+            stamp = Arrays.copyOf(stamp, n);
+            markStamp = Arrays.copyOf(markStamp, n);
+            estimateStamp = Arrays.copyOf(estimateStamp, n);
+            weight = Arrays.copyOf(weight, n);
+            estimate = Arrays.copyOf(estimate, n);
+            pred = Arrays.copyOf(pred, n);
+        }
+    }
+
+    /** True iff I am using my dense arrays. */
+    private boolean dense;
+    /** 1 + the maximum vertex number of the graph being searched. */
+    private int range;
+
+    /** Current version; dense entries with other stamps are invalid. */
+    private int version;
+    /** Stamps of the dense weight and pred entries. */
+    private int[] stamp;
+    /** Stamps of dense marks. */
+    private int[] markStamp;
+    /** Stamps of the dense estimate entries. */
+    private int[] estimateStamp;
+    /** Dense weights of vertices. */
+    private double[] weight;
+    /** Dense cached estimates. */
+    private double[] estimate;
+    /** Dense predecessors of vertices. */
+    private int[] pred;
+
+    /** Slot of each vertex touched by a sparse search. */
+    private IntMap slots;
+    /** Number of slots in use. */
+    private int nslots;
+    /** Vertex of each slot. */
+    private int[] slotVertex;
+    /** WEIGHED, MARKED, and ESTIMATED bits of each slot. */
+    private int[] flags;
+    /** Sparse weights, by slot. */
+    private double[] sWeight;
+    /** Sparse estimates, by slot. */
+    private double[] sEstimate;
+    /** Sparse predecessors, by slot. */
+    private int[] sPred;
+
+    /** Fringe heap, created on first use. */
+    private IndexedHeap heap;
+    /** Arity of heap. */
+    private int heapArity;
+}
@@ -5,6 +5,7 @@ package graph;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
 import java.util.Iterator;
 import java.util.AbstractQueue;
@@ -13,7 +14,10 @@ import java.util.AbstractQueue;
  *  By overrriding methods getWeight, setWeight, getPredecessor, and
  *  setPredecessor, the client can determine how to represent the weighting
  *  and the search results.  By overriding estimatedDistance, clients
- *  can search for paths to specific destinations using A* search.
+ *  can search for paths to specific destinations using A* search.  By
+ *  overriding fringeArity, clients can choose how the search fringe is
+ *  ordered, and by overriding bidirectional, they can have searches for
+ *  a specific destination grow from both ends.
  *  @author Netra Sathe
  */
 public abstract class ShortestPaths {
@@ -23,42 +27,95 @@ public abstract class ShortestPaths {
         this(G, source, 0);
     }
 
-    /** Prev node. */
-    protected int[] back;
     /** Search the graph. */
     protected final Graph graphh;
     /** Beginning source vertex. */
     private final int src;
     /** End vertex. */
     private final int desti;
-    /** The fringe. */
-    protected final DistanceQueue friinge;
-    /** Distance of node to start. */
-    protected double[] distance;
+    /** Per-vertex search state, or null if none has been acquired since
+     *  the last release(). */
+    private SearchSpace space;
 
-    /** A shortest path in G from SOURCE to DEST. */
+    /** A shortest path in G from SOURCE to DEST.  This takes constant
+     *  time: per-vertex state comes from a pooled SearchSpace when it is
+     *  first needed. */
     public ShortestPaths(Graph G, int source, int dest) {
         graphh = G;
         src = source;
         desti = dest;
-        friinge = new DistanceQueue();
-        back = new int[graphh.vertexSize() + 1];
-
-        distance = new double[graphh.vertexSize() + 1];
-        for (int i = 0; i < graphh.vertexSize() + 1; i += 1) {
-            back[i] = 0;
-            distance[i] = Double.MAX_VALUE;
-        }
-        distance[src] = 0.0;
     }
 
     /** Initialize the shortest paths.  Must be called before using
-     *  getWeight, getPredecessor, and pathTo. */
+     *  getWeight, getPredecessor, and pathTo.  Starts afresh each time it
+     *  is called, in time proportional to the part of the graph the
+     *  search touches. */
     public void setPaths() {
-        Astar traverse = new Astar(graphh, friinge);
+        space().reset(graphh);
+        setWeight(src, 0.0);
+        if (bidirectional() && desti != 0) {
+            int arity = fringeArity() == 0 ? DEFAULT_ARITY : fringeArity();
+            new BidirectionalSearch(this, arity).search();
+            return;
+        }
+        Fringe fringe;
+        if (fringeArity() == 0) {
+            fringe = new DistanceQueue();
+        } else {
+            fringe = new HeapQueue(fringeArity());
+        }
+        Astar traverse = new Astar(graphh, fringe);
         traverse.traverse(src);
     }
 
+    /** Returns the arity of the indexed heap that orders the search
+     *  fringe, or 0 to use a balanced tree instead.  The heap caches each
+     *  vertex's priority and estimatedDistance, so they are computed once
+     *  per update rather than on every comparison as the tree does.  The
+     *  default is 4. */
+    protected int fringeArity() {
+        return DEFAULT_ARITY;
+    }
+
+    /** Return my per-vertex search state to this thread's pool, so that
+     *  the next search on the thread can reuse it.  My weights and
+     *  predecessors are invalid afterwards, until the next setPaths. */
+    public void release() {
+        if (space != null) {
+            space.release();
+            space = null;
+        }
+    }
+
+    /** Returns my per-vertex search state, acquiring it if needed. */
+    SearchSpace space() {
+        if (space == null) {
+            space = SearchSpace.acquire(graphh);
+        }
+        return space;
+    }
+
+    /** Returns true iff a search for a destination vertex should run
+     *  forward from the source and backward from the destination at once,
+     *  which usually settles far fewer vertices.  In that case, only the
+     *  weights and predecessors of the vertices on the path to the
+     *  destination are computed, both estimatedDistance and
+     *  estimatedReverseDistance must be consistent (never decreasing by
+     *  more than an edge's weight along that edge), and getWeight(U, V)
+     *  is called for predecessors U of V.  The default is false. */
+    protected boolean bidirectional() {
+        return false;
+    }
+
+    /** Called when the search (unless bidirectional) settles vertex V,
+     *  at which point getWeight(V) and getPredecessor(V) are final.
+     *  Returns false iff the search is to stop at once, as it does on
+     *  settling the destination.  For example, a one-to-many search can
+     *  stop once all its targets are settled.  Returns true by default. */
+    protected boolean settled(int v) {
+        return true;
+    }
+
     /** Returns the starting vertex. */
     public int getSource() {
         return src;
@@ -90,10 +147,24 @@ public abstract class ShortestPaths {
         return 0.0;
     }
 
+    /** Returns an estimated heuristic weight of the shortest path from the
+     *  source to vertex V, used by bidirectional searches.  This is
+     *  assumed to be less than the actual weight, and is 0 by default. */
+    protected double estimatedReverseDistance(int v) {
+        return 0.0;
+    }
+
     /** Returns the current weight of edge (U, V) in the graph.  If (U, V) is
      *  not in the graph, returns positive infinity. */
     protected abstract double getWeight(int u, int v);
 
+    /** Returns getWeight(U, V), where V is successor K of U.  Subclasses
+     *  within this package may override this to find the weight through
+     *  the edge's position rather than its end points. */
+    double edgeWeight(int u, int k, int v) {
+        return getWeight(u, v);
+    }
+
     /** Returns a list of vertices starting at _source and ending
      *  at V that represents a shortest path to V.  Invalid if there is a
      *  destination vertex other than V. */
@@ -118,8 +189,93 @@ public abstract class ShortestPaths {
         return pathTo(getDest());
     }
 
-    /** Astar queue. */
-    private class DistanceQueue extends AbstractQueue<Integer> {
+    /** Default value of fringeArity(). */
+    static final int DEFAULT_ARITY = 4;
+
+    /** A search fringe, ordered by getWeight(v) + estimatedDistance(v). */
+    private abstract class Fringe extends AbstractQueue<Integer> {
+        /** Set getWeight(V) to W, which is less than its current value,
+         *  and add V to me or reposition it to reflect its new weight. */
+        abstract void reweigh(int v, double w);
+    }
+
+    /** Fringe kept in an IndexedHeap with cached priorities. */
+    private class HeapQueue extends Fringe {
+
+        /** An empty fringe using a heap of the given ARITY. */
+        HeapQueue(int arity) {
+            heap = space().heap(arity);
+        }
+
+        /** Returns estimatedDistance(V), computing it only once. */
+        private double estimate(int v) {
+            SearchSpace ws = space();
+            if (!ws.hasEstimate(v)) {
+                ws.setEstimate(v, estimatedDistance(v));
+            }
+            return ws.estimate(v);
+        }
+
+        @Override
+        void reweigh(int v, double w) {
+            setWeight(v, w);
+            heap.put(v, w + estimate(v));
+        }
+
+        @Override
+        public boolean offer(Integer v) {
+            heap.put(v, getWeight(v) + estimate(v));
+            return true;
+        }
+
+        @Override
+        public Integer peek() {
+            return heap.isEmpty() ? null : heap.peek();
+        }
+
+        @Override
+        public Integer poll() {
+            return heap.isEmpty() ? null : heap.poll();
+        }
+
+        @Override
+        public int size() {
+            return heap.size();
+        }
+
+        @Override
+        public void clear() {
+            heap.clear();
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return new Iterator<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return k < heap.size();
+                }
+
+                @Override
+                public Integer next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    k += 1;
+                    return heap.get(k - 1);
+                }
+
+                /** Heap position of the next item. */
+                private int k;
+            };
+        }
+
+        /** The vertices in the fringe. */
+        private final IndexedHeap heap;
+    }
+
+    /** Fringe kept in a TreeSet whose comparator recomputes priorities. */
+    private class DistanceQueue extends Fringe {
 
         /** Queue construct. */
         DistanceQueue() {
@@ -164,6 +320,13 @@ public abstract class ShortestPaths {
         public void clear() {
             dataa.clear();
         }
+
+        @Override
+        void reweigh(int v, double w) {
+            dataa.remove(v);
+            setWeight(v, w);
+            dataa.add(v);
+        }
     }
 
     /** Tree Comparator. */
@@ -201,8 +364,22 @@ public abstract class ShortestPaths {
          * @param g graph things
          * @param fringe queue
          */
-        Astar(Graph g, DistanceQueue fringe) {
+        Astar(Graph g, Fringe fringe) {
             super(g, fringe);
+            queue = fringe;
+        }
+
+        /** The fringe, which repositions vertices whose weights drop. */
+        private final Fringe queue;
+
+        @Override
+        protected boolean marked(int v) {
+            return space().marked(v);
+        }
+
+        @Override
+        protected void mark(int v) {
+            space().mark(v);
         }
 
 
@@ -210,10 +387,10 @@ public abstract class ShortestPaths {
          *  terminate immediately. */
         @Override
         protected boolean visit(int v) {
-            if (v == desti) {
+            if (!settled(v)) {
                 return false;
             }
-            return true;
+            return v != desti;
         }
 
         @Override
@@ -226,21 +403,35 @@ public abstract class ShortestPaths {
             return false;
         }
 
-        /** Process successor V to U.  Returns true iff V is then to
-         *  be added to the fringe. By default, returns true iff V is
-         *  unmarked. */
+        @Override
+        protected void processSuccessors(int u) {
+            for (int k = 0, n = graphh.outDegree(u); k < n; k += 1) {
+                int v = graphh.successor(u, k);
+                if (!marked(v)) {
+                    relax(u, v, edgeWeight(u, k, v));
+                }
+            }
+        }
+
+        /** Process successor V to U, relaxing edge (U, V).  The fringe
+         *  itself adds or repositions V if its weight drops, so this
+         *  always returns false. */
         @Override
         protected boolean processSuccessor(int u, int v) {
-            if (marked(v)) {
-                return false;
+            if (!marked(v)) {
+                relax(u, v, getWeight(u, v));
             }
-            if ((getWeight(u) + getWeight(u, v)) < getWeight(v)) {
-                friinge.remove(v);
-                setWeight(v, getWeight(u) + getWeight(u, v));
+            return false;
+        }
+
+        /** Update V's weight and predecessor if the path through U, whose
+         *  last edge weighs EDGE, is shorter than V's current path. */
+        private void relax(int u, int v, double edge) {
+            double w = getWeight(u) + edge;
+            if (w < getWeight(v)) {
                 setPredecessor(v, u);
-                return true;
+                queue.reweigh(v, w);
             }
-            return false;
         }
     }
 }
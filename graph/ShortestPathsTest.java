@@ -0,0 +1,357 @@
+package graph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for ShortestPaths.
+ *  @author Netra Sathe
+ */
+public class ShortestPathsTest {
+
+    /** Shortest paths on a graph whose edge weights are given by a
+     *  table, using a fringe of a given arity. */
+    static class TablePaths extends SimpleShortestPaths {
+        /** Paths in G from SOURCE to DEST with edge weights W, using a
+         *  fringe of the given ARITY. */
+        TablePaths(Graph G, int source, int dest, double[][] w, int arity) {
+            super(G, source, dest);
+            _w = w;
+            _arity = arity;
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            return _w[u][v];
+        }
+
+        @Override
+        protected int fringeArity() {
+            return _arity;
+        }
+
+        /** Edge weights. */
+        private final double[][] _w;
+        /** Fringe arity. */
+        private final int _arity;
+    }
+
+    /** Shortest paths on a graph of points in the plane, searched from
+     *  both ends with straight-line distance estimates. */
+    static class PlanePaths extends SimpleShortestPaths {
+        /** Bidirectional paths in G from SOURCE to DEST with edge weights
+         *  W and vertex V at (X[V], Y[V]). */
+        PlanePaths(Graph G, int source, int dest, double[][] w,
+                   double[] x, double[] y) {
+            super(G, source, dest);
+            _w = w;
+            _x = x;
+            _y = y;
+        }
+
+        @Override
+        protected double getWeight(int u, int v) {
+            return _w[u][v];
+        }
+
+        @Override
+        protected double estimatedDistance(int v) {
+            return Math.hypot(_x[v] - _x[getDest()], _y[v] - _y[getDest()]);
+        }
+
+        @Override
+        protected double estimatedReverseDistance(int v) {
+            return Math.hypot(_x[v] - _x[getSource()],
+                              _y[v] - _y[getSource()]);
+        }
+
+        @Override
+        protected boolean bidirectional() {
+            return true;
+        }
+
+        /** Edge weights. */
+        private final double[][] _w;
+        /** Coordinates. */
+        private final double[] _x, _y;
+    }
+
+    /** Returns the total weight under W of PATH, which must be a path in
+     *  G. */
+    private static double pathWeight(Graph g, List<Integer> path,
+                                     double[][] w) {
+        double total = 0.0;
+        for (int i = 1; i < path.size(); i += 1) {
+            assertTrue(g.contains(path.get(i - 1), path.get(i)));
+            total += w[path.get(i - 1)][path.get(i)];
+        }
+        return total;
+    }
+
+    /** Returns a random directed graph on N vertices with edge weights in
+     *  W, generated from SEED. */
+    private static Graph randomGraph(int n, double[][] w, long seed) {
+        Random r = new Random(seed);
+        Graph g = new DirectedGraph();
+        for (int i = 0; i < n; i += 1) {
+            g.add();
+        }
+        for (int i = 0; i < 4 * n; i += 1) {
+            int u = r.nextInt(n) + 1, v = r.nextInt(n) + 1;
+            g.add(u, v);
+            w[u][v] = r.nextInt(20);
+        }
+        return g;
+    }
+
+    @Test
+    public void testSmall() {
+        Graph g = new DirectedGraph();
+        double[][] w = new double[5][5];
+        for (int i = 0; i < 4; i += 1) {
+            g.add();
+        }
+        g.add(1, 2);
+        w[1][2] = 5;
+        g.add(1, 3);
+        w[1][3] = 1;
+        g.add(3, 2);
+        w[3][2] = 1;
+        g.add(2, 4);
+        w[2][4] = 1;
+        ShortestPaths p = new TablePaths(g, 1, 0, w, 4);
+        p.setPaths();
+        assertEquals(2.0, p.getWeight(2), 0.0);
+        assertEquals(3.0, p.getWeight(4), 0.0);
+        assertEquals(java.util.Arrays.asList(1, 3, 2, 4), p.pathTo(4));
+    }
+
+    @Test
+    public void testFringesAgree() {
+        int n = 200;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomGraph(n, w, 61);
+        ShortestPaths[] paths = {
+            new TablePaths(g, 1, 0, w, 0), new TablePaths(g, 1, 0, w, 2),
+            new TablePaths(g, 1, 0, w, 4), new TablePaths(g, 1, 0, w, 8)
+        };
+        for (ShortestPaths p : paths) {
+            p.setPaths();
+        }
+        for (int v = 1; v <= n; v += 1) {
+            for (ShortestPaths p : paths) {
+                assertEquals(paths[0].getWeight(v), p.getWeight(v), 0.0);
+                assertEquals(paths[0].pathTo(v), p.pathTo(v));
+            }
+        }
+    }
+
+
+    @Test
+    public void testLabeledWeights() {
+        LabeledGraph<String, String> g =
+            new LabeledGraph<>(new DirectedGraph());
+        for (int i = 0; i < 4; i += 1) {
+            g.add("v" + i);
+        }
+        g.add(1, 2, "a", 5);
+        g.add(1, 3, "b", 1);
+        g.add(3, 2, "c", 1);
+        g.add(2, 4, "d", 1);
+        g.setTag(3, 2, 7);
+        assertEquals(7, g.getTag(3, 2));
+        assertEquals(5.0, g.getWeight(1, 2), 0.0);
+        ShortestPaths p = new WeightedGraphPaths(g, 1);
+        p.setPaths();
+        assertEquals(3.0, p.getWeight(4), 0.0);
+        assertEquals(java.util.Arrays.asList(1, 3, 2, 4), p.pathTo(4));
+        g.setWeight(1, 2, 0.5);
+        p.setPaths();
+        assertEquals(1.5, p.getWeight(4), 0.0);
+        assertEquals(java.util.Arrays.asList(1, 2, 4), p.pathTo(4));
+        ShortestPaths hops = new SimpleShortestPaths(g, 1) {
+            @Override
+            protected double getWeight(int u, int v) {
+                return g.contains(u, v) ? 1.0 : Double.POSITIVE_INFINITY;
+            }
+        };
+        hops.setPaths();
+        assertEquals(2.0, hops.getWeight(4), 0.0);
+    }
+
+    @Test
+    public void testBidirectionalDijkstra() {
+        int n = 150;
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = randomGraph(n, w, 7);
+        for (int s = 1; s <= n; s += 17) {
+            ShortestPaths all = new TablePaths(g, s, 0, w, 4);
+            all.setPaths();
+            for (int t = 1; t <= n; t += 3) {
+                ShortestPaths p = new TablePaths(g, s, t, w, 4) {
+                    @Override
+                    protected boolean bidirectional() {
+                        return true;
+                    }
+                };
+                p.setPaths();
+                List<Integer> path = p.pathTo();
+                if (all.pathTo(t).get(0) != s) {
+                    assertEquals(t, (int) path.get(0));
+                    continue;
+                }
+                assertEquals(s, (int) path.get(0));
+                assertEquals(all.getWeight(t), p.getWeight(t), 1e-9);
+                assertEquals(all.getWeight(t), pathWeight(g, path, w), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testBidirectionalAstar() {
+        Random r = new Random(11);
+        int side = 20, n = side * side;
+        double[] x = new double[n + 1], y = new double[n + 1];
+        double[][] w = new double[n + 1][n + 1];
+        Graph g = new UndirectedGraph();
+        for (int v = 1; v <= n; v += 1) {
+            g.add();
+            x[v] = (v - 1) % side + r.nextDouble() / 2;
+            y[v] = (v - 1) / side + r.nextDouble() / 2;
+        }
+        for (int v = 1; v <= n; v += 1) {
+            for (int u : new int[] { v + 1, v + side }) {
+                if (u <= n && (u != v + 1 || v % side != 0)
+                    && r.nextInt(5) != 0) {
+                    g.add(u, v);
+                    w[u][v] = w[v][u] = Math.hypot(x[u] - x[v], y[u] - y[v])
+                        * (1 + r.nextDouble());
+                }
+            }
+        }
+        for (int i = 0; i < 40; i += 1) {
+            int s = r.nextInt(n) + 1, t = r.nextInt(n) + 1;
+            ShortestPaths all = new TablePaths(g, s, 0, w, 4);
+            all.setPaths();
+            ShortestPaths p = new PlanePaths(g, s, t, w, x, y);
+            p.setPaths();
+            if (all.pathTo(t).get(0) == s) {
+                assertEquals(all.pathTo(t), p.pathTo());
+                assertEquals(all.getWeight(t), p.getWeight(t), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testReleasedSpaceReused() {
+        int n = 300;
+        double[][] w = new double[n + 1][n + 1];
+        Graph big = randomGraph(n, w, 3);
+        for (int s = 1; s <= 5; s += 1) {
+            ShortestPaths p = new TablePaths(big, s, 0, w, 4);
+            p.setPaths();
+            assertEquals(0.0, p.getWeight(s), 0.0);
+            p.release();
+        }
+        Graph g = new DirectedGraph();
+        double[][] w2 = new double[4][4];
+        for (int i = 0; i < 3; i += 1) {
+            g.add();
+        }
+        g.add(2, 3);
+        w2[2][3] = 4;
+        ShortestPaths p = new TablePaths(g, 2, 0, w2, 4);
+        p.setPaths();
+        assertEquals(Double.MAX_VALUE, p.getWeight(1), 0.0);
+        assertEquals(0, p.getPredecessor(1));
+        assertEquals(4.0, p.getWeight(3), 0.0);
+        assertEquals(java.util.Arrays.asList(2, 3), p.pathTo(3));
+        p.release();
+    }
+
+    @Test
+    public void testChurnedGraph() {
+        Graph g = new DirectedGraph();
+        double[][] w = new double[11][11];
+        for (int i = 0; i < 10; i += 1) {
+            g.add();
+        }
+        for (int v = 1; v <= 6; v += 1) {
+            g.remove(v);
+        }
+        assertEquals(4, g.vertexSize());
+        g.add(10, 9);
+        w[10][9] = 2;
+        g.add(9, 7);
+        w[9][7] = 2;
+        g.add(10, 7);
+        w[10][7] = 5;
+        ShortestPaths p = new TablePaths(g, 10, 0, w, 4);
+        p.setPaths();
+        assertEquals(4.0, p.getWeight(7), 0.0);
+        assertEquals(Arrays.asList(10, 9, 7), p.pathTo(7));
+        assertEquals(Double.MAX_VALUE, p.getWeight(8), 0.0);
+        p.release();
+    }
+
+    /** Returns the distances from S in G computed by a plain Dijkstra
+     *  search, with Double.MAX_VALUE for unreachable vertices. */
+    private static double[] reference(LabeledGraph<?, ?> g, int s) {
+        double[] d = new double[g.maxVertex() + 1];
+        Arrays.fill(d, Double.MAX_VALUE);
+        d[s] = 0;
+        PriorityQueue<double[]> q =
+            new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        q.add(new double[] { 0, s });
+        while (!q.isEmpty()) {
+            double[] e = q.poll();
+            int u = (int) e[1];
+            if (e[0] > d[u]) {
+                continue;
+            }
+            for (int v : g.successors(u)) {
+                if (d[u] + g.getWeight(u, v) < d[v]) {
+                    d[v] = d[u] + g.getWeight(u, v);
+                    q.add(new double[] { d[v], v });
+                }
+            }
+        }
+        return d;
+    }
+
+    @Test
+    public void testSparseAndDenseSpaces() {
+        int n = 4 * SearchSpace.DENSE_LIMIT;
+        Random r = new Random(17);
+        LabeledGraph<Integer, Integer> g =
+            new LabeledGraph<>(new DirectedGraph());
+        for (int v = 1; v <= n; v += 1) {
+            g.add(v);
+        }
+        for (int v = 1; v < n; v += 1) {
+            g.add(v, v + 1, 0, 1 + r.nextInt(5));
+            int u = r.nextInt(n) + 1;
+            if (Math.abs(u - v) < 20) {
+                g.add(v, u, 0, r.nextInt(50));
+            }
+        }
+        double[] d = reference(g, 1);
+        ShortestPaths near = new WeightedGraphPaths(g, 1, 10);
+        near.setPaths();
+        assertFalse(near.space().isDense());
+        assertEquals(d[10], near.getWeight(10), 0.0);
+        near.release();
+
+        ShortestPaths all = new WeightedGraphPaths(g, 1);
+        all.setPaths();
+        assertTrue(all.space().isDense());
+        for (int v = 1; v <= n; v += 1) {
+            assertEquals(d[v], all.getWeight(v), 0.0);
+        }
+        all.release();
+    }
+}
@@ -4,7 +4,10 @@ package graph;
 
 /** A partial implementation of ShortestPaths that contains the weights of
  *  the vertices and the predecessor edges.   The client needs to
- *  supply only the two-argument getWeight method.
+ *  supply only the two-argument getWeight method (or, to use the weights
+ *  a graph records, use a WeightedGraphPaths).  Weights and predecessors
+ *  live in the pooled SearchSpace of the search, so call release() once
+ *  they are no longer needed to let the next search reuse it.
  *  @author Netra Sathe
  */
 public abstract class SimpleShortestPaths extends ShortestPaths {
@@ -26,21 +29,21 @@ public abstract class SimpleShortestPaths extends ShortestPaths {
 
     @Override
     public double getWeight(int v) {
-        return distance[v];
+        return space().weight(v);
     }
 
     @Override
     protected void setWeight(int v, double w) {
-        distance[v] = w;
+        space().setWeight(v, w);
     }
 
     @Override
     public int getPredecessor(int v) {
-        return back[v];
+        return space().pred(v);
     }
 
     @Override
     protected void setPredecessor(int v, int u) {
-        back[v] = u;
+        space().setPred(v, u);
     }
 }
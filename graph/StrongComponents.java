@@ -0,0 +1,145 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.Arrays;
+
+/** The strongly connected components of a graph, found by Tarjan's
+ *  algorithm in time linear in the size of the graph.  The depth-first
+ *  search keeps its own stack of (vertex, next successor) pairs in int
+ *  arrays rather than recursing, so graphs of any depth can be handled.
+ *  Components are numbered from 0 in reverse topological order: if there
+ *  is an edge from a vertex of component A to a vertex of component B,
+ *  then A >= B.  (For an undirected graph, the components are simply the
+ *  connected components.)
+ *  @author Netra Sathe
+ */
+public final class StrongComponents {
+
+    /** The strongly connected components of G. */
+    public StrongComponents(Graph G) {
+        graphh = G;
+        int n = G.maxVertex();
+        comp = new int[n + 1];
+        Arrays.fill(comp, -1);
+        int[] index = new int[n + 1];
+        int[] low = new int[n + 1];
+        int[] stack = new int[n + 1];
+        int[] callV = new int[n + 1];
+        int[] callK = new int[n + 1];
+        int counter = 0, sp = 0;
+
+        for (int root = 1; root <= n; root += 1) {
+            if (!G.contains(root) || index[root] != 0) {
+                continue;
+            }
+            counter += 1;
+            index[root] = low[root] = counter;
+            stack[sp] = root;
+            sp += 1;
+            callV[0] = root;
+            callK[0] = 0;
+            int csp = 1;
+            while (csp > 0) {
+                int v = callV[csp - 1], k = callK[csp - 1];
+                if (k < G.outDegree(v)) {
+                    callK[csp - 1] = k + 1;
+                    int w = G.successor(v, k);
+                    if (index[w] == 0) {
+                        counter += 1;
+                        index[w] = low[w] = counter;
+                        stack[sp] = w;
+                        sp += 1;
+                        callV[csp] = w;
+                        callK[csp] = 0;
+                        csp += 1;
+                    } else if (comp[w] == -1) {
+                        low[v] = Math.min(low[v], index[w]);
+                    }
+                    continue;
+                }
+                csp -= 1;
+                if (low[v] == index[v]) {
+                    int w;
+                    do {
+                        sp -= 1;
+                        w = stack[sp];
+                        comp[w] = count;
+                    } while (w != v);
+                    count += 1;
+                }
+                if (csp > 0) {
+                    int u = callV[csp - 1];
+                    low[u] = Math.min(low[u], low[v]);
+                }
+            }
+        }
+
+        start = new int[count + 1];
+        for (int v = 1; v <= n; v += 1) {
+            if (comp[v] >= 0) {
+                start[comp[v] + 1] += 1;
+            }
+        }
+        for (int c = 0; c < count; c += 1) {
+            start[c + 1] += start[c];
+        }
+        members = new int[start[count]];
+        int[] next = Arrays.copyOf(start, count);
+        for (int v = 1; v <= n; v += 1) {
+            if (comp[v] >= 0) {
+                members[next[comp[v]]] = v;
+                next[comp[v]] += 1;
+            }
+        }
+    }
+
+    /** Returns the number of components. */
+    public int count() {
+        return count;
+    }
+
+    /** Returns the component number of vertex V, or -1 if V was not a
+     *  vertex of the graph. */
+    public int component(int v) {
+        return v > 0 && v < comp.length ? comp[v] : -1;
+    }
+
+    /** Returns an array whose element V is component(V), for V from 0
+     *  to the graph's maxVertex(). */
+    public int[] componentIds() {
+        return comp.clone();
+    }
+
+    /** Returns the number of vertices in component C. */
+    public int size(int c) {
+        return start[c + 1] - start[c];
+    }
+
+    /** Returns the vertices of component C, in increasing order. */
+    public int[] members(int c) {
+        return Arrays.copyOfRange(members, start[c], start[c + 1]);
+    }
+
+    /** Returns true iff component C contains a cycle: that is, iff it has
+     *  more than one vertex or its vertex has an edge to itself. */
+    public boolean isCyclic(int c) {
+        if (size(c) > 1) {
+            return true;
+        }
+        int v = members[start[c]];
+        return graphh.contains(v, v);
+    }
+
+    /** The graph. */
+    private final Graph graphh;
+    /** Component number of each vertex, or -1. */
+    private final int[] comp;
+    /** Number of components. */
+    private int count;
+    /** The vertices of component C are members[start[C] ..
+     *  start[C+1]-1]. */
+    private final int[] start;
+    /** Vertices, grouped by component. */
+    private final int[] members;
+}
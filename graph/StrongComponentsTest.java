@@ -0,0 +1,87 @@
+package graph;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for StrongComponents.
+ *  @author Netra Sathe
+ */
+public class StrongComponentsTest {
+
+    /** Returns a directed graph with N vertices and the edges EDGES. */
+    private static Graph graph(int n, int[][] edges) {
+        Graph G = new DirectedGraph();
+        for (int i = 0; i < n; i += 1) {
+            G.add();
+        }
+        for (int[] e : edges) {
+            G.add(e[0], e[1]);
+        }
+        return G;
+    }
+
+    @Test
+    public void testSmallGraph() {
+        Graph G = graph(8, new int[][] {
+            { 1, 2 }, { 2, 3 }, { 3, 1 }, { 3, 4 }, { 4, 5 }, { 5, 4 },
+            { 6, 5 }, { 6, 7 }, { 7, 7 } });
+        G.remove(8);
+        StrongComponents S = new StrongComponents(G);
+        assertEquals(4, S.count());
+        assertEquals(S.component(1), S.component(2));
+        assertEquals(S.component(1), S.component(3));
+        assertEquals(S.component(4), S.component(5));
+        assertNotEquals(S.component(1), S.component(4));
+        assertEquals(-1, S.component(8));
+        assertEquals(-1, S.component(0));
+        assertArrayEquals(new int[] { 1, 2, 3 },
+                          S.members(S.component(1)));
+        assertEquals(2, S.size(S.component(4)));
+        assertTrue(S.isCyclic(S.component(1)));
+        assertTrue(S.isCyclic(S.component(7)));
+        assertFalse(S.isCyclic(S.component(6)));
+        for (int v : G.vertices()) {
+            for (int w : G.successors(v)) {
+                assertTrue(S.component(v) >= S.component(w));
+            }
+        }
+        int[] ids = S.componentIds();
+        assertEquals(G.maxVertex() + 1, ids.length);
+        assertEquals(S.component(6), ids[6]);
+    }
+
+    @Test
+    public void testUndirected() {
+        Graph G = new UndirectedGraph();
+        for (int i = 0; i < 5; i += 1) {
+            G.add();
+        }
+        G.add(1, 2);
+        G.add(4, 5);
+        StrongComponents S = new StrongComponents(G);
+        assertEquals(3, S.count());
+        assertEquals(S.component(4), S.component(5));
+        assertFalse(S.isCyclic(S.component(3)));
+    }
+
+    @Test
+    public void testDeepGraph() {
+        int n = 1_000_000;
+        Graph G = new DirectedGraph();
+        for (int i = 0; i < n; i += 1) {
+            G.add();
+        }
+        for (int v = 1; v < n; v += 1) {
+            G.add(v, v + 1);
+        }
+        StrongComponents chain = new StrongComponents(G);
+        assertEquals(n, chain.count());
+        assertFalse(chain.isCyclic(chain.component(1)));
+        G.add(n, 1);
+        StrongComponents ring = new StrongComponents(G);
+        assertEquals(1, ring.count());
+        assertEquals(n, ring.size(0));
+        assertTrue(ring.isCyclic(0));
+    }
+
+}
@@ -2,6 +2,7 @@ package graph;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Queue;
 
 /* See restrictions in Graph.java. */
@@ -22,27 +23,37 @@ import java.util.Queue;
  *  the addition of neighbor vertices to the fringe when a vertex is visited.
  *
  *  Traversals may be interrupted or restarted, remembering the previously
- *  marked vertices.
+ *  marked vertices.  Marks are kept as epoch stamps in arrays indexed by
+ *  vertex number, so marking, testing, and clear() all take constant
+ *  time.
  *  @author Netra Sathe
  */
 public abstract class Traversal {
 
-    /** Array for nodes. */
-    private ArrayList<Integer> arrayy;
-    /** Indices track. */
-    private ArrayList<Integer> ind;
+    /** marks[V] == epoch iff V has been marked since the last clear(). */
+    private int[] marks;
+    /** posted[V] == epoch iff V has been post-visited since the last
+     *  clear(). */
+    private int[] posted;
+    /** The current marking epoch, advanced by clear(). */
+    private int epoch;
 
     /** A Traversal of G, using FRINGE as the fringe. */
     protected Traversal(Graph G, Queue<Integer> fringe) {
         graphh = G;
         friinge = fringe;
-        arrayy = new ArrayList<>();
-        ind = new ArrayList<>();
+        marks = posted = new int[0];
+        epoch = 1;
     }
 
-    /** All vertices in the graph. */
+    /** Unmark all vertices in the graph. */
     public void clear() {
-        arrayy.clear();
+        epoch += 1;
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(marks, 0);
+            Arrays.fill(posted, 0);
+            epoch = 1;
+        }
     }
 
     /** Initialize the fringe to V0 and perform a traversal. */
@@ -63,29 +74,48 @@ public abstract class Traversal {
                 }
 
                 if (!reverseSuccessors(item)) {
-                    for (int i : graphh.successors(item)) {
-                        if (processSuccessor(item, i)) {
-                            friinge.add(i);
-                        }
-                    }
+                    processSuccessors(item);
+                } else if (friinge instanceof Deque) {
+                    pushSuccessors(item, (Deque<Integer>) friinge);
                 } else {
                     ArrayList<Integer> reverser = new ArrayList<>();
                     while (!friinge.isEmpty()) {
                         reverser.add(friinge.poll());
                     }
-                    for (int i : graphh.successors(item)) {
-                        if (processSuccessor(item, i)) {
-                            friinge.add(i);
-                        }
-                    }
+                    processSuccessors(item);
                     if (shouldPostVisit(item)) {
                         friinge.add(item);
                     }
                     friinge.addAll(reverser);
                 }
-            } else if (!ind.contains(item)) {
+            } else if (item >= posted.length || posted[item] != epoch) {
                 postVisit(item);
-                ind.add(item);
+                if (item >= posted.length) {
+                    posted = Arrays.copyOf(posted, Math.max(item + 1,
+                            graphh.maxVertex() + 1));
+                }
+                posted[item] = epoch;
+            }
+        }
+    }
+
+    /** Put the successors of ITEM accepted by processSuccessors, followed
+     *  by ITEM itself if it is to be post-visited, at the front of FRINGE,
+     *  in time proportional to ITEM's degree. */
+    private void pushSuccessors(int item, Deque<Integer> fringe) {
+        if (shouldPostVisit(item)) {
+            fringe.addFirst(item);
+        }
+        int before = fringe.size();
+        processSuccessors(item);
+        int n = fringe.size() - before;
+        if (n > 0) {
+            Integer[] added = new Integer[n];
+            for (int i = n - 1; i >= 0; i -= 1) {
+                added[i] = fringe.pollLast();
+            }
+            for (int i = n - 1; i >= 0; i -= 1) {
+                fringe.addFirst(added[i]);
             }
         }
     }
@@ -97,15 +127,17 @@ public abstract class Traversal {
 
     /** Returns true if V has been marked. */
     protected boolean marked(int v) {
-        if (arrayy.contains(v)) {
-            return true;
-        }
-        return false;
+        return v < marks.length && marks[v] == epoch;
     }
 
     /** Mark vertex V. */
     protected void mark(int v) {
-        arrayy.add(v);
+        if (v >= marks.length) {
+            int n = Math.max(v + 1, graphh.maxVertex() + 1);
+            marks = Arrays.copyOf(marks, n);
+            posted = Arrays.copyOf(posted, n);
+        }
+        marks[v] = epoch;
     }
 
     /** Perform a visit on vertex V.
@@ -134,9 +166,11 @@ public abstract class Traversal {
 
     /** Process the successors of vertex U.  Assumes U has been visited.  This
      *  default implementation simply processes each successor using
-     *  processSuccessor. */
+     *  processSuccessor, walking them by index so that no iterator or
+     *  boxed neighbor list is created. */
     protected void processSuccessors(int u) {
-        for (int v : graphh.successors(u)) {
+        for (int k = 0, n = graphh.outDegree(u); k < n; k += 1) {
+            int v = graphh.successor(u, k);
             if (processSuccessor(u, v)) {
                 friinge.add(v);
             }
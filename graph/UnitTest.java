@@ -15,7 +15,13 @@ public class UnitTest {
 
     /** Run all JUnit tests in the graph package. */
     public static void main(String[] ignored) {
-        System.exit(textui.runClasses(graph.GraphTest.class));
+        System.exit(textui.runClasses(graph.GraphTest.class,
+                                      graph.FrozenGraphTest.class,
+                                      graph.StrongComponentsTest.class,
+                                      graph.ConcurrentGraphTest.class,
+                                      graph.VersionedGraphTest.class,
+                                      graph.ScalingTest.class,
+                                      graph.ShortestPathsTest.class));
     }
 
 }
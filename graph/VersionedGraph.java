@@ -0,0 +1,805 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/** A directed or undirected graph with weighted edges, kept as a series
+ *  of versions so that readers never block on, or see part of, an
+ *  update.  One writer thread changes the graph through the usual Graph
+ *  methods (plus add(u, v, weight) and setWeight) and then calls publish()
+ *  to make its changes visible all at once as a new version.  Any thread
+ *  may call snapshot() to pin the latest published version, run searches
+ *  (such as a WeightedGraphPaths) on the Snapshot, which is itself a
+ *  read-only Graph, and close it when done.  A snapshot never changes,
+ *  whatever the writer does meanwhile.
+ *
+ *  Versions share structure.  Vertices are grouped into chunks of CHUNK
+ *  by number; a version is a directory of chunks, and each chunk refers
+ *  to the adjacency lists of its vertices.  The first time the writer
+ *  changes a vertex after a publish, it copies the directory, that
+ *  vertex's chunk, and its adjacency lists, and changes only the copies;
+ *  everything it does not touch is shared with the published versions.
+ *  A version is retained while it is the latest or some snapshot pins it,
+ *  and becomes garbage when its last snapshot is closed.
+ *
+ *  The writer's own view (the methods of VersionedGraph itself) includes
+ *  its unpublished changes and must only be used by the writer.  Edge ids
+ *  are allocated as in DirectedGraph and may be reused by later versions,
+ *  so they identify edges only within one version.  Looking up an edge in
+ *  a snapshot takes time proportional to the out-degree of its source.
+ *  @author Netra Sathe
+ */
+public final class VersionedGraph extends Graph {
+
+    /** Log2 of CHUNK. */
+    private static final int CHUNK_BITS = 6;
+
+    /** Number of vertex numbers per chunk. */
+    private static final int CHUNK = 1 << CHUNK_BITS;
+
+    /** An empty graph, which is directed iff DIRECTED.  Its first
+     *  published version, number 0, is empty. */
+    public VersionedGraph(boolean directed) {
+        this.directed = directed;
+        current = new State(0, new Chunk[1]);
+        live.add(current);
+        working = current.next();
+    }
+
+    /** Returns the number of the latest published version.  Versions are
+     *  numbered consecutively from 0. */
+    public int version() {
+        return current.number;
+    }
+
+    /** Make all changes since the last publish() visible as a new
+     *  version, which later snapshots will see.  Only the writer may call
+     *  this. */
+    public void publish() {
+        State next = working.next();
+        synchronized (live) {
+            State old = current;
+            current = working;
+            live.add(working);
+            if (old.pins == 0) {
+                live.remove(old);
+            }
+        }
+        working = next;
+    }
+
+    /** Returns a snapshot of the latest published version, which it pins
+     *  until closed.  Any thread may call this. */
+    public Snapshot snapshot() {
+        synchronized (live) {
+            current.pins += 1;
+            return new Snapshot(this, current);
+        }
+    }
+
+    /** Returns the number of versions still retained: the latest, and
+     *  any older ones pinned by unclosed snapshots. */
+    public int retainedVersions() {
+        synchronized (live) {
+            return live.size();
+        }
+    }
+
+    /** Adds an edge from U to V with weight WEIGHT, or sets the weight of
+     *  that edge if it is already present.  Returns its id. */
+    public int add(int u, int v, double weight) {
+        int id = add(u, v);
+        setWeight(u, v, weight);
+        return id;
+    }
+
+    /** Returns the weight of edge (U, V) in the writer's view, or positive
+     *  infinity if there is no such edge. */
+    public double getWeight(int u, int v) {
+        return working.weight(u, v);
+    }
+
+    /** Set the weight of edge (U, V), which must be present, to W. */
+    public void setWeight(int u, int v, double w) {
+        if (!contains(u, v)) {
+            throw new IllegalArgumentException("no such edge");
+        }
+        Adj a = writable(u);
+        a.weights[a.indexOut(v)] = w;
+        if (!directed && u != v) {
+            Adj b = writable(v);
+            b.weights[b.indexOut(u)] = w;
+        }
+    }
+
+    @Override
+    public int vertexSize() {
+        return working.vcount;
+    }
+
+    @Override
+    public int maxVertex() {
+        return working.maxv;
+    }
+
+    @Override
+    public int edgeSize() {
+        return working.ecount;
+    }
+
+    @Override
+    public boolean isDirected() {
+        return directed;
+    }
+
+    @Override
+    public int outDegree(int v) {
+        return working.outDegree(v);
+    }
+
+    @Override
+    public int inDegree(int v) {
+        return working.inDegree(v);
+    }
+
+    @Override
+    public boolean contains(int u) {
+        return working.adj(u) != null;
+    }
+
+    @Override
+    public boolean contains(int u, int v) {
+        return edgeId(u, v) != 0;
+    }
+
+    @Override
+    public int add() {
+        State w = working;
+        int v;
+        if (!freed.isEmpty() && freed.peek() < w.maxv) {
+            v = freed.poll();
+        } else {
+            freed.clear();
+            v = w.maxv + 1;
+            w.maxv = v;
+        }
+        chunk(v).adj[v & (CHUNK - 1)] = new Adj(w.number);
+        w.vcount += 1;
+        return v;
+    }
+
+    @Override
+    public int add(int u, int v) {
+        checkMyVertex(u);
+        checkMyVertex(v);
+        int id = index.get(first(u, v), second(u, v));
+        if (id >= 0) {
+            return id;
+        }
+        id = freeIds.isEmpty() ? ++topId : freeIds.pop();
+        writable(u).addOut(v, id, 0.0);
+        if (directed) {
+            writable(v).addIn(u);
+        } else if (u != v) {
+            writable(v).addOut(u, id, 0.0);
+        }
+        index.put(first(u, v), second(u, v), id);
+        working.ecount += 1;
+        return id;
+    }
+
+    @Override
+    public void remove(int v) {
+        checkMyVertex(v);
+        for (int n = outDegree(v); n > 0; n -= 1) {
+            remove(v, working.adj(v).out[n - 1]);
+        }
+        for (int n = directed ? inDegree(v) : 0; n > 0; n -= 1) {
+            remove(working.adj(v).in[n - 1], v);
+        }
+        State w = working;
+        chunk(v).adj[v & (CHUNK - 1)] = null;
+        w.vcount -= 1;
+        if (v == w.maxv) {
+            while (w.maxv > 0 && w.adj(w.maxv) == null) {
+                w.maxv -= 1;
+            }
+        } else {
+            freed.add(v);
+        }
+    }
+
+    @Override
+    public void remove(int u, int v) {
+        checkMyVertex(u);
+        checkMyVertex(v);
+        int id = index.remove(first(u, v), second(u, v));
+        if (id < 0) {
+            return;
+        }
+        writable(u).removeOut(v);
+        if (directed) {
+            writable(v).removeIn(u);
+        } else if (u != v) {
+            writable(v).removeOut(u);
+        }
+        freeIds.add(id);
+        working.ecount -= 1;
+    }
+
+    @Override
+    public Iteration<Integer> vertices() {
+        return working.vertices();
+    }
+
+    @Override
+    public int successor(int v, int k) {
+        return working.successor(v, k);
+    }
+
+    @Override
+    int successorEdge(int v, int k) {
+        return working.successorEdge(v, k);
+    }
+
+    @Override
+    public int predecessor(int v, int k) {
+        return working.predecessor(v, k);
+    }
+
+    @Override
+    public Iteration<Integer> successors(int v) {
+        return working.successors(v);
+    }
+
+    @Override
+    public Iteration<Integer> predecessors(int v) {
+        return working.predecessors(v);
+    }
+
+    @Override
+    public Iteration<int[]> edges() {
+        return working.edges();
+    }
+
+    @Override
+    protected int edgeId(int u, int v) {
+        if (!contains(u) || !contains(v)) {
+            return 0;
+        }
+        return Math.max(index.get(first(u, v), second(u, v)), 0);
+    }
+
+    /** Returns the chunk holding vertex V in the working version, first
+     *  copying the directory and the chunk if they are shared with a
+     *  published version. */
+    private Chunk chunk(int v) {
+        State w = working;
+        int c = v >>> CHUNK_BITS;
+        if (!w.ownsDir || c >= w.dir.length) {
+            w.dir = Arrays.copyOf(w.dir, Math.max(w.dir.length,
+                                                  Math.max(1, 2 * c)));
+            w.ownsDir = true;
+        }
+        Chunk ch = w.dir[c];
+        if (ch == null) {
+            ch = new Chunk(w.number);
+            w.dir[c] = ch;
+        } else if (ch.owner != w.number) {
+            ch = ch.copy(w.number);
+            w.dir[c] = ch;
+        }
+        return ch;
+    }
+
+    /** Returns the adjacency lists of vertex V in the working version,
+     *  first copying them if they are shared with a published version. */
+    private Adj writable(int v) {
+        Chunk ch = chunk(v);
+        Adj a = ch.adj[v & (CHUNK - 1)];
+        if (a.owner != working.number) {
+            a = a.copy(working.number);
+            ch.adj[v & (CHUNK - 1)] = a;
+        }
+        return a;
+    }
+
+    /** Release a pin on version S, made by snapshot(). */
+    private void unpin(State s) {
+        synchronized (live) {
+            s.pins -= 1;
+            if (s.pins == 0 && s != current) {
+                live.remove(s);
+            }
+        }
+    }
+
+    /** Returns the end of edge (U, V) under which it is indexed: U,
+     *  unless I am undirected and V is smaller. */
+    private int first(int u, int v) {
+        return directed ? u : Math.min(u, v);
+    }
+
+    /** Returns the other end of edge (U, V) from first(U, V). */
+    private int second(int u, int v) {
+        return directed ? v : Math.max(u, v);
+    }
+
+    /** A read-only view of one published version of a VersionedGraph,
+     *  which stays pinned until close() is called.  A snapshot may be
+     *  shared by any number of threads.  Once closed, it throws
+     *  IllegalStateException on any use. */
+    public static final class Snapshot extends Graph
+        implements EdgeWeights, AutoCloseable {
+
+        /** A snapshot of version S of OWNER. */
+        private Snapshot(VersionedGraph owner, State s) {
+            _owner = owner;
+            _state = s;
+            _directed = owner.directed;
+        }
+
+        /** Returns the number of my version. */
+        public int version() {
+            return state().number;
+        }
+
+        /** Returns the weight of edge (U, V), or positive infinity if
+         *  there is no such edge. */
+        @Override
+        public double getWeight(int u, int v) {
+            return state().weight(u, v);
+        }
+
+        /** Unpin my version.  Closing a closed snapshot does nothing. */
+        @Override
+        public void close() {
+            State s;
+            synchronized (this) {
+                s = _state;
+                _state = null;
+            }
+            if (s != null) {
+                _owner.unpin(s);
+            }
+        }
+
+        @Override
+        public int vertexSize() {
+            return state().vcount;
+        }
+
+        @Override
+        public int maxVertex() {
+            return state().maxv;
+        }
+
+        @Override
+        public int edgeSize() {
+            return state().ecount;
+        }
+
+        @Override
+        public boolean isDirected() {
+            return _directed;
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return state().outDegree(v);
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return state().inDegree(v);
+        }
+
+        @Override
+        public boolean contains(int u) {
+            return state().adj(u) != null;
+        }
+
+        @Override
+        public boolean contains(int u, int v) {
+            return edgeId(u, v) != 0;
+        }
+
+        @Override
+        public int add() {
+            throw readOnly();
+        }
+
+        @Override
+        public int add(int u, int v) {
+            throw readOnly();
+        }
+
+        @Override
+        public void remove(int v) {
+            throw readOnly();
+        }
+
+        @Override
+        public void remove(int u, int v) {
+            throw readOnly();
+        }
+
+        @Override
+        public Iteration<Integer> vertices() {
+            return state().vertices();
+        }
+
+        @Override
+        public int successor(int v, int k) {
+            return state().successor(v, k);
+        }
+
+        @Override
+        int successorEdge(int v, int k) {
+            return state().successorEdge(v, k);
+        }
+
+        /** Returns the weight of the edge from V to successor(V, K), or 0
+         *  if there is no such edge. */
+        @Override
+        public double successorWeight(int v, int k) {
+            Adj a = state().adj(v);
+            return a == null || k < 0 || k >= a.nout ? 0.0 : a.weights[k];
+        }
+
+        @Override
+        public int predecessor(int v, int k) {
+            return state().predecessor(v, k);
+        }
+
+        @Override
+        public Iteration<Integer> successors(int v) {
+            return state().successors(v);
+        }
+
+        @Override
+        public Iteration<Integer> predecessors(int v) {
+            return state().predecessors(v);
+        }
+
+        @Override
+        public Iteration<int[]> edges() {
+            return state().edges();
+        }
+
+        @Override
+        protected int edgeId(int u, int v) {
+            return state().edgeId(u, v);
+        }
+
+        /** Returns my version, which must not have been closed. */
+        private State state() {
+            State s = _state;
+            if (s == null) {
+                throw new IllegalStateException("snapshot is closed");
+            }
+            return s;
+        }
+
+        /** Returns the exception thrown by all modifiers. */
+        private static UnsupportedOperationException readOnly() {
+            return new UnsupportedOperationException("snapshot is "
+                                                     + "read-only");
+        }
+
+        /** The graph I came from. */
+        private final VersionedGraph _owner;
+        /** My version, or null once I am closed. */
+        private volatile State _state;
+        /** True iff my graph is directed. */
+        private final boolean _directed;
+    }
+
+    /** One version of the graph.  Once published, a State and everything
+     *  it refers to are never changed, apart from its pin count. */
+    private final class State {
+        /** An empty version numbered NUMBER, with directory DIR, which it
+         *  owns. */
+        State(int number, Chunk[] dir) {
+            this.number = number;
+            this.dir = dir;
+            ownsDir = true;
+        }
+
+        /** Returns a new working version following me, which shares my
+         *  directory until it is first changed. */
+        State next() {
+            State s = new State(number + 1, dir);
+            s.ownsDir = false;
+            s.maxv = maxv;
+            s.vcount = vcount;
+            s.ecount = ecount;
+            return s;
+        }
+
+        /** Returns the adjacency lists of V, or null if V is not a
+         *  vertex. */
+        Adj adj(int v) {
+            if (v <= 0 || v > maxv) {
+                return null;
+            }
+            Chunk ch = dir[v >>> CHUNK_BITS];
+            return ch == null ? null : ch.adj[v & (CHUNK - 1)];
+        }
+
+        /** Returns the out-degree of V (0 if V is not a vertex). */
+        int outDegree(int v) {
+            Adj a = adj(v);
+            return a == null ? 0 : a.nout;
+        }
+
+        /** Returns the in-degree of V (0 if V is not a vertex). */
+        int inDegree(int v) {
+            Adj a = adj(v);
+            return a == null ? 0 : directed ? a.nin : a.nout;
+        }
+
+        /** Returns successor K of V, or 0 if there is none. */
+        int successor(int v, int k) {
+            Adj a = adj(v);
+            return a == null || k < 0 || k >= a.nout ? 0 : a.out[k];
+        }
+
+        /** Returns the id of the edge to successor K of V, or 0. */
+        int successorEdge(int v, int k) {
+            Adj a = adj(v);
+            return a == null || k < 0 || k >= a.nout ? 0 : a.outIds[k];
+        }
+
+        /** Returns predecessor K of V, or 0 if there is none. */
+        int predecessor(int v, int k) {
+            if (!directed) {
+                return successor(v, k);
+            }
+            Adj a = adj(v);
+            return a == null || k < 0 || k >= a.nin ? 0 : a.in[k];
+        }
+
+        /** Returns the id of edge (U, V), or 0 if there is none. */
+        int edgeId(int u, int v) {
+            Adj a = adj(u);
+            int k = a == null || adj(v) == null ? -1 : a.indexOut(v);
+            return k < 0 ? 0 : a.outIds[k];
+        }
+
+        /** Returns the weight of edge (U, V), or positive infinity if
+         *  there is none. */
+        double weight(int u, int v) {
+            Adj a = adj(u);
+            int k = a == null ? -1 : a.indexOut(v);
+            return k < 0 ? Double.POSITIVE_INFINITY : a.weights[k];
+        }
+
+        /** Returns an iteration over my vertices. */
+        Iteration<Integer> vertices() {
+            ArrayList<Integer> out = new ArrayList<>(vcount);
+            for (int v = 1; v <= maxv; v += 1) {
+                if (adj(v) != null) {
+                    out.add(v);
+                }
+            }
+            return Iteration.iteration(out);
+        }
+
+        /** Returns an iteration over the successors of V. */
+        Iteration<Integer> successors(int v) {
+            Adj a = adj(v);
+            return a == null ? Iteration.slice(Adj.NONE, 0, 0)
+                : Iteration.slice(a.out, 0, a.nout);
+        }
+
+        /** Returns an iteration over the predecessors of V. */
+        Iteration<Integer> predecessors(int v) {
+            if (!directed) {
+                return successors(v);
+            }
+            Adj a = adj(v);
+            return a == null ? Iteration.slice(Adj.NONE, 0, 0)
+                : Iteration.slice(a.in, 0, a.nin);
+        }
+
+        /** Returns an iteration over my edges, each delivered once. */
+        Iteration<int[]> edges() {
+            return new Iteration<int[]>() {
+                @Override
+                public boolean hasNext() {
+                    while (true) {
+                        for (; a != null && k < a.nout; k += 1) {
+                            if (directed || a.out[k] >= u) {
+                                return true;
+                            }
+                        }
+                        if (u >= maxv) {
+                            return false;
+                        }
+                        u += 1;
+                        a = adj(u);
+                        k = 0;
+                    }
+                }
+
+                @Override
+                public int[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    edge[0] = u;
+                    edge[1] = a.out[k];
+                    k += 1;
+                    return edge;
+                }
+
+                /** The vertex whose edges are being delivered. */
+                private int u;
+                /** The adjacency lists of u, or null. */
+                private Adj a;
+                /** Index in a.out of the next edge to examine. */
+                private int k;
+                /** The (reused) result of next(). */
+                private final int[] edge = new int[2];
+            };
+        }
+
+        /** My number. */
+        final int number;
+        /** My chunks: the adjacency lists of vertex V are
+         *  dir[V / CHUNK].adj[V % CHUNK]. */
+        Chunk[] dir;
+        /** True iff dir is mine alone, and so may be changed while I am
+         *  the working version. */
+        boolean ownsDir;
+        /** My maximum vertex number, or 0 if I have no vertices. */
+        int maxv;
+        /** The numbers of my vertices and edges. */
+        int vcount, ecount;
+        /** The number of open snapshots of me.  Guarded by live. */
+        int pins;
+    }
+
+    /** The adjacency lists of the vertices of one chunk. */
+    private static final class Chunk {
+        /** An empty chunk that version OWNER may change. */
+        Chunk(int owner) {
+            this.owner = owner;
+        }
+
+        /** Returns a copy of me that version OWNER may change. */
+        Chunk copy(int owner) {
+            Chunk result = new Chunk(owner);
+            System.arraycopy(adj, 0, result.adj, 0, CHUNK);
+            return result;
+        }
+
+        /** The number of the only version that may change me. */
+        final int owner;
+        /** The adjacency lists of my vertices, or null for numbers that
+         *  are not vertices. */
+        final Adj[] adj = new Adj[CHUNK];
+    }
+
+    /** The adjacency lists of one vertex: its successors (all its
+     *  neighbors, if undirected), with the ids and weights of the edges to
+     *  them, and, if directed, its predecessors. */
+    private static final class Adj {
+        /** An empty array. */
+        static final int[] NONE = new int[0];
+
+        /** Empty lists that version OWNER may change. */
+        Adj(int owner) {
+            this.owner = owner;
+            out = outIds = in = NONE;
+            weights = new double[0];
+        }
+
+        /** Returns a copy of me that version OWNER may change. */
+        Adj copy(int owner) {
+            Adj result = new Adj(owner);
+            result.out = Arrays.copyOf(out, nout);
+            result.outIds = Arrays.copyOf(outIds, nout);
+            result.weights = Arrays.copyOf(weights, nout);
+            result.nout = nout;
+            result.in = Arrays.copyOf(in, nin);
+            result.nin = nin;
+            return result;
+        }
+
+        /** Returns the index of V in out, or -1. */
+        int indexOut(int v) {
+            for (int k = 0; k < nout; k += 1) {
+                if (out[k] == v) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        /** Append successor V, reached by edge ID of weight W. */
+        void addOut(int v, int id, double w) {
+            if (nout == out.length) {
+                int n = Math.max(4, 2 * nout);
+                out = Arrays.copyOf(out, n);
+                outIds = Arrays.copyOf(outIds, n);
+                weights = Arrays.copyOf(weights, n);
+            }
+            out[nout] = v;
+            outIds[nout] = id;
+            weights[nout] = w;
+            nout += 1;
+        }
+
+        /** Remove successor V, which must be present, keeping the order of
+         *  the rest. */
+        void removeOut(int v) {
+            int k = indexOut(v);
+            nout -= 1;
+            System.arraycopy(out, k + 1, out, k, nout - k);
+            System.arraycopy(outIds, k + 1, outIds, k, nout - k);
+            System.arraycopy(weights, k + 1, weights, k, nout - k);
+        }
+
+        /** Append predecessor U. */
+        void addIn(int u) {
+            if (nin == in.length) {
+                in = Arrays.copyOf(in, Math.max(4, 2 * nin));
+            }
+            in[nin] = u;
+            nin += 1;
+        }
+
+        /** Remove predecessor U, which must be present, keeping the order
+         *  of the rest. */
+        void removeIn(int u) {
+            int k = 0;
+            while (in[k] != u) {
+                k += 1;
+            }
+            nin -= 1;
+            System.arraycopy(in, k + 1, in, k, nin - k);
+        }
+
+        /** The number of the only version that may change me. */
+        final int owner;
+        /** Successors, in out[0 .. nout-1]. */
+        int[] out;
+        /** Ids of the edges to out, in order. */
+        int[] outIds;
+        /** Weights of the edges to out, in order. */
+        double[] weights;
+        /** Number of successors. */
+        int nout;
+        /** Predecessors, in in[0 .. nin-1] (directed graphs only). */
+        int[] in;
+        /** Number of predecessors. */
+        int nin;
+    }
+
+    /** True iff I am directed. */
+    private final boolean directed;
+    /** The latest published version. */
+    private volatile State current;
+    /** The version being built by the writer. */
+    private State working;
+    /** The retained versions: current, and those with pins.  Its monitor
+     *  guards it, current's replacement, and all pin counts. */
+    private final ArrayList<State> live = new ArrayList<>();
+    /** Maps each edge of the working version to its id.  Undirected
+     *  edges are entered with their smaller end first. */
+    private final EdgeTable index = new EdgeTable();
+    /** Free list of vertex numbers released by remove(int), as in
+     *  GraphObj. */
+    private final PriorityQueue<Integer> freed = new PriorityQueue<>();
+    /** Edge ids released by remove(int, int), reused most recent
+     *  first. */
+    private final IntList freeIds = new IntList();
+    /** The largest edge id handed out so far. */
+    private int topId;
+}
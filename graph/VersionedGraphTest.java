@@ -0,0 +1,296 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/** Unit tests for VersionedGraph and its snapshots.
+ *  @author Netra Sathe
+ */
+public class VersionedGraphTest {
+
+    /** Returns the successors of V in G, in order. */
+    private static List<Integer> successors(Graph G, int v) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int w : G.successors(v)) {
+            result.add(w);
+        }
+        return result;
+    }
+
+    /** Returns the predecessors of V in G, in order. */
+    private static List<Integer> predecessors(Graph G, int v) {
+        ArrayList<Integer> result = new ArrayList<>();
+        for (int w : G.predecessors(v)) {
+            result.add(w);
+        }
+        return result;
+    }
+
+    /** Returns the weights of the edges of G, keyed by "U V". */
+    private static HashMap<String, Double> weights(VersionedGraph G) {
+        HashMap<String, Double> result = new HashMap<>();
+        for (int[] e : G.edges()) {
+            result.put(e[0] + " " + e[1], G.getWeight(e[0], e[1]));
+        }
+        return result;
+    }
+
+    /** Assert that S has the structure of EXPECTED and the edge weights
+     *  WEIGHTS. */
+    private static void assertSame(FrozenGraph expected,
+                                   HashMap<String, Double> weights,
+                                   VersionedGraph.Snapshot S) {
+        assertEquals(expected.vertexSize(), S.vertexSize());
+        assertEquals(expected.maxVertex(), S.maxVertex());
+        assertEquals(expected.edgeSize(), S.edgeSize());
+        for (int v = 0; v <= expected.maxVertex() + 1; v += 1) {
+            assertEquals(expected.contains(v), S.contains(v));
+            assertEquals(successors(expected, v), successors(S, v));
+            assertEquals(predecessors(expected, v), predecessors(S, v));
+            for (int k = 0; k < expected.outDegree(v); k += 1) {
+                int w = expected.successor(v, k);
+                assertEquals(expected.successorEdge(v, k),
+                             S.successorEdge(v, k));
+                assertEquals(expected.edgeId(v, w), S.edgeId(v, w));
+            }
+        }
+        int n = 0;
+        for (int[] e : S.edges()) {
+            n += 1;
+            assertEquals(weights.get(e[0] + " " + e[1]),
+                         S.getWeight(e[0], e[1]), 0.0);
+        }
+        assertEquals(weights.size(), n);
+    }
+
+    /** Make random changes to a VersionedGraph, publishing and taking a
+     *  snapshot every so often, and check at the end that every snapshot
+     *  still shows the graph as it was when published. */
+    private static void checkVersions(boolean directed) {
+        VersionedGraph G = new VersionedGraph(directed);
+        Graph plain = directed ? new DirectedGraph() : new UndirectedGraph();
+        ArrayList<VersionedGraph.Snapshot> snaps = new ArrayList<>();
+        ArrayList<FrozenGraph> frozen = new ArrayList<>();
+        ArrayList<HashMap<String, Double>> weights = new ArrayList<>();
+        Random r = new Random(directed ? 3 : 4);
+        for (int i = 0; i < 6000; i += 1) {
+            int n = G.maxVertex();
+            int op = r.nextInt(12);
+            if (n < 2 || op == 0) {
+                assertEquals(plain.add(), G.add());
+            } else if (op == 1) {
+                int v = 1 + r.nextInt(n);
+                if (G.contains(v)) {
+                    G.remove(v);
+                    plain.remove(v);
+                }
+            } else {
+                int u = 1 + r.nextInt(n), v = 1 + r.nextInt(n);
+                if (!G.contains(u) || !G.contains(v)) {
+                    continue;
+                }
+                if (op < 8) {
+                    G.add(u, v, r.nextInt(100));
+                    plain.add(u, v);
+                } else {
+                    G.remove(u, v);
+                    plain.remove(u, v);
+                }
+            }
+            assertEquals(plain.edgeSize(), G.edgeSize());
+            if (i % 200 == 199) {
+                G.publish();
+                snaps.add(G.snapshot());
+                frozen.add(FrozenGraph.freeze(G));
+                weights.add(weights(G));
+            }
+        }
+        for (int v : plain.vertices()) {
+            assertEquals(successors(plain, v), successors(G, v));
+            assertEquals(predecessors(plain, v), predecessors(G, v));
+        }
+        for (int k = 0; k < snaps.size(); k += 1) {
+            assertEquals(k + 1, snaps.get(k).version());
+            assertSame(frozen.get(k), weights.get(k), snaps.get(k));
+        }
+        assertEquals(snaps.size(), G.retainedVersions());
+        for (VersionedGraph.Snapshot S : snaps) {
+            S.close();
+        }
+        assertEquals(1, G.retainedVersions());
+    }
+
+    @Test
+    public void testVersions() {
+        checkVersions(true);
+        checkVersions(false);
+    }
+
+    @Test
+    public void testUnpublishedChangesAreInvisible() {
+        VersionedGraph G = new VersionedGraph(true);
+        G.add();
+        G.add();
+        G.add(1, 2, 5.0);
+        try (VersionedGraph.Snapshot S = G.snapshot()) {
+            assertEquals(0, S.version());
+            assertEquals(0, S.vertexSize());
+        }
+        G.publish();
+        try (VersionedGraph.Snapshot S = G.snapshot()) {
+            G.setWeight(1, 2, 7.0);
+            G.add(2, 1, 1.0);
+            G.remove(1);
+            assertEquals(1, S.version());
+            assertEquals(5.0, S.getWeight(1, 2), 0.0);
+            assertFalse(S.contains(2, 1));
+            assertEquals(Double.POSITIVE_INFINITY, S.getWeight(2, 1), 0.0);
+            G.publish();
+            assertEquals(2, S.vertexSize());
+            try (VersionedGraph.Snapshot T = G.snapshot()) {
+                assertEquals(2, T.version());
+                assertFalse(T.contains(1));
+                assertEquals(0, T.edgeSize());
+            }
+        }
+    }
+
+    @Test
+    public void testSnapshotErrors() {
+        VersionedGraph G = new VersionedGraph(false);
+        G.add();
+        G.publish();
+        VersionedGraph.Snapshot S = G.snapshot();
+        try {
+            S.add();
+            fail("added a vertex to a snapshot");
+        } catch (UnsupportedOperationException excp) {
+            assertEquals(1, S.vertexSize());
+        }
+        S.close();
+        S.close();
+        try {
+            S.contains(1);
+            fail("used a closed snapshot");
+        } catch (IllegalStateException excp) {
+            assertEquals(1, G.retainedVersions());
+        }
+        try {
+            G.setWeight(1, 1, 2.0);
+            fail("weighted a missing edge");
+        } catch (IllegalArgumentException excp) {
+            assertEquals(0, G.edgeSize());
+        }
+    }
+
+    @Test
+    public void testOldVersionsAreReclaimed() {
+        VersionedGraph G = new VersionedGraph(true);
+        for (int i = 0; i < 1000; i += 1) {
+            G.add();
+        }
+        G.publish();
+        VersionedGraph.Snapshot S = G.snapshot();
+        for (int i = 1; i < 1000; i += 1) {
+            G.add(i, i + 1, 1.0);
+        }
+        G.publish();
+        assertEquals(2, G.retainedVersions());
+        VersionedGraph.Snapshot T = G.snapshot();
+        G.publish();
+        assertEquals(3, G.retainedVersions());
+        S.close();
+        assertEquals(2, G.retainedVersions());
+        T.close();
+        assertEquals(1, G.retainedVersions());
+    }
+
+    /** A search for shortest paths on a snapshot, using its weights. */
+    private static class Route extends WeightedGraphPaths {
+        /** A shortest path in S from SOURCE to DEST. */
+        Route(VersionedGraph.Snapshot S, int source, int dest) {
+            super(S, source, dest);
+        }
+    }
+
+    /** Set the weight of every edge of G to W. */
+    private static void reweigh(VersionedGraph G, double w) {
+        for (int v = 1; v <= G.maxVertex(); v += 1) {
+            for (int k = 0; k < G.outDegree(v); k += 1) {
+                G.setWeight(v, G.successor(v, k), w);
+            }
+        }
+    }
+
+    @Test
+    public void testQueriesDuringUpdates() throws InterruptedException {
+        int side = 20, n = side * side;
+        VersionedGraph G = new VersionedGraph(true);
+        for (int v = 1; v <= n; v += 1) {
+            G.add();
+        }
+        for (int v = 1; v <= n; v += 1) {
+            if (v % side != 0) {
+                G.add(v, v + 1, 1.0);
+                G.add(v + 1, v, 1.0);
+            }
+            if (v + side <= n) {
+                G.add(v, v + side, 1.0);
+                G.add(v + side, v, 1.0);
+            }
+        }
+        G.publish();
+        AtomicBoolean done = new AtomicBoolean();
+        ArrayList<Throwable> errors = new ArrayList<>();
+        Thread[] readers = new Thread[4];
+        for (int t = 0; t < readers.length; t += 1) {
+            readers[t] = new Thread(() -> {
+                try {
+                    while (!done.get()) {
+                        try (VersionedGraph.Snapshot S = G.snapshot()) {
+                            double unit = S.version() % 2 == 1 ? 1.0 : 2.0;
+                            assertEquals(unit == 1.0, S.contains(1, 2));
+                            Route p = new Route(S, 1, n);
+                            p.setPaths();
+                            assertEquals(2 * (side - 1) * unit,
+                                         p.getWeight(n), 1e-9);
+                            assertEquals(2 * side - 1, p.pathTo(n).size());
+                            p.release();
+                        }
+                    }
+                } catch (Throwable excp) {
+                    synchronized (errors) {
+                        errors.add(excp);
+                    }
+                }
+            });
+            readers[t].start();
+        }
+        for (int round = 0; round < 200; round += 1) {
+            if (round % 2 == 0) {
+                G.remove(1, 2);
+                reweigh(G, 2.0);
+            } else {
+                reweigh(G, 1.0);
+                G.add(1, 2, 1.0);
+            }
+            G.publish();
+        }
+        done.set(true);
+        for (Thread t : readers) {
+            t.join();
+        }
+        if (!errors.isEmpty()) {
+            throw new AssertionError("reader failed", errors.get(0));
+        }
+        assertEquals(201, G.version());
+        assertEquals(1, G.retainedVersions());
+    }
+
+}
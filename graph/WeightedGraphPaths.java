@@ -0,0 +1,43 @@
+package graph;
+
+/* See restrictions in Graph.java. */
+
+/** A SimpleShortestPaths whose edge weights are those its graph records,
+ *  read by the position of each edge the search relaxes rather than
+ *  looked up by its end points.  Clients that want other weights
+ *  extend SimpleShortestPaths and supply getWeight(u, v) instead.
+ *  @author Netra Sathe
+ */
+public class WeightedGraphPaths extends SimpleShortestPaths {
+
+    /** The shortest paths in G from SOURCE, weighted by G's weights. */
+    public <G extends Graph & EdgeWeights> WeightedGraphPaths(G graph,
+                                                              int source) {
+        this(graph, source, 0);
+    }
+
+    /** A shortest path in G from SOURCE to DEST, weighted by G's
+     *  weights. */
+    public <G extends Graph & EdgeWeights> WeightedGraphPaths(G graph,
+                                                              int source,
+                                                              int dest) {
+        super(graph, source, dest);
+        weights = graph;
+    }
+
+    @Override
+    protected final double getWeight(int u, int v) {
+        if (!graphh.contains(u, v)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return weights.getWeight(u, v);
+    }
+
+    @Override
+    final double edgeWeight(int u, int k, int v) {
+        return weights.successorWeight(u, k);
+    }
+
+    /** The weights of my graph. */
+    private final EdgeWeights weights;
+}
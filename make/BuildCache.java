@@ -0,0 +1,126 @@
+package make;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Set;
+
+import static make.Main.error;
+
+/** The state of the targets at the end of the last successful build: for
+ *  each target that build brought up to date, its change time and a
+ *  digest of its rule (its commands and the names of its dependencies).
+ *  The state is kept in a binary file of the form
+ *      MAGIC, N, then N times: TARGET (modified UTF-8), TIME, DIGEST
+ *  with TIME an int and DIGEST a long.
+ *  @author Netra Sathe
+ */
+class BuildCache {
+
+    /** Magic number at the start of a cache file. */
+    private static final int MAGIC = 0x4d4b4331;
+
+    /** An empty cache. */
+    BuildCache() {
+        times = new int[16];
+        digests = new long[16];
+    }
+
+    /** Returns the cache stored in the file named NAME by write, or an
+     *  empty cache if there is no such file. */
+    static BuildCache read(String name) {
+        BuildCache result = new BuildCache();
+        if (!new File(name).exists()) {
+            return result;
+        }
+        try (DataInputStream inp = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(name)))) {
+            if (inp.readInt() != MAGIC) {
+                error("Error: %s is not a build cache", name);
+            }
+            for (int n = inp.readInt(); n > 0; n -= 1) {
+                String target = inp.readUTF();
+                int time = inp.readInt();
+                result.record(target, time, inp.readLong());
+            }
+            return result;
+        } catch (IOException excp) {
+            error("Error: Could not read build cache: %s", name);
+            return null;
+        }
+    }
+
+    /** Store me in the file named NAME. */
+    void write(String name) {
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(name)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(slots.size());
+            for (HashMap.Entry<String, Integer> e : slots.entrySet()) {
+                out.writeUTF(e.getKey());
+                out.writeInt(times[e.getValue()]);
+                out.writeLong(digests[e.getValue()]);
+            }
+        } catch (IOException excp) {
+            error("Error: Could not write build cache: %s", name);
+        }
+    }
+
+    /** Returns the number of targets recorded. */
+    int size() {
+        return slots.size();
+    }
+
+    /** Record that TARGET was up to date with change time TIME and a rule
+     *  whose digest is DIGEST. */
+    void record(String target, int time, long digest) {
+        Integer s = slots.get(target);
+        if (s == null) {
+            s = used;
+            used += 1;
+            slots.put(target, s);
+            if (s == times.length) {
+                times = Arrays.copyOf(times, 2 * s);
+                digests = Arrays.copyOf(digests, 2 * s);
+            }
+        }
+        times[s] = time;
+        digests[s] = digest;
+    }
+
+    /** Forget TARGET, if it is recorded. */
+    void remove(String target) {
+        slots.remove(target);
+    }
+
+    /** Forget all recorded targets but those in TARGETS. */
+    void retainAll(Set<String> targets) {
+        slots.keySet().retainAll(targets);
+    }
+
+    /** Returns true iff TARGET is recorded as up to date with change time
+     *  TIME (null if it does not exist) and a rule whose digest is
+     *  DIGEST. */
+    boolean isCurrent(String target, Integer time, long digest) {
+        Integer s = slots.get(target);
+        return s != null && time != null && times[s] == time
+            && digests[s] == digest;
+    }
+
+    /** Index of each recorded target in times and digests. */
+    private final HashMap<String, Integer> slots = new HashMap<>();
+    /** Number of indices handed out (forgotten targets' included). */
+    private int used;
+    /** Recorded change times, by index. */
+    private int[] times;
+    /** Recorded rule digests, by index. */
+    private long[] digests;
+}
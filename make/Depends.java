@@ -12,4 +12,13 @@ class Depends extends LabeledGraph<Rule, Void> {
     Depends() {
         super(new DirectedGraph());
     }
+
+    /** Add the edges (EDGES[0], EDGES[1]), (EDGES[2], EDGES[3]), ... up to
+     *  EDGES[N-1], in that order.  Edges that are already present are
+     *  ignored. */
+    void addEdges(int[] edges, int n) {
+        for (int i = 0; i < n; i += 2) {
+            add(edges[i], edges[i + 1]);
+        }
+    }
 }
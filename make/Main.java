@@ -10,13 +10,18 @@ public final class Main {
 
     /** Entry point for the CS61B make program.  RAWARGS may contain options
      *  and targets:
-     *      [ -f MAKEFILE ] [ -D FILEINFO ] TARGET1 TARGET2 ...
+     *      [ -f MAKEFILE ] [ -D FILEINFO ] [ -j JOBS ] [ -C CACHE ]
+     *      TARGET1 TARGET2 ...
+     *  where up to JOBS (default 1) independent rules are rebuilt at once,
+     *  and CACHE is a file recording the state of the last successful
+     *  build.
      */
     public static void main(String... rawArgs) {
         String makefileName;
         String fileInfoName;
-        CommandArgs args = new CommandArgs("-f={0,1} -D={0,1} --={1,}",
-                rawArgs);
+        CommandArgs args =
+            new CommandArgs("-f={0,1} -D={0,1} -j={0,1} -C={0,1} --={1,}",
+                            rawArgs);
 
         if (!args.ok()) {
             usage();
@@ -24,6 +29,12 @@ public final class Main {
 
         makefileName = args.getLast("-f", "Makefile");
         fileInfoName = args.getLast("-D", "fileinfo");
+        int jobs = 1;
+        try {
+            jobs = Integer.parseInt(args.getLast("-j", "1"));
+        } catch (NumberFormatException excp) {
+            usage();
+        }
 
         ArrayList<String> targets = new ArrayList<String>();
 
@@ -31,10 +42,12 @@ public final class Main {
 
         try {
             maker.readFileAges(fileInfoName);
+            maker.setJobs(jobs);
             maker.readMakefile(makefileName);
-            for (String target : args.get("--")) {
-                maker.build(target);
+            if (args.contains("-C")) {
+                maker.useCache(args.getLast("-C"));
             }
+            maker.build(args.get("--"));
         } catch (IllegalArgumentException | IllegalStateException excp) {
             System.err.printf("make: Error: %s%n", excp.getMessage());
             System.exit(1);
@@ -50,13 +63,19 @@ public final class Main {
     /** Print a brief usage message and exit program abnormally. */
     private static void usage() {
         System.err.printf("Usage: java make [-D FILEINFO] [-f MAKEFILE] "
-                + "TARGET...%n"
+                + "[-j JOBS] [-C CACHE] TARGET...%n"
                 + "   FILEINFO contains the current time and change "
                 + "times for files%n"
                 + "      (default 'fileinfo').%n"
                 + "   MAKEFILE contains dependency information and "
                 + "build commands%n"
-                + "      (default Makefile).%n");
+                + "      (default Makefile).%n"
+                + "   JOBS is the number of rules that may be rebuilt at "
+                + "once%n"
+                + "      (default 1).%n"
+                + "   CACHE records the state of the last successful "
+                + "build, so that%n"
+                + "      unchanged rules need not be examined.%n");
         System.exit(1);
     }
 
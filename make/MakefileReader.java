@@ -0,0 +1,179 @@
+package make;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+
+import java.util.Arrays;
+
+import static make.Main.error;
+
+/** Reads a makefile one line at a time into a reused character array,
+ *  so that Maker can classify lines by hand rather than with regular
+ *  expressions.  Lines end where java.util.Scanner.nextLine would end
+ *  them: at \r\n, \n, \r, \u2028, \u2029, or \u0085.  Names taken
+ *  from a line with name() are interned, so each distinct target name
+ *  becomes a single shared String (whose hash code is then computed only
+ *  once).
+ *  @author Netra Sathe
+ */
+class MakefileReader implements Closeable {
+
+    /** Size of the read buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** A reader for the file named NAME. */
+    MakefileReader(String name) throws FileNotFoundException {
+        _name = name;
+        _inp = new FileReader(name);
+    }
+
+    /** Read the next line.  Returns false iff there are no more. */
+    boolean nextLine() {
+        _len = 0;
+        boolean any = false;
+        while (true) {
+            if (_pos == _lim && !fill()) {
+                return any;
+            }
+            char c = _buf[_pos];
+            _pos += 1;
+            if (_skipLF) {
+                _skipLF = false;
+                if (c == '\n') {
+                    continue;
+                }
+            }
+            switch (c) {
+            case '\r':
+                _skipLF = true;
+                return true;
+            case '\n': case '\u2028': case '\u2029': case '\u0085':
+                return true;
+            default:
+                any = true;
+                if (_len == _line.length) {
+                    _line = Arrays.copyOf(_line, 2 * _len);
+                }
+                _line[_len] = c;
+                _len += 1;
+            }
+        }
+    }
+
+    /** Returns the length of the current line. */
+    int length() {
+        return _len;
+    }
+
+    /** Returns character K of the current line. */
+    char charAt(int k) {
+        return _line[k];
+    }
+
+    /** Returns the current line. */
+    String line() {
+        return new String(_line, 0, _len);
+    }
+
+    /** Returns characters START .. END-1 of the current line. */
+    String text(int start, int end) {
+        return new String(_line, start, end - start);
+    }
+
+    /** Returns characters START .. END-1 of the current line, sharing one
+     *  String among all occurrences of the same name. */
+    String name(int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i += 1) {
+            h = 31 * h + _line[i];
+        }
+        int mask = _table.length - 1;
+        int i;
+        for (i = h & mask; _table[i] != null; i = (i + 1) & mask) {
+            if (matches(_table[i], start, end)) {
+                return _table[i];
+            }
+        }
+        String s = text(start, end);
+        _table[i] = s;
+        _count += 1;
+        if (2 * _count > _table.length) {
+            String[] old = _table;
+            _table = new String[2 * old.length];
+            mask = _table.length - 1;
+            for (String t : old) {
+                if (t != null) {
+                    int j;
+                    for (j = t.hashCode() & mask; _table[j] != null;
+                         j = (j + 1) & mask) {
+                        continue;
+                    }
+                    _table[j] = t;
+                }
+            }
+        }
+        return s;
+    }
+
+    @Override
+    public void close() {
+        try {
+            _inp.close();
+        } catch (IOException excp) {
+            return;
+        }
+    }
+
+    /** Returns true iff S is characters START .. END-1 of the current
+     *  line. */
+    private boolean matches(String s, int start, int end) {
+        if (s.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i += 1) {
+            if (s.charAt(i - start) != _line[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Refill my buffer.  Returns false at end of file. */
+    private boolean fill() {
+        try {
+            int n;
+            do {
+                n = _inp.read(_buf, 0, _buf.length);
+            } while (n == 0);
+            _pos = 0;
+            _lim = Math.max(n, 0);
+            return n > 0;
+        } catch (IOException excp) {
+            error("Error: Could not read makefile: %s", _name);
+            return false;
+        }
+    }
+
+    /** Name of my file. */
+    private final String _name;
+    /** Source of my characters. */
+    private final Reader _inp;
+    /** Unread input is _buf[_pos .. _lim-1]. */
+    private final char[] _buf = new char[BUFFER_SIZE];
+    /** Bounds of the unread input in _buf. */
+    private int _pos, _lim;
+    /** True iff the last line ended with \r, so that a following \n is
+     *  part of the same line terminator. */
+    private boolean _skipLF;
+    /** The current line, in _line[0 .. _len-1]. */
+    private char[] _line = new char[256];
+    /** Length of the current line. */
+    private int _len;
+    /** Open-addressing table of the names seen so far. */
+    private String[] _table = new String[1024];
+    /** Number of entries in _table. */
+    private int _count;
+}
@@ -1,20 +1,18 @@
 package make;
 
 import graph.DepthFirstTraversal;
+import graph.StrongComponents;
 
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.NoSuchElementException;
 import java.util.Scanner;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
-import static java.util.Arrays.asList;
 import static make.Main.error;
 
 /** Represents a makefile.
@@ -33,21 +31,25 @@ class Maker {
     private Depends depz = new Depends();
     /** Map target names to ages. */
     private HashMap<String, Integer> targage = new HashMap<>();
+    /** Number of rules that may be rebuilt at once. */
+    private int jobz = 1;
+    /** State of the last successful build, or null if not used. */
+    private BuildCache cachez;
+    /** Name of the file holding cachez. */
+    private String cacheName;
+    /** Rules made since the build cache was last consulted. */
+    private ArrayList<Rule> newRules = new ArrayList<>();
+    /** Indexed by vertex: true iff the rule there may be out of date
+     *  according to the build cache.  Null until the cache is first
+     *  consulted. */
+    private boolean[] dirty;
+    /** The vertices marked in dirty. */
+    private int[] dirtyList = new int[16];
+    /** Number of vertices in dirtyList. */
+    private int ndirty;
 
 
 
-    /** Describes Makefile lines that are ignored. */
-    static final Pattern IGNORED = Pattern.compile("\\s*(#.*)?");
-    /** Describes a rule header in a makefile:  TARGET: DEPENDENCIES. */
-    static final Pattern HEADER =
-            Pattern.compile("([^:\\s]+)\\s*:\\s*(.*?)\\s*");
-    /** Describes a sequence of valid targets and whitespace. */
-    static final Pattern TARGETS = Pattern.compile("[^:=#\\\\]*$");
-    /** Describes an indented command line. */
-    static final Pattern COMMAND = Pattern.compile("(\\s+.*)");
-    /** Describes the separator on dependencies lines. */
-    static final Pattern SPACES = Pattern.compile("\\p{Blank}+");
-
     /** Read and store the ages of existing targets from the
      *  file named FILEINFONAME. */
     void readFileAges(String fileInfoName) {
@@ -68,91 +70,140 @@ class Maker {
     }
 
     /** Read make rules from the file named MAKEFILENAME and form the dependence
-     *  graph with targets as vertices. */
+     *  graph with targets as vertices.  A line is ignored if it is blank
+     *  or its first non-blank character is '#'.  A line starting with a
+     *  target name (anything but whitespace and ':') followed by optional
+     *  blanks and ':' is a rule header; the rest of the line lists the
+     *  target's dependencies, separated by blanks and tabs.  Any other line
+     *  must start with whitespace and is a command of the preceding rule.
+     *  Edges are added to the graph all at once, at the end. */
     void readMakefile(String makefileName) {
-        Scanner x;
-        String target;
-        ArrayList<String> dependencies;
-        ArrayList<String> rulez;
-
-        target = null;
-        dependencies = null;
-        rulez = null;
+        MakefileReader inp;
         try {
-            x = new Scanner(new FileReader(makefileName));
+            inp = new MakefileReader(makefileName);
         } catch (FileNotFoundException excp) {
             error("Error: Could not find makefile: %s", makefileName);
             return;
         }
 
-        while (x.hasNextLine()) {
-            String line = x.nextLine();
-            Matcher parsed;
-            parsed = IGNORED.matcher(line);
-            if (parsed.matches()) {
-                continue;
-            }
-            parsed = HEADER.matcher(line);
-            if (parsed.matches()) {
-                addRule(target, dependencies, rulez);
-                target = parsed.group(1);
-                if (!TARGETS.matcher(target).matches()) {
-                    error("Error: Bad target: '%s'", target);
+        try {
+            Rule rule = null;
+            ArrayList<String> commands = null;
+            int[] edges = new int[64];
+            int nedges = 0;
+            while (inp.nextLine()) {
+                int n = inp.length();
+                int i = skipSpace(inp, 0, n);
+                if (i == n || inp.charAt(i) == '#') {
+                    continue;
                 }
-                if (!TARGETS.matcher(parsed.group(2)).matches()) {
-                    error("Error: One or more bad prerequisites: '%s'",
-                            parsed.group(2));
+                int j = 0;
+                while (j < n && inp.charAt(j) != ':'
+                       && !isSpace(inp.charAt(j))) {
+                    j += 1;
                 }
-                dependencies = new ArrayList<>();
-                if (!parsed.group(2).isEmpty()) {
-                    dependencies.addAll(asList(SPACES.split(parsed.group(2))));
+                int colon = skipSpace(inp, j, n);
+                if (j > 0 && colon < n && inp.charAt(colon) == ':') {
+                    if (rule != null) {
+                        rule.addCommands(commands);
+                    }
+                    int start = skipSpace(inp, colon + 1, n);
+                    int end = n;
+                    while (end > start && isSpace(inp.charAt(end - 1))) {
+                        end -= 1;
+                    }
+                    if (badName(inp, 0, j)) {
+                        error("Error: Bad target: '%s'", inp.text(0, j));
+                    }
+                    if (badName(inp, start, end)) {
+                        error("Error: One or more bad prerequisites: '%s'",
+                              inp.text(start, end));
+                    }
+                    rule = rule(inp.name(0, j));
+                    commands = new ArrayList<>();
+                    int u = rule.getVertex();
+                    for (int k = start; k < end; ) {
+                        int e = k;
+                        while (e < end && !isBlank(inp.charAt(e))) {
+                            e += 1;
+                        }
+                        if (nedges + 2 > edges.length) {
+                            edges = Arrays.copyOf(edges, 2 * edges.length);
+                        }
+                        String dep = inp.name(k, e);
+                        edges[nedges] = u;
+                        edges[nedges + 1] = rule(dep).getVertex();
+                        rule.addDependencyName(dep);
+                        nedges += 2;
+                        k = e;
+                        while (k < end && isBlank(inp.charAt(k))) {
+                            k += 1;
+                        }
+                    }
+                } else if (rule != null && isSpace(inp.charAt(0))) {
+                    commands.add(inp.line());
+                } else {
+                    error("Error: Erroneous input line: '%s'", inp.line());
                 }
-                rulez = new ArrayList<>();
-                continue;
             }
-            parsed = COMMAND.matcher(line);
-            if (target != null && parsed.matches()) {
-                rulez.add(parsed.group(1));
-            } else {
-                error("Error: Erroneous input line: '%s'", line);
+            if (rule != null) {
+                rule.addCommands(commands);
             }
+            depz.addEdges(edges, nedges);
+        } finally {
+            inp.close();
         }
-        addRule(target, dependencies, rulez);
-    }
-
-    /** Add rule
-     *      TARGET: DEPENDENCIES
-     *          COMMANDS
-     *  to makegraph, or add DEPENDENCIES and COMMANDS to that rule, if it
-     *  already exists.  Returns the rule. */
-    private Rule addRule(String target,
-                         List<String> dependencies,
-                         List<String> commands) {
-        if (target != null) {
-            Rule rule;
-            rule = targetz.get(target);
-            if (rule == null) {
-                rule = new Rule(this, target);
-                targetz.put(target, rule);
-            }
-            for (String dependency: dependencies) {
-                Rule depRule = addRule(dependency,
-                        Collections.<String>emptyList(),
-                        Collections.<String>emptyList());
-                rule.addDependency(depRule);
+    }
+
+    /** Returns true iff C is a whitespace character, as for \s in a
+     *  regular expression. */
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000b'
+            || c == '\f' || c == '\r';
+    }
+
+    /** Returns true iff C separates dependencies: a blank or tab. */
+    private static boolean isBlank(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    /** Returns the position of the first non-whitespace character of the
+     *  current line of INP at or after K, or N (its length) if none. */
+    private static int skipSpace(MakefileReader inp, int k, int n) {
+        while (k < n && isSpace(inp.charAt(k))) {
+            k += 1;
+        }
+        return k;
+    }
+
+    /** Returns true iff characters START .. END-1 of the current line of
+     *  INP include one that may not appear in a target name: ':', '=',
+     *  '#', or '\\'. */
+    private static boolean badName(MakefileReader inp, int start, int end) {
+        for (int k = start; k < end; k += 1) {
+            char c = inp.charAt(k);
+            if (c == ':' || c == '=' || c == '#' || c == '\\') {
+                return true;
             }
-            rule.addCommands(commands);
-            return rule;
-        } else {
-            return null;
         }
+        return false;
+    }
+
+    /** Returns the rule for TARGET, creating one with no dependencies or
+     *  commands if there is none yet. */
+    private Rule rule(String target) {
+        Rule rule = targetz.get(target);
+        if (rule == null) {
+            rule = new Rule(this, target);
+            targetz.put(target, rule);
+            newRules.add(rule);
+        }
+        return rule;
     }
 
     /** Issue instructions to build TARGET. */
     void build(String target) {
-        Rule targetRule = addRule(target, Collections.<String>emptyList(),
-                                  Collections.<String>emptyList());
-        int v = targetRule.getVertex();
+        int v = rule(target).getVertex();
         if (travz == null) {
             travz = new MakeTraversal();
             travz.traverse(v);
@@ -161,6 +212,173 @@ class Maker {
         }
     }
 
+    /** Allow up to JOBS rules to be rebuilt at once (1 by default). */
+    void setJobs(int jobs) {
+        if (jobs < 1) {
+            error("Error: number of jobs must be positive");
+        }
+        jobz = jobs;
+    }
+
+    /** Use the build state stored in the file named NAME, if it exists,
+     *  to skip rules that have not changed since the last successful
+     *  build, and store the new state there after each successful
+     *  build. */
+    void useCache(String name) {
+        cachez = BuildCache.read(name);
+        cacheName = name;
+    }
+
+    /** Issue instructions to build each of TARGETS.  With one job, the
+     *  targets are built in turn, each rule after its dependencies in
+     *  depth-first order; otherwise, rules whose dependencies are all up
+     *  to date run concurrently, in no particular order.  Either way, a
+     *  circular dependency among the rules needed is reported before
+     *  anything is rebuilt.  With a build cache, rules that are up to date
+     *  according to the cache are not examined. */
+    void build(List<String> targets) {
+        ArrayList<Integer> vertices = new ArrayList<>();
+        for (String target : targets) {
+            vertices.add(rule(target).getVertex());
+        }
+        if (cachez != null) {
+            prune();
+        }
+        checkCycles(vertices);
+        if (jobz == 1) {
+            for (String target : targets) {
+                build(target);
+            }
+        } else {
+            new ParallelBuild(depz, jobz).build(vertices);
+        }
+        if (cachez != null) {
+            saveCache();
+        }
+    }
+
+    /** Mark as possibly out of date every rule made since the last call
+     *  that differs from its entry in the build cache, and every rule that
+     *  depends on one of those, directly or indirectly.  The rest were up
+     *  to date at the end of the last successful build, as were all their
+     *  dependencies, and have not changed since, so none of them needs
+     *  rebuilding.  Rule digests are kept up to date as the makefile is
+     *  read, so checking a rule against the cache is cheap, and only the
+     *  rules that changed and their ancestors are traversed. */
+    private void prune() {
+        int size = depz.maxVertex() + 1;
+        if (dirty == null) {
+            dirty = new boolean[size];
+        } else if (dirty.length < size) {
+            dirty = Arrays.copyOf(dirty, size);
+        }
+        int[] stack = new int[16];
+        int sp = 0;
+        for (Rule rule : newRules) {
+            int v = rule.getVertex();
+            if (!dirty[v] && !cachez.isCurrent(rule.getTarget(),
+                                               rule.getTime(),
+                                               rule.digest())) {
+                markDirty(v);
+                stack[sp] = v;
+                sp += 1;
+                while (sp > 0) {
+                    sp -= 1;
+                    int w = stack[sp];
+                    for (int k = 0, n = depz.inDegree(w); k < n; k += 1) {
+                        int u = depz.predecessor(w, k);
+                        if (!dirty[u]) {
+                            markDirty(u);
+                            if (sp == stack.length) {
+                                stack = Arrays.copyOf(stack, 2 * sp);
+                            }
+                            stack[sp] = u;
+                            sp += 1;
+                        }
+                    }
+                }
+            }
+        }
+        newRules.clear();
+    }
+
+    /** Record that the rule at vertex V may be out of date. */
+    private void markDirty(int v) {
+        dirty[v] = true;
+        if (ndirty == dirtyList.length) {
+            dirtyList = Arrays.copyOf(dirtyList, 2 * ndirty);
+        }
+        dirtyList[ndirty] = v;
+        ndirty += 1;
+    }
+
+    /** Returns true iff the rule at vertex V may need to be rebuilt:
+     *  that is, unless the build cache shows it to be up to date. */
+    final boolean mayBeStale(int v) {
+        return dirty == null || v >= dirty.length || dirty[v];
+    }
+
+    /** Bring the build cache up to date with the rules that may have been
+     *  out of date, and store it if it changed.  The other rules are
+     *  recorded there already.  Targets with no rule are dropped, since
+     *  their entries would not be checked against their dependencies. */
+    private void saveCache() {
+        if (ndirty == 0) {
+            return;
+        }
+        for (int i = 0; i < ndirty; i += 1) {
+            Rule rule = depz.getLabel(dirtyList[i]);
+            if (!rule.isUnfinished() && rule.getTime() != null) {
+                cachez.record(rule.getTarget(), rule.getTime(),
+                              rule.digest());
+            } else {
+                cachez.remove(rule.getTarget());
+            }
+        }
+        cachez.retainAll(targetz.keySet());
+        cachez.write(cacheName);
+    }
+
+    /** Report an error if any rule reachable from the vertices TARGETS
+     *  depends, directly or indirectly, on itself. */
+    private void checkCycles(List<Integer> targets) {
+        StrongComponents comps = new StrongComponents(depz);
+        boolean[] seen = new boolean[depz.maxVertex() + 1];
+        int[] stack = new int[16];
+        int sp = 0;
+        for (int t : targets) {
+            if (!seen[t]) {
+                seen[t] = true;
+                stack[sp] = t;
+                sp += 1;
+            }
+            while (sp > 0) {
+                sp -= 1;
+                int v = stack[sp];
+                int c = comps.component(v);
+                if (comps.isCyclic(c)) {
+                    ArrayList<String> names = new ArrayList<>();
+                    for (int w : comps.members(c)) {
+                        names.add(depz.getLabel(w).getTarget());
+                    }
+                    error("Error: circular dependency among %s",
+                          String.join(", ", names));
+                }
+                for (int k = 0, n = depz.outDegree(v); k < n; k += 1) {
+                    int w = depz.successor(v, k);
+                    if (!seen[w]) {
+                        seen[w] = true;
+                        if (sp == stack.length) {
+                            stack = Arrays.copyOf(stack, 2 * sp);
+                        }
+                        stack[sp] = w;
+                        sp += 1;
+                    }
+                }
+            }
+        }
+    }
+
     /** Return my dependence graph. */
     final Depends getGraph() {
         return depz;
@@ -184,6 +402,12 @@ class Maker {
             super(depz);
         }
 
+        @Override
+        protected boolean processSuccessor(int u, int v) {
+            return super.processSuccessor(u, v)
+                && depz.getLabel(v).isUnfinished();
+        }
+
         @Override
         protected boolean postVisit(int v0) {
             if (depz.getLabel(v0).isUnfinished()) {
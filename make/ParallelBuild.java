@@ -0,0 +1,166 @@
+package make;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static make.Main.error;
+
+/** Brings a set of targets up to date by running independent rules on a
+ *  pool of worker threads.  The part of the dependency graph reachable
+ *  from the targets is found once; each of its rules then counts its
+ *  unfinished dependencies, and a rule is handed to the pool as soon as
+ *  that count reaches zero.  Each rule is rebuilt exactly as in a serial
+ *  build, printing its commands as one block.  Once a rule fails, no more
+ *  are started, and the error is reported only after the rules already
+ *  running are done, so nothing is printed after it.
+ *  @author Netra Sathe
+ */
+class ParallelBuild {
+
+    /** A build of the rules of DEPENDS using JOBS threads. */
+    ParallelBuild(Depends depends, int jobs) {
+        depz = depends;
+        _jobs = jobs;
+        pending = new int[depz.maxVertex() + 1];
+        inBuild = new boolean[depz.maxVertex() + 1];
+    }
+
+    /** Bring the rules at vertices TARGETS and everything they depend on
+     *  up to date. */
+    void build(List<Integer> targets) {
+        ArrayList<Integer> ready = new ArrayList<>();
+        int[] stack = new int[16];
+        int sp = 0;
+        for (int t : targets) {
+            if (!inBuild[t]) {
+                inBuild[t] = true;
+                stack[sp] = t;
+                sp += 1;
+            }
+            while (sp > 0) {
+                sp -= 1;
+                int v = stack[sp];
+                if (!depz.getLabel(v).isUnfinished()) {
+                    continue;
+                }
+                total += 1;
+                int deps = 0;
+                for (int k = 0, n = depz.outDegree(v); k < n; k += 1) {
+                    int w = depz.successor(v, k);
+                    if (!depz.getLabel(w).isUnfinished()) {
+                        continue;
+                    }
+                    deps += 1;
+                    if (!inBuild[w]) {
+                        inBuild[w] = true;
+                        if (sp == stack.length) {
+                            stack = Arrays.copyOf(stack, 2 * sp);
+                        }
+                        stack[sp] = w;
+                        sp += 1;
+                    }
+                }
+                pending[v] = deps;
+                if (deps == 0) {
+                    ready.add(v);
+                }
+            }
+        }
+        if (total == 0) {
+            return;
+        }
+
+        pool = Executors.newFixedThreadPool(_jobs, r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            synchronized (this) {
+                for (int v : ready) {
+                    submit(v);
+                }
+                while (finished < total && running > 0) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            error("Error: build interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        if (finished < total) {
+            for (int v = 1; v < inBuild.length; v += 1) {
+                if (inBuild[v] && depz.getLabel(v).isUnfinished()) {
+                    error("Error: %s is missing dependencies",
+                          depz.getLabel(v));
+                }
+            }
+        }
+    }
+
+    /** Hand the rule at vertex V to the pool.  Called while holding my
+     *  lock. */
+    private void submit(int v) {
+        running += 1;
+        pool.execute(() -> run(v));
+    }
+
+    /** Rebuild the rule at vertex V, then release the rules waiting for
+     *  it. */
+    private void run(int v) {
+        RuntimeException excp = null;
+        try {
+            depz.getLabel(v).rebuild();
+        } catch (RuntimeException e) {
+            excp = e;
+        }
+        synchronized (this) {
+            running -= 1;
+            if (excp != null) {
+                if (failure == null) {
+                    failure = excp;
+                }
+            } else if (failure == null) {
+                finished += 1;
+                for (int k = 0, n = depz.inDegree(v); k < n; k += 1) {
+                    int u = depz.predecessor(v, k);
+                    if (inBuild[u]) {
+                        pending[u] -= 1;
+                        if (pending[u] == 0) {
+                            submit(u);
+                        }
+                    }
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    /** The dependency graph. */
+    private final Depends depz;
+    /** Number of worker threads. */
+    private final int _jobs;
+    /** Number of unfinished dependencies of each rule in the build,
+     *  guarded by my lock once the workers start. */
+    private final int[] pending;
+    /** Marks the rules reachable from the targets. */
+    private final boolean[] inBuild;
+    /** Number of unfinished rules in the build. */
+    private int total;
+    /** Number of rules rebuilt so far. */
+    private int finished;
+    /** Number of rules handed to the pool and not yet done. */
+    private int running;
+    /** The first error raised by a rule, if any. */
+    private RuntimeException failure;
+    /** The worker threads. */
+    private ExecutorService pool;
+}
@@ -11,6 +11,11 @@ import static make.Main.error;
  */
 class Rule {
 
+    /** Initial value of an FNV-1a digest. */
+    private static final long FNV_BASIS = 0xcbf29ce484222325L;
+    /** Multiplier of an FNV-1a digest. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
     /** The Maker that created me. */
     private Maker makr;
     /** The Maker's dependency graph. */
@@ -23,6 +28,8 @@ class Rule {
     private Integer tiem;
     /** True iff I have been brought up to date. */
     private boolean fini;
+    /** Digest of my commands and dependency names so far. */
+    private long dgst = FNV_BASIS;
 
     /** A new Rule for TARGET. Adds corresponding vertex to MAKER's dependence
      *  graph. */
@@ -48,6 +55,15 @@ class Rule {
             throw new IllegalStateException();
         }
         rulez.addAll(commands);
+        for (String command : commands) {
+            dgst = digest(dgst, command);
+        }
+    }
+
+    /** Add NAME, the next dependency named on a header line of mine, to
+     *  my digest. */
+    void addDependencyName(String name) {
+        dgst = digest((dgst ^ 0xfffd) * FNV_PRIME, name);
     }
 
     /** Return the vertex representing me. */
@@ -65,9 +81,26 @@ class Rule {
         return tiem;
     }
 
-    /** Return true iff I have not yet been brought up to date. */
+    /** Return true iff I have not yet been brought up to date, and may
+     *  need to be (see Maker.mayBeStale). */
     boolean isUnfinished() {
-        return !fini;
+        return !fini && makr.mayBeStale(vert);
+    }
+
+    /** Returns a 64-bit digest (FNV-1a) of my commands and the names of my
+     *  dependencies, in the order the makefile gives them.  It is
+     *  accumulated as the makefile is read, so costs nothing to fetch. */
+    long digest() {
+        return dgst;
+    }
+
+    /** Returns the FNV-1a digest H extended by the characters of S and a
+     *  terminator. */
+    private static long digest(long h, String s) {
+        for (int i = 0; i < s.length(); i += 1) {
+            h = (h ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return (h ^ 0xfffe) * FNV_PRIME;
     }
 
     /** Check that dependencies are in fact built before it's time to rebuild
@@ -99,7 +132,8 @@ class Rule {
     }
 
     /** Rebuild me, if needed, after checking that all dependencies are rebuilt
-     *  (error otherwise). */
+     *  (error otherwise).  My commands are printed with a single call, so
+     *  that rules rebuilt concurrently do not interleave their output. */
     void rebuild() {
         checkFinishedDependencies();
 
@@ -108,9 +142,11 @@ class Rule {
                 error("Error: %s needs to be rebuilt, but has no commands",
                         targt);
             }
+            StringBuilder out = new StringBuilder();
             for (String i : rulez) {
-                System.out.println(i);
+                out.append(i).append(System.lineSeparator());
             }
+            System.out.print(out);
             tiem = makr.getCurrentTime();
 
         }
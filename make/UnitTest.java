@@ -9,7 +9,14 @@ import org.junit.Test;
 import ucb.junit.textui;
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /** Unit tests for the make package. */
 public class UnitTest {
@@ -75,4 +82,313 @@ public class UnitTest {
         Rule tester = new Rule(lol, "definitely not");
         nope.rebuild();
     }
+
+    /** Returns the standard output of building TARGETS with the makefile
+     *  MAKEFILE and the file information FILEINFO, using JOBS jobs. */
+    private static String makeOutput(File makefile, File fileinfo,
+                                     List<String> targets, int jobs) {
+        return makeOutput(makefile, fileinfo, targets, jobs, null);
+    }
+
+    /** Returns the standard output of building TARGETS with the makefile
+     *  MAKEFILE and the file information FILEINFO, using JOBS jobs and
+     *  the build cache CACHE, if it is not null. */
+    private static String makeOutput(File makefile, File fileinfo,
+                                     List<String> targets, int jobs,
+                                     File cache) {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(bytes, true));
+            Maker maker = new Maker();
+            maker.setJobs(jobs);
+            maker.readFileAges(fileinfo.getPath());
+            maker.readMakefile(makefile.getPath());
+            if (cache != null) {
+                maker.useCache(cache.getPath());
+            }
+            maker.build(targets);
+        } finally {
+            System.setOut(stdout);
+        }
+        return bytes.toString();
+    }
+
+    @Test
+    public void testParallelBuild() throws IOException {
+        File makefile = File.createTempFile("make", ".mk");
+        File fileinfo = File.createTempFile("make", ".dir");
+        try {
+            int n = 200;
+            try (PrintWriter out = new PrintWriter(makefile)) {
+                for (int i = 1; i <= n; i += 1) {
+                    out.printf("t%d: t%d t%d%n  build t%d%n", i,
+                               2 * i, 2 * i + 1, i);
+                }
+                for (int i = n + 1; i <= 2 * n + 1; i += 1) {
+                    out.printf("t%d:%n  build t%d%n", i, i);
+                }
+            }
+            try (PrintWriter out = new PrintWriter(fileinfo)) {
+                out.println("100");
+            }
+            List<String> targets = Arrays.asList("t1");
+            String serial = makeOutput(makefile, fileinfo, targets, 1);
+            String parallel = makeOutput(makefile, fileinfo, targets, 4);
+            List<String> lines =
+                new ArrayList<>(Arrays.asList(parallel.split("\\R")));
+            List<String> expected =
+                new ArrayList<>(Arrays.asList(serial.split("\\R")));
+            assertEquals(2 * n + 1, lines.size());
+            for (int i = 2; i <= 2 * n + 1; i += 1) {
+                assertTrue(lines.indexOf("  build t" + i)
+                           < lines.indexOf("  build t" + i / 2));
+            }
+            lines.sort(null);
+            expected.sort(null);
+            assertEquals(expected, lines);
+        } finally {
+            makefile.delete();
+            fileinfo.delete();
+        }
+    }
+
+    @Test
+    public void testParallelFailure() throws Exception {
+        File makefile = File.createTempFile("make", ".mk");
+        File fileinfo = File.createTempFile("make", ".dir");
+        try {
+            try (PrintWriter out = new PrintWriter(makefile)) {
+                out.printf("all: bad");
+                for (int i = 1; i <= 100; i += 1) {
+                    out.printf(" t%d", i);
+                }
+                out.printf("%n  build all%nbad:%n");
+                for (int i = 1; i <= 100; i += 1) {
+                    out.printf("t%d:%n", i);
+                    for (int k = 0; k < 500; k += 1) {
+                        out.printf("  build t%d part %d%n", i, k);
+                    }
+                }
+            }
+            try (PrintWriter out = new PrintWriter(fileinfo)) {
+                out.println("100");
+            }
+            PrintStream stdout = System.out;
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            int printed = -1;
+            try {
+                System.setOut(new PrintStream(bytes, true));
+                Maker maker = new Maker();
+                maker.setJobs(4);
+                maker.readFileAges(fileinfo.getPath());
+                maker.readMakefile(makefile.getPath());
+                maker.build(Arrays.asList("all"));
+                fail("missing commands not reported");
+            } catch (IllegalArgumentException excp) {
+                assertTrue(excp.getMessage().contains("bad"));
+                printed = bytes.size();
+                Thread.sleep(100);
+            } finally {
+                System.setOut(stdout);
+            }
+            assertEquals(printed, bytes.size());
+        } finally {
+            makefile.delete();
+            fileinfo.delete();
+        }
+    }
+
+    @Test
+    public void testCycleReportedFirst() throws IOException {
+        File makefile = File.createTempFile("make", ".mk");
+        File fileinfo = File.createTempFile("make", ".dir");
+        try {
+            try (PrintWriter out = new PrintWriter(makefile)) {
+                out.printf("all: leaf a%n  build all%n");
+                out.printf("leaf:%n  build leaf%n");
+                out.printf("a: b%n  build a%nb: c%n  build b%n");
+                out.printf("c: a%n  build c%n");
+            }
+            try (PrintWriter out = new PrintWriter(fileinfo)) {
+                out.println("100");
+            }
+            for (int jobs = 1; jobs <= 2; jobs += 1) {
+                PrintStream stdout = System.out;
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try {
+                    System.setOut(new PrintStream(bytes, true));
+                    Maker maker = new Maker();
+                    maker.setJobs(jobs);
+                    maker.readFileAges(fileinfo.getPath());
+                    maker.readMakefile(makefile.getPath());
+                    maker.build(Arrays.asList("all"));
+                    fail("cycle not reported");
+                } catch (IllegalArgumentException excp) {
+                    assertTrue(excp.getMessage().contains("a, b, c"));
+                } finally {
+                    System.setOut(stdout);
+                }
+                assertEquals("", bytes.toString());
+                assertEquals("build leaf",
+                             makeOutput(makefile, fileinfo,
+                                        Arrays.asList("leaf"), jobs).trim());
+            }
+        } finally {
+            makefile.delete();
+            fileinfo.delete();
+        }
+    }
+
+    /** Returns a Maker that has read a makefile containing TEXT. */
+    private static Maker readText(String text) throws IOException {
+        File makefile = File.createTempFile("make", ".mk");
+        try {
+            try (PrintWriter out = new PrintWriter(makefile)) {
+                out.print(text);
+            }
+            Maker maker = new Maker();
+            maker.readMakefile(makefile.getPath());
+            return maker;
+        } finally {
+            makefile.delete();
+        }
+    }
+
+    /** Returns the message of the error raised by reading a makefile
+     *  containing TEXT. */
+    private static String readError(String text) throws IOException {
+        try {
+            readText(text);
+        } catch (IllegalArgumentException excp) {
+            return excp.getMessage();
+        }
+        fail("no error for " + text);
+        return null;
+    }
+
+    @Test
+    public void testMakefileParsing() throws IOException {
+        Maker maker = readText("a: b c b\n\tcmd a\n  # comment\n\n   \n"
+                               + "b :c\n c1\r\nc:\r\n  cc\r\r\n"
+                               + "d:   e\tf  \f  \n");
+        Depends depz = maker.getGraph();
+        String[] names = { "a", "b", "c", "d", "e", "f" };
+        int[][] succs = { { 2, 3 }, { 3 }, { }, { 5, 6 }, { }, { } };
+        assertEquals(names.length, depz.vertexSize());
+        for (int v = 1; v <= names.length; v += 1) {
+            assertEquals(names[v - 1], depz.getLabel(v).getTarget());
+            assertEquals(succs[v - 1].length, depz.outDegree(v));
+            for (int k = 0; k < succs[v - 1].length; k += 1) {
+                assertEquals(succs[v - 1][k], depz.successor(v, k));
+            }
+        }
+    }
+
+    @Test
+    public void testMakefileErrors() throws IOException {
+        assertEquals("Error: Bad target: 'b=q'",
+                     readError("a: b\n  x\nb=q: c\n"));
+        assertEquals("Error: Bad target: 'a#b'",
+                     readError("#x: y\na#b: c\n"));
+        assertEquals("Error: One or more bad prerequisites: 'b = c'",
+                     readError("a: b = c  \n"));
+        assertEquals("Error: One or more bad prerequisites: 'b:c'",
+                     readError("a:b:c\n"));
+        assertEquals("Error: Erroneous input line: '  cmd'",
+                     readError("  cmd\n"));
+        assertEquals("Error: Erroneous input line: 'a b: c'",
+                     readError("a b: c\n"));
+        assertEquals("Error: Erroneous input line: ':a'", readError(":a\n"));
+        try {
+            readText("a: b\n x\na:\n y\n");
+            fail("second command list accepted");
+        } catch (IllegalStateException excp) {
+            return;
+        }
+    }
+
+    /** Returns the lines of TEXT, sorted. */
+    private static List<String> sortedLines(String text) {
+        List<String> lines =
+            new ArrayList<>(Arrays.asList(text.split("\\R")));
+        lines.sort(null);
+        return lines;
+    }
+
+    /** Write TEXT to FILE. */
+    private static void write(File file, String text) throws IOException {
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.print(text);
+        }
+    }
+
+    @Test
+    public void testBuildCache() throws IOException {
+        File makefile = File.createTempFile("make", ".mk");
+        File fileinfo = File.createTempFile("make", ".dir");
+        File cache = File.createTempFile("make", ".cache");
+        cache.delete();
+        try {
+            write(makefile, "all: a b\n  build all\na: a.o\n  build a\n"
+                  + "b: b.o\n  build b\na.o: a.c\n  build a.o\n"
+                  + "b.o: b.c\n  build b.o\n");
+            String[] runs = {
+                "100\na.c 10\nb.c 10\n",
+                "200\na.c 150\nb.c 10\na.o 100\nb.o 100\na 100\n"
+                + "b 100\nall 100\n",
+                "300\na.c 150\nb.c 10\na.o 200\nb.o 100\na 200\n"
+                + "b 100\nall 200\n",
+                "400\na.c 150\nb.c 350\na.o 200\nb.o 100\na 200\n"
+                + "b 100\nall 200\n",
+            };
+            List<String> targets = Arrays.asList("all");
+            for (int jobs = 1; jobs <= 2; jobs += 1) {
+                cache.delete();
+                for (String info : runs) {
+                    write(fileinfo, info);
+                    assertEquals(sortedLines(makeOutput(makefile, fileinfo,
+                                                        targets, 1)),
+                                 sortedLines(makeOutput(makefile, fileinfo,
+                                                        targets, jobs,
+                                                        cache)));
+                    assertTrue(cache.exists());
+                }
+            }
+            write(makefile, "all: a b\n  build all\na: a.o\n  build a\n"
+                  + "b: b.o\n  build b\na.o: a.c\n  build a.o\n"
+                  + "b.o: b.c\n  build b.o again\n");
+            write(fileinfo, "500\na.c 150\nb.c 350\na.o 200\nb.o 50\n"
+                  + "a 200\nb 100\nall 200\n");
+            assertEquals(makeOutput(makefile, fileinfo, targets, 1),
+                         makeOutput(makefile, fileinfo, targets, 1, cache));
+            String xy = "x: y\n  build x\ny: z\n  build y\n";
+            String[][] dropX = {
+                { xy, "100\nz 10\n" },
+                { "y: z\n  build y\n", "200\nz 150\ny 100\nx 100\n" },
+                { xy, "300\nz 150\ny 200\nx 100\n" },
+            };
+            cache.delete();
+            for (String[] run : dropX) {
+                write(makefile, run[0]);
+                write(fileinfo, run[1]);
+                targets = Arrays.asList(run[0].substring(0, 1));
+                assertEquals(makeOutput(makefile, fileinfo, targets, 1),
+                             makeOutput(makefile, fileinfo, targets, 1,
+                                        cache));
+            }
+            write(cache, "not a cache");
+            try {
+                makeOutput(makefile, fileinfo, targets, 1, cache);
+                fail("bad cache accepted");
+            } catch (IllegalArgumentException excp) {
+                assertTrue(excp.getMessage().contains("build cache"));
+            }
+        } finally {
+            makefile.delete();
+            fileinfo.delete();
+            cache.delete();
+        }
+    }
+
 }
@@ -0,0 +1,833 @@
+package trip;
+
+import graph.LabeledGraph;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static trip.Main.error;
+
+/** A contraction hierarchy over a static edge-weighted graph, answering
+ *  point-to-point shortest-path queries by two small upward searches.
+ *  Preprocessing contracts the vertices one at a time, cheapest first
+ *  (fewest shortcuts added less edges removed, plus the number of
+ *  neighbors already contracted).  Contracting V adds a shortcut U->W
+ *  with middle vertex V whenever U->V->W is the only shortest path from U
+ *  to W among the vertices that remain, as judged by a bounded local
+ *  search.  A query searches forward from the source and backward from
+ *  the destination along edges that lead to later-contracted vertices
+ *  only, then unpacks the shortcuts on the best meeting path, so paths
+ *  come back as sequences of original vertices.  A hierarchy can be
+ *  written to a file and read back for the same graph.  The file records
+ *  a digest of the graph (its vertex numbering, edge ends, and weights),
+ *  so that a hierarchy built for an earlier version of a graph is not
+ *  used with a later one.
+ *  @author Netra Sathe
+ */
+class ContractionHierarchy {
+
+    /** Magic number at the start of a hierarchy file. */
+    private static final int MAGIC = 0x43480001;
+    /** Current version of the hierarchy file format. */
+    private static final int VERSION = 2;
+
+    /** Initial value of an FNV-1a digest. */
+    private static final long FNV_BASIS = 0xcbf29ce484222325L;
+    /** Multiplier of an FNV-1a digest. */
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /** Maximum number of vertices settled by one witness search.  A
+     *  search cut short may add an unneeded shortcut, but never omits a
+     *  needed one. */
+    private static final int WITNESS_LIMIT = 500;
+
+    /** A hierarchy for G, whose edge weights are the weights G records. */
+    ContractionHierarchy(LabeledGraph<?, ?> G) {
+        n = G.maxVertex();
+        digest = digest(G);
+        rank = new int[n + 1];
+        new Builder(G).build();
+        initWorkspace();
+    }
+
+    /** A hierarchy of N vertices for a graph whose digest is DIGEST,
+     *  whose arrays are to be filled in by read. */
+    private ContractionHierarchy(int n, long digest) {
+        this.n = n;
+        this.digest = digest;
+        rank = new int[n + 1];
+    }
+
+    /** Returns the hierarchy stored in the file named NAME by write, or
+     *  null if it was stored in an older format or for a graph other than
+     *  G: one that differs in vertex numbering, edges, or weights. */
+    static ContractionHierarchy read(String name, LabeledGraph<?, ?> G) {
+        long limit = new File(name).length() / Integer.BYTES;
+        try (DataInputStream inp = new DataInputStream(
+                 new BufferedInputStream(new FileInputStream(name)))) {
+            if (inp.readInt() != MAGIC) {
+                error("%s is not a hierarchy file", name);
+            }
+            if (inp.readInt() != VERSION) {
+                return null;
+            }
+            long digest = inp.readLong();
+            if (digest != digest(G)) {
+                return null;
+            }
+            if (inp.readInt() != G.maxVertex()) {
+                error("%s is not a hierarchy file", name);
+            }
+            ContractionHierarchy result =
+                new ContractionHierarchy(G.maxVertex(), digest);
+            int n = result.n;
+            readInts(inp, result.rank);
+            result.upStart = readInts(inp, new int[n + 2]);
+            result.upTo = readInts(inp, new int[length(inp, limit, name)]);
+            result.upMid = readInts(inp, new int[result.upTo.length]);
+            result.upW = readDoubles(inp, new double[result.upTo.length]);
+            result.downStart = readInts(inp, new int[n + 2]);
+            result.downFrom =
+                readInts(inp, new int[length(inp, limit, name)]);
+            result.downMid = readInts(inp, new int[result.downFrom.length]);
+            result.downW =
+                readDoubles(inp, new double[result.downFrom.length]);
+            if (!result.isValid()) {
+                error("%s is not a hierarchy file", name);
+            }
+            result.initWorkspace();
+            return result;
+        } catch (EOFException excp) {
+            error("%s is not a hierarchy file", name);
+            return null;
+        } catch (IOException excp) {
+            error("could not read hierarchy %s", name);
+            return null;
+        }
+    }
+
+    /** Returns the next int of INP, the length of an array in the
+     *  hierarchy file NAME, after checking that it is between 0 and
+     *  LIMIT, the number of ints that fit in the file. */
+    private static int length(DataInputStream inp, long limit, String name)
+        throws IOException {
+        int k = inp.readInt();
+        if (k < 0 || k > limit) {
+            error("%s is not a hierarchy file", name);
+        }
+        return k;
+    }
+
+    /** Returns a 64-bit digest (FNV-1a) of G's vertex numbering and of
+     *  the ends and weights of its edges, in order. */
+    private static long digest(LabeledGraph<?, ?> G) {
+        long h = digest(digest(FNV_BASIS, G.maxVertex()), G.edgeSize());
+        for (int v = 1; v <= G.maxVertex(); v += 1) {
+            if (!G.contains(v)) {
+                h = digest(h, -1);
+                continue;
+            }
+            int d = G.outDegree(v);
+            h = digest(h, d);
+            for (int k = 0; k < d; k += 1) {
+                double w = G.successorWeight(v, k);
+                h = digest(h, G.successor(v, k));
+                h = digest(h, Double.doubleToLongBits(w));
+            }
+        }
+        return h;
+    }
+
+    /** Returns the FNV-1a digest H extended by the 8 bytes of X. */
+    private static long digest(long h, long x) {
+        for (int i = 0; i < Long.BYTES; i += 1) {
+            h = (h ^ (x & 0xff)) * FNV_PRIME;
+            x >>>= 8;
+        }
+        return h;
+    }
+
+    /** Store me in the file named NAME. */
+    void write(String name) {
+        try (DataOutputStream out = new DataOutputStream(
+                 new BufferedOutputStream(new FileOutputStream(name)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(digest);
+            out.writeInt(n);
+            writeInts(out, rank);
+            writeInts(out, upStart);
+            out.writeInt(upTo.length);
+            writeInts(out, upTo);
+            writeInts(out, upMid);
+            writeDoubles(out, upW);
+            writeInts(out, downStart);
+            out.writeInt(downFrom.length);
+            writeInts(out, downFrom);
+            writeInts(out, downMid);
+            writeDoubles(out, downW);
+        } catch (IOException excp) {
+            error("could not write hierarchy %s", name);
+        }
+    }
+
+    /** Returns the number of shortcut edges I added to my graph. */
+    int shortcuts() {
+        int count = 0;
+        for (int mid : upMid) {
+            count += mid == 0 ? 0 : 1;
+        }
+        for (int mid : downMid) {
+            count += mid == 0 ? 0 : 1;
+        }
+        return count;
+    }
+
+    /** Returns the weight of a shortest path from S to T, or positive
+     *  infinity if there is none. */
+    double distance(int s, int t) {
+        return search(s, t).best;
+    }
+
+    /** Returns the vertices of a shortest path from S to T, starting with
+     *  S and ending with T, or a list containing only T if there is no
+     *  such path (as for ShortestPaths.pathTo). */
+    List<Integer> path(int s, int t) {
+        Workspace ws = search(s, t);
+        ArrayList<Integer> result = new ArrayList<>();
+        if (ws.meet == 0) {
+            result.add(t);
+            return result;
+        }
+        ArrayList<Integer> down = new ArrayList<>();
+        for (int v = ws.meet; v != s; v = ws.predF[v]) {
+            down.add(v);
+        }
+        result.add(s);
+        int u = s;
+        for (int i = down.size() - 1; i >= 0; i -= 1) {
+            int v = down.get(i);
+            unpack(u, v, upMid[ws.arcF[v]], result);
+            u = v;
+        }
+        for (int v = ws.meet; v != t; v = ws.predB[v]) {
+            unpack(v, ws.predB[v], downMid[ws.arcB[v]], result);
+        }
+        return result;
+    }
+
+    /** Append to RESULT the vertices after U on the path represented by the
+     *  edge U->W whose middle vertex is MID (0 for an original edge). */
+    private void unpack(int u, int w, int mid, List<Integer> result) {
+        int[] stack = new int[3 * 16];
+        int sp = 0;
+        stack[sp] = u;
+        stack[sp + 1] = w;
+        stack[sp + 2] = mid;
+        sp += 3;
+        while (sp > 0) {
+            sp -= 3;
+            int a = stack[sp], b = stack[sp + 1], m = stack[sp + 2];
+            if (m == 0) {
+                result.add(b);
+                continue;
+            }
+            if (sp + 6 > stack.length) {
+                stack = Arrays.copyOf(stack, 2 * stack.length);
+            }
+            stack[sp] = m;
+            stack[sp + 1] = b;
+            stack[sp + 2] = upMid[findUp(m, b)];
+            stack[sp + 3] = a;
+            stack[sp + 4] = m;
+            stack[sp + 5] = downMid[findDown(m, a)];
+            sp += 6;
+        }
+    }
+
+    /** Returns the index of the upward edge V->W. */
+    private int findUp(int v, int w) {
+        for (int k = upStart[v]; k < upStart[v + 1]; k += 1) {
+            if (upTo[k] == w) {
+                return k;
+            }
+        }
+        throw new IllegalStateException("missing hierarchy edge");
+    }
+
+    /** Returns the index of the downward edge U->V, stored with V. */
+    private int findDown(int v, int u) {
+        for (int k = downStart[v]; k < downStart[v + 1]; k += 1) {
+            if (downFrom[k] == u) {
+                return k;
+            }
+        }
+        throw new IllegalStateException("missing hierarchy edge");
+    }
+
+    /** Run the upward searches from S and T in this thread's workspace,
+     *  and return the workspace. */
+    private Workspace search(int s, int t) {
+        Workspace ws = workspace.get();
+        ws.reset();
+        ws.best = Double.POSITIVE_INFINITY;
+        ws.meet = 0;
+        ws.labelF(s, 0.0, 0, -1);
+        ws.labelB(t, 0.0, 0, -1);
+        ws.meet(s);
+        boolean forward = true;
+        while (!ws.fwd.isEmpty() || !ws.bwd.isEmpty()) {
+            if (ws.fwd.isEmpty() || ws.fwd.minKey() >= ws.best) {
+                ws.fwd.clear();
+            }
+            if (ws.bwd.isEmpty() || ws.bwd.minKey() >= ws.best) {
+                ws.bwd.clear();
+            }
+            if (forward && !ws.fwd.isEmpty()) {
+                int u = ws.fwd.poll();
+                if (ws.settledF(u)) {
+                    continue;
+                }
+                for (int k = upStart[u]; k < upStart[u + 1]; k += 1) {
+                    ws.labelF(upTo[k], ws.distF[u] + upW[k], u, k);
+                }
+            } else if (!forward && !ws.bwd.isEmpty()) {
+                int u = ws.bwd.poll();
+                if (ws.settledB(u)) {
+                    continue;
+                }
+                for (int k = downStart[u]; k < downStart[u + 1]; k += 1) {
+                    ws.labelB(downFrom[k], ws.distB[u] + downW[k], u, k);
+                }
+            }
+            forward = !forward;
+        }
+        return ws;
+    }
+
+    /** Returns true iff my arrays, as read from a file, are consistent:
+     *  every rank and vertex number is in range, and each vertex's edges
+     *  are a part of the edge arrays, in order. */
+    private boolean isValid() {
+        return inRange(rank, 1, 1, n)
+            && isStarts(upStart, upTo.length)
+            && isStarts(downStart, downFrom.length)
+            && inRange(upTo, 0, 1, n) && inRange(upMid, 0, 0, n)
+            && inRange(downFrom, 0, 1, n) && inRange(downMid, 0, 0, n);
+    }
+
+    /** Returns true iff A[FROM], A[FROM+1], ... are all in LO .. HI. */
+    private static boolean inRange(int[] a, int from, int lo, int hi) {
+        for (int i = from; i < a.length; i += 1) {
+            if (a[i] < lo || a[i] > hi) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true iff START is non-decreasing from 0 to LENGTH. */
+    private static boolean isStarts(int[] start, int length) {
+        if (start[0] != 0 || start[start.length - 1] != length) {
+            return false;
+        }
+        for (int i = 1; i < start.length; i += 1) {
+            if (start[i] < start[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Set up the per-thread query workspaces. */
+    private void initWorkspace() {
+        workspace = ThreadLocal.withInitial(Workspace::new);
+    }
+
+    /** Fill A from INP and return it. */
+    private static int[] readInts(DataInputStream inp, int[] a)
+        throws IOException {
+        for (int i = 0; i < a.length; i += 1) {
+            a[i] = inp.readInt();
+        }
+        return a;
+    }
+
+    /** Fill A from INP and return it. */
+    private static double[] readDoubles(DataInputStream inp, double[] a)
+        throws IOException {
+        for (int i = 0; i < a.length; i += 1) {
+            a[i] = inp.readDouble();
+        }
+        return a;
+    }
+
+    /** Write A to OUT. */
+    private static void writeInts(DataOutputStream out, int[] a)
+        throws IOException {
+        for (int x : a) {
+            out.writeInt(x);
+        }
+    }
+
+    /** Write A to OUT. */
+    private static void writeDoubles(DataOutputStream out, double[] a)
+        throws IOException {
+        for (double x : a) {
+            out.writeDouble(x);
+        }
+    }
+
+    /** A binary min-heap of vertices keyed by doubles, each vertex in it
+     *  at most once.  The key of a vertex in the heap may be lowered. */
+    private static class Heap {
+        /** An empty heap of vertices in 1 .. N. */
+        Heap(int n) {
+            pos = new int[n + 1];
+        }
+
+        /** Returns true iff I am empty. */
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /** Returns the smallest key in me, which must be non-empty. */
+        double minKey() {
+            return keys[0];
+        }
+
+        /** Add V with key KEY, or give V key KEY if V is already in me,
+         *  in which case KEY must not exceed its present key. */
+        void put(int v, double key) {
+            int i = pos[v] - 1;
+            if (i < 0) {
+                if (size == items.length) {
+                    items = Arrays.copyOf(items, 2 * size);
+                    keys = Arrays.copyOf(keys, 2 * size);
+                }
+                i = size;
+                size += 1;
+            }
+            while (i > 0 && keys[(i - 1) / 2] > key) {
+                place(i, items[(i - 1) / 2], keys[(i - 1) / 2]);
+                i = (i - 1) / 2;
+            }
+            place(i, v, key);
+        }
+
+        /** Remove and return the vertex with the smallest key. */
+        int poll() {
+            int result = items[0];
+            pos[result] = 0;
+            size -= 1;
+            if (size == 0) {
+                return result;
+            }
+            int v = items[size];
+            double key = keys[size];
+            int i = 0;
+            while (2 * i + 1 < size) {
+                int c = 2 * i + 1;
+                if (c + 1 < size && keys[c + 1] < keys[c]) {
+                    c += 1;
+                }
+                if (keys[c] >= key) {
+                    break;
+                }
+                place(i, items[c], keys[c]);
+                i = c;
+            }
+            place(i, v, key);
+            return result;
+        }
+
+        /** Remove everything, in time proportional to my size. */
+        void clear() {
+            for (int i = 0; i < size; i += 1) {
+                pos[items[i]] = 0;
+            }
+            size = 0;
+        }
+
+        /** Put V, with key KEY, at position I. */
+        private void place(int i, int v, double key) {
+            items[i] = v;
+            keys[i] = key;
+            pos[v] = i + 1;
+        }
+
+        /** Heap-ordered vertices. */
+        private int[] items = new int[16];
+        /** keys[I] is the key of items[I]. */
+        private double[] keys = new double[16];
+        /** pos[V] is 1 + the position of V, or 0 if V is absent. */
+        private final int[] pos;
+        /** Number of entries. */
+        private int size;
+    }
+
+    /** The state of one query, reused by the queries of one thread.  Its
+     *  arrays are valid at vertex V only where stamp[V] is the current
+     *  epoch, so resetting it takes constant time. */
+    private class Workspace {
+        /** Returns true iff V has a label from the forward search. */
+        boolean hasF(int v) {
+            return stampF[v] == epoch;
+        }
+
+        /** Returns true iff V has a label from the backward search. */
+        boolean hasB(int v) {
+            return stampB[v] == epoch;
+        }
+
+        /** Invalidate all labels. */
+        void reset() {
+            epoch += 1;
+            fwd.clear();
+            bwd.clear();
+        }
+
+        /** Give V forward distance D through edge K from U, if that is an
+         *  improvement. */
+        void labelF(int v, double d, int u, int k) {
+            if (!hasF(v) || d < distF[v]) {
+                stampF[v] = epoch;
+                doneF[v] = false;
+                distF[v] = d;
+                predF[v] = u;
+                arcF[v] = k;
+                fwd.put(v, d);
+                meet(v);
+            }
+        }
+
+        /** Give V backward distance D through edge K to U, if that is an
+         *  improvement. */
+        void labelB(int v, double d, int u, int k) {
+            if (!hasB(v) || d < distB[v]) {
+                stampB[v] = epoch;
+                doneB[v] = false;
+                distB[v] = d;
+                predB[v] = u;
+                arcB[v] = k;
+                bwd.put(v, d);
+                meet(v);
+            }
+        }
+
+        /** Mark V settled forward; returns true iff it already was. */
+        boolean settledF(int v) {
+            boolean was = doneF[v];
+            doneF[v] = true;
+            return was;
+        }
+
+        /** Mark V settled backward; returns true iff it already was. */
+        boolean settledB(int v) {
+            boolean was = doneB[v];
+            doneB[v] = true;
+            return was;
+        }
+
+        /** Record V as the meeting vertex if its path is the best yet. */
+        void meet(int v) {
+            if (hasF(v) && hasB(v) && distF[v] + distB[v] < best) {
+                best = distF[v] + distB[v];
+                meet = v;
+            }
+        }
+
+        /** Current epoch. */
+        private int epoch;
+        /** Epochs in which the labels of each vertex were set. */
+        private final int[] stampF = new int[n + 1], stampB = new int[n + 1];
+        /** Settled flags, valid where stamped. */
+        private final boolean[] doneF = new boolean[n + 1],
+            doneB = new boolean[n + 1];
+        /** Distances from the source and to the destination. */
+        private final double[] distF = new double[n + 1],
+            distB = new double[n + 1];
+        /** Neighbors toward the source and toward the destination. */
+        private final int[] predF = new int[n + 1], predB = new int[n + 1];
+        /** Edges leading to those neighbors. */
+        private final int[] arcF = new int[n + 1], arcB = new int[n + 1];
+        /** The two fringes. */
+        private final Heap fwd = new Heap(n), bwd = new Heap(n);
+        /** Weight of the best path found. */
+        private double best;
+        /** Meeting vertex of that path, or 0. */
+        private int meet;
+    }
+
+    /** The edges out of or into one vertex of the graph being contracted,
+     *  in parallel arrays: edge K joins the vertex to end[K], has weight
+     *  w[K], and has middle vertex mid[K] (0 for an original edge). */
+    private static class Arcs {
+        /** Returns the position of the edge joining me to X, or -1 if
+         *  there is none. */
+        int find(int x) {
+            for (int k = 0; k < size; k += 1) {
+                if (end[k] == x) {
+                    return k;
+                }
+            }
+            return -1;
+        }
+
+        /** Add an edge joining me to X, of weight W0 and with middle
+         *  vertex MID0. */
+        void add(int x, double w0, int mid0) {
+            if (size == end.length) {
+                end = Arrays.copyOf(end, 2 * size);
+                w = Arrays.copyOf(w, 2 * size);
+                mid = Arrays.copyOf(mid, 2 * size);
+            }
+            end[size] = x;
+            w[size] = w0;
+            mid[size] = mid0;
+            size += 1;
+        }
+
+        /** Give the edge at position K weight W0 and middle vertex MID0. */
+        void set(int k, double w0, int mid0) {
+            w[k] = w0;
+            mid[k] = mid0;
+        }
+
+        /** Remove the edge joining me to X, which must exist, moving my
+         *  last edge into its place. */
+        void remove(int x) {
+            int k = find(x);
+            size -= 1;
+            end[k] = end[size];
+            w[k] = w[size];
+            mid[k] = mid[size];
+        }
+
+        /** Other ends of my edges. */
+        private int[] end = new int[4];
+        /** Weights of my edges. */
+        private double[] w = new double[4];
+        /** Middle vertices of my edges. */
+        private int[] mid = new int[4];
+        /** Number of edges. */
+        private int size;
+    }
+
+    /** The state of preprocessing. */
+    private class Builder {
+        /** A builder for a hierarchy of G. */
+        Builder(LabeledGraph<?, ?> G) {
+            out = new Arcs[n + 1];
+            in = new Arcs[n + 1];
+            for (int v = 1; v <= n; v += 1) {
+                out[v] = new Arcs();
+                in[v] = new Arcs();
+            }
+            for (int v = 1; v <= n; v += 1) {
+                if (!G.contains(v)) {
+                    continue;
+                }
+                for (int w : G.successors(v)) {
+                    if (w != v) {
+                        addArc(v, w, G.getWeight(v, w), 0);
+                    }
+                }
+            }
+            deleted = new int[n + 1];
+            wdist = new double[n + 1];
+            wstamp = new int[n + 1];
+            witness = new Heap(n);
+        }
+
+        /** Contract every vertex and fill in my hierarchy's arrays. */
+        void build() {
+            PriorityQueue<long[]> queue = new PriorityQueue<>(
+                (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0])
+                          : Long.compare(a[1], b[1]));
+            for (int v = 1; v <= n; v += 1) {
+                queue.add(new long[] { priority(v), v });
+            }
+            int order = 0;
+            while (!queue.isEmpty()) {
+                int v = (int) queue.poll()[1];
+                long p = priority(v);
+                if (!queue.isEmpty() && p > queue.peek()[0]) {
+                    queue.add(new long[] { p, v });
+                    continue;
+                }
+                order += 1;
+                rank[v] = order;
+                contract(v);
+            }
+            upStart = new int[n + 2];
+            downStart = new int[n + 2];
+            for (int v = 1; v <= n; v += 1) {
+                upStart[v + 1] = upStart[v] + out[v].size;
+                downStart[v + 1] = downStart[v] + in[v].size;
+            }
+            upTo = new int[upStart[n + 1]];
+            upMid = new int[upTo.length];
+            upW = new double[upTo.length];
+            downFrom = new int[downStart[n + 1]];
+            downMid = new int[downFrom.length];
+            downW = new double[downFrom.length];
+            for (int v = 1; v <= n; v += 1) {
+                Arcs up = out[v], down = in[v];
+                System.arraycopy(up.end, 0, upTo, upStart[v], up.size);
+                System.arraycopy(up.w, 0, upW, upStart[v], up.size);
+                System.arraycopy(up.mid, 0, upMid, upStart[v], up.size);
+                System.arraycopy(down.end, 0, downFrom, downStart[v],
+                                 down.size);
+                System.arraycopy(down.w, 0, downW, downStart[v], down.size);
+                System.arraycopy(down.mid, 0, downMid, downStart[v],
+                                 down.size);
+            }
+        }
+
+        /** Returns the current contraction priority of V. */
+        private long priority(int v) {
+            int added = shortcutsFor(v, false);
+            return added - out[v].size - in[v].size + deleted[v];
+        }
+
+        /** Remove V from the graph being contracted, adding the shortcuts
+         *  this requires.  V's own edges are left in out[V] and in[V]; all
+         *  lead to vertices contracted later, and no longer change. */
+        private void contract(int v) {
+            shortcutsFor(v, true);
+            for (int k = 0; k < out[v].size; k += 1) {
+                int w = out[v].end[k];
+                in[w].remove(v);
+                deleted[w] += 1;
+            }
+            for (int k = 0; k < in[v].size; k += 1) {
+                int u = in[v].end[k];
+                out[u].remove(v);
+                deleted[u] += 1;
+            }
+        }
+
+        /** Returns the number of shortcuts that contracting V requires,
+         *  adding them iff ADD. */
+        private int shortcutsFor(int v, boolean add) {
+            Arcs into = in[v], from = out[v];
+            int count = 0;
+            for (int j = 0; j < into.size; j += 1) {
+                int u = into.end[j];
+                double wu = into.w[j];
+                double limit = 0.0;
+                for (int k = 0; k < from.size; k += 1) {
+                    limit = Math.max(limit, wu + from.w[k]);
+                }
+                witnessSearch(u, v, limit);
+                for (int k = 0; k < from.size; k += 1) {
+                    int w = from.end[k];
+                    if (w == u) {
+                        continue;
+                    }
+                    double d = wu + from.w[k];
+                    if (wstamp[w] == wepoch && wdist[w] <= d) {
+                        continue;
+                    }
+                    count += 1;
+                    if (add) {
+                        addArc(u, w, d, v);
+                    }
+                }
+            }
+            return count;
+        }
+
+        /** Find distances from U, avoiding V, of up to LIMIT, settling at
+         *  most WITNESS_LIMIT vertices. */
+        private void witnessSearch(int u, int v, double limit) {
+            wepoch += 1;
+            witness.clear();
+            wdist[u] = 0.0;
+            wstamp[u] = wepoch;
+            witness.put(u, 0.0);
+            int settled = 0;
+            while (!witness.isEmpty() && settled < WITNESS_LIMIT) {
+                int x = witness.poll();
+                double d = wdist[x];
+                if (d > limit) {
+                    break;
+                }
+                settled += 1;
+                Arcs from = out[x];
+                for (int k = 0; k < from.size; k += 1) {
+                    int y = from.end[k];
+                    double dy = d + from.w[k];
+                    if (y != v && (wstamp[y] != wepoch || dy < wdist[y])) {
+                        wstamp[y] = wepoch;
+                        wdist[y] = dy;
+                        witness.put(y, dy);
+                    }
+                }
+            }
+        }
+
+        /** Add edge U->W of weight D and middle vertex MID, unless there
+         *  is already one at least as light. */
+        private void addArc(int u, int w, double d, int mid) {
+            int k = out[u].find(w);
+            if (k < 0) {
+                out[u].add(w, d, mid);
+                in[w].add(u, d, mid);
+            } else if (d < out[u].w[k]) {
+                out[u].set(k, d, mid);
+                in[w].set(in[w].find(u), d, mid);
+            }
+        }
+
+        /** Edges out of and into each vertex: for an uncontracted vertex,
+         *  those in the graph being contracted, and for a contracted one,
+         *  those it had when contracted. */
+        private final Arcs[] out, in;
+        /** Number of contracted neighbors of each vertex. */
+        private final int[] deleted;
+        /** Witness-search distances, valid where wstamp is wepoch. */
+        private final double[] wdist;
+        /** Witness-search stamps. */
+        private final int[] wstamp;
+        /** Current witness-search epoch. */
+        private int wepoch;
+        /** Witness-search fringe. */
+        private final Heap witness;
+    }
+
+    /** My maximum vertex number. */
+    private final int n;
+    /** Digest of my graph, used to check that a stored hierarchy fits the
+     *  map. */
+    private final long digest;
+    /** Contraction order of each vertex, from 1. */
+    private final int[] rank;
+    /** Upward edges out of V are (V, upTo[K]) for K in
+     *  [upStart[V] .. upStart[V+1]-1], of weight upW[K] and with middle
+     *  vertex upMid[K] (0 for an original edge). */
+    private int[] upStart, upTo, upMid;
+    /** Weights of upward edges. */
+    private double[] upW;
+    /** Downward edges into V are (downFrom[K], V) for K in
+     *  [downStart[V] .. downStart[V+1]-1], of weight downW[K] and with
+     *  middle vertex downMid[K]. */
+    private int[] downStart, downFrom, downMid;
+    /** Weights of downward edges. */
+    private double[] downW;
+    /** Per-thread query state. */
+    private ThreadLocal<Workspace> workspace;
+}
@@ -0,0 +1,117 @@
+package trip;
+
+import graph.LabeledGraph;
+import graph.WeightedGraphPaths;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+import static trip.Main.error;
+
+/** Shortest-path distances from each of a set of source vertices to each
+ *  of a set of target vertices of an edge-weighted graph.  Each row is
+ *  one search from its source that stops as soon as it has settled every
+ *  target, and rows may be computed on several threads at once.  Rows
+ *  reuse their thread's pooled search state, so each costs time
+ *  proportional to the part of the graph it explores.
+ *  @author Netra Sathe
+ */
+class DistanceMatrix {
+
+    /** A matrix of distances in G, whose edge weights are those G
+     *  records, from SOURCES[i] (row i) to TARGETS[j] (column j). */
+    DistanceMatrix(LabeledGraph<?, ?> G, int[] sources, int[] targets) {
+        _G = G;
+        _sources = sources.clone();
+        _targets = targets.clone();
+        _isTarget = new boolean[G.maxVertex() + 1];
+        for (int t : targets) {
+            if (!_isTarget[t]) {
+                _isTarget[t] = true;
+                _distinct += 1;
+            }
+        }
+    }
+
+    /** Returns my distances as a dense array indexed [row][column],
+     *  computing up to PARALLELISM rows at once.  Unreachable targets are
+     *  at positive infinity. */
+    double[][] compute(int parallelism) {
+        double[][] result = new double[_sources.length][];
+        if (parallelism <= 1) {
+            for (int i = 0; i < _sources.length; i += 1) {
+                result[i] = row(_sources[i]);
+            }
+            return result;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ArrayList<Future<double[]>> rows = new ArrayList<>();
+            for (int s : _sources) {
+                rows.add(pool.submit(() -> row(s)));
+            }
+            for (int i = 0; i < _sources.length; i += 1) {
+                result[i] = rows.get(i).get();
+            }
+        } catch (ExecutionException excp) {
+            if (excp.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) excp.getCause();
+            }
+            throw new IllegalStateException(excp.getCause());
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            error("distance matrix interrupted");
+        } finally {
+            pool.shutdownNow();
+        }
+        return result;
+    }
+
+    /** Returns the distances from S to each of my targets. */
+    private double[] row(int s) {
+        Row search = new Row(s);
+        search.setPaths();
+        double[] result = new double[_targets.length];
+        for (int j = 0; j < _targets.length; j += 1) {
+            double w = search.getWeight(_targets[j]);
+            result[j] = w == Double.MAX_VALUE ? Double.POSITIVE_INFINITY : w;
+        }
+        search.release();
+        return result;
+    }
+
+    /** One row's search, which ends when all targets are settled.  Every
+     *  vertex labeled when it ends has then been settled, unless all
+     *  targets have, so the targets' weights are final either way. */
+    private class Row extends WeightedGraphPaths {
+        /** A search from S. */
+        Row(int s) {
+            super(_G, s);
+            remaining = _distinct;
+        }
+
+        @Override
+        protected boolean settled(int v) {
+            if (v < _isTarget.length && _isTarget[v]) {
+                remaining -= 1;
+            }
+            return remaining > 0;
+        }
+
+        /** Number of targets not yet settled. */
+        private int remaining;
+    }
+
+    /** The graph. */
+    private final LabeledGraph<?, ?> _G;
+    /** Source of each row. */
+    private final int[] _sources;
+    /** Target of each column. */
+    private final int[] _targets;
+    /** Marks the targets, shared (read-only) by all rows. */
+    private final boolean[] _isTarget;
+    /** Number of distinct targets. */
+    private int _distinct;
+}
@@ -26,6 +26,16 @@ class Location {
         return x.dist(y);
     }
 
+    /** Returns my x coordinate. */
+    double x() {
+        return locx;
+    }
+
+    /** Returns my y coordinate. */
+    double y() {
+        return locy;
+    }
+
     @Override
     public String toString() {
         return stringname;
@@ -19,17 +19,26 @@ public final class Main {
 
     /** Entry point for the CS61B trip program.  RAWARGS may contain options
      *  and targets:
-     *      [ -m MAP ] [ -o OUT ] [ REQUEST ]
-     *  where MAP (default Map) contains the map data, OUT (default standard
+     *      [ -m MAP ] [ -o OUT ] [ -c HIERARCHY ] [ -j N ] [ -d ] [ REQUEST ]
+     *  where MAP (default Map) contains the map data (as text, or in the
+     *  binary form produced by trip.MapFile), OUT (default standard
      *  output) takes the result, and REQUEST (default standard input) contains
-     *  the locations along the requested trip.
+     *  the locations along the requested trip.  With -c, routes come from
+     *  a contraction hierarchy of MAP stored in HIERARCHY, which is
+     *  created if it does not exist and rebuilt if MAP has changed since
+     *  it was.  With -j, up to N legs of the trip are planned at once
+     *  (default 1).  With -d, the result is instead a table of the
+     *  distances between each pair of requested locations, with up to N
+     *  of its rows computed at once.
      */
     public static void main(String... rawArgs) {
         String mapFileName;
         String outFileName;
+        String hierarchyName;
         List<String> targets;
         CommandArgs args =
-                new CommandArgs("-m={0,1} -o={0,1} --={2,}", rawArgs);
+                new CommandArgs("-m={0,1} -o={0,1} -c={0,1} -j={0,1}"
+                    + " -d --={2,}", rawArgs);
 
         if (!args.ok()) {
             usage();
@@ -37,6 +46,13 @@ public final class Main {
 
         mapFileName = args.getFirst("-m", "Map");
         outFileName = args.getFirst("-o");
+        hierarchyName = args.getFirst("-c");
+        int parallelism = 1;
+        try {
+            parallelism = Integer.parseInt(args.getFirst("-j", "1"));
+        } catch (NumberFormatException excp) {
+            usage();
+        }
         targets = args.get("--");
 
         setFiles(outFileName);
@@ -44,8 +60,16 @@ public final class Main {
         Trip trip = new Trip();
 
         try {
+            trip.setParallelism(parallelism);
             trip.readMap(mapFileName);
-            trip.makeTrip(targets);
+            if (hierarchyName != null) {
+                trip.useHierarchy(hierarchyName);
+            }
+            if (args.contains("-d")) {
+                trip.printDistances(targets);
+            } else {
+                trip.makeTrip(targets);
+            }
         } catch (IllegalArgumentException excp) {
             System.err.printf("trip: %s%n", excp.getMessage());
             System.exit(1);
@@ -79,7 +103,7 @@ public final class Main {
     /** Print a brief usage message and exit program abnormally. */
     private static void usage() {
         System.err.printf("Usage: java trip.Main [ -m MAPFILE ] [ -o OUTFILE ]"
-                + " [ REQUESTFILE ]%n");
+                + " [ -c HIERARCHY ] [ -j N ] [ -d ] [ REQUESTFILE ]%n");
         System.exit(1);
     }
 
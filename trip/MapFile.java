@@ -0,0 +1,354 @@
+package trip;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import static trip.Main.error;
+
+/** Reads and writes maps in a compact binary format, which is used in
+ *  place, without any parsing or building.  All numbers are big-endian.
+ *  A file contains
+ *      MAGIC, VERSION, L (number of locations), R (number of road
+ *          segments, counting each direction separately), S (number of
+ *          distinct names), as ints;
+ *  followed by these arrays, each starting at a multiple of ALIGN bytes
+ *  from the start of the file:
+ *      S + 1 ints NAMESTART and then NAMESTART[S] bytes, where name #I is
+ *          the UTF-8 bytes NAMESTART[I] .. NAMESTART[I+1]-1;
+ *      L ints, the name of each location, by number (from 1);
+ *      L ints, the location numbers in order of name;
+ *      L doubles, the x coordinate of each location, and L doubles, the
+ *          y coordinates;
+ *      L + 1 ints START, where the segments leaving location #I are those
+ *          numbered START[I-1] .. START[I]-1;
+ *      R ints, the number of the end location of each segment; R ints,
+ *          the name of each segment; R doubles, the length of each
+ *          segment; and R bytes, the ordinal of each segment's Direction;
+ *      L + 1 ints INSTART and R ints SOURCES, where the locations that
+ *          the segments entering location #I come from are
+ *          SOURCES[INSTART[I-1] .. INSTART[I]-1].
+ *  These are the compressed-sparse-row arrays of the map's graph and of
+ *  its reverse, and read maps them into memory and uses them as they
+ *  are (see MappedMap), so loading takes time independent of the size of
+ *  the map.  Each name is stored once however many locations and roads
+ *  share it.  Segments leaving and entering a location keep the order of
+ *  the map they were written from, so routes are the same as with that
+ *  map.  Each array is mapped as a buffer of its own, and so must be
+ *  smaller than 2 GiB (MAX_SECTION bytes): for example, a map may have at
+ *  most 268,435,455 road segments.  The file as a whole may be larger.
+ *  Run as a program, this class converts a text map to this format:
+ *      java trip.MapFile TEXT-MAP BINARY-MAP
+ *  @author Netra Sathe
+ */
+final class MapFile {
+
+    /** First int of a binary map file ("TRPM"). */
+    static final int MAGIC = 0x5452504d;
+    /** Current format version. */
+    static final int VERSION = 2;
+    /** Alignment of each array in a file, in bytes. */
+    static final int ALIGN = Double.BYTES;
+    /** Maximum size of one array in a file, in bytes. */
+    static final int MAX_SECTION = Integer.MAX_VALUE;
+
+    /** Not instantiable. */
+    private MapFile() {
+    }
+
+    /** Convert the text map ARGS[0] to a binary map ARGS[1]. */
+    public static void main(String... args) {
+        if (args.length != 2) {
+            System.err.println("Usage: java trip.MapFile TEXT-MAP"
+                               + " BINARY-MAP");
+            System.exit(1);
+        }
+        try {
+            Trip trip = new Trip();
+            trip.readMap(args[0]);
+            trip.writeMap(args[1]);
+        } catch (IllegalArgumentException excp) {
+            System.err.printf("trip: %s%n", excp.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /** Returns true iff the file named NAME starts with MAGIC. */
+    static boolean isBinary(String name) {
+        try (FileChannel chan = FileChannel.open(Paths.get(name),
+                                                 StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(Integer.BYTES);
+            while (head.hasRemaining() && chan.read(head) >= 0) {
+                continue;
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        } catch (IOException excp) {
+            return false;
+        }
+    }
+
+    /** Write MAP, whose vertices must be numbered 1 .. vertexSize(), to the
+     *  file named NAME. */
+    static void write(String name, RoadMap map) {
+        int n = map.vertexSize(), r = map.edgeSize();
+        if ((long) Math.max(n + 1, r) * Double.BYTES > MAX_SECTION) {
+            error("map is too large to write to %s", name);
+        }
+        ArrayList<String> names = new ArrayList<>();
+        HashMap<String, Integer> index = new HashMap<>();
+        int[] locNames = new int[n];
+        Integer[] byName = new Integer[n];
+        for (int v = 1; v <= n; v += 1) {
+            locNames[v - 1] =
+                intern(map.getLabel(v).toString(), names, index);
+            byName[v - 1] = v;
+        }
+        Arrays.sort(byName, (v, w) -> names.get(locNames[v - 1])
+                    .compareTo(names.get(locNames[w - 1])));
+        Road[] roads = new Road[r];
+        int[] targets = new int[r], roadNames = new int[r];
+        int e = 0;
+        for (int v = 1; v <= n; v += 1) {
+            for (int w : map.successors(v)) {
+                roads[e] = map.getLabel(v, w);
+                targets[e] = w;
+                roadNames[e] = intern(roads[e].toString(), names, index);
+                e += 1;
+            }
+        }
+
+        try (Output out = new Output(
+                 new BufferedOutputStream(new FileOutputStream(name)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(n);
+            out.writeInt(r);
+            out.writeInt(names.size());
+            ArrayList<byte[]> bytes = new ArrayList<>();
+            pad(out);
+            int start = 0;
+            out.writeInt(start);
+            for (String s : names) {
+                bytes.add(s.getBytes(StandardCharsets.UTF_8));
+                start = Math.addExact(start,
+                                      bytes.get(bytes.size() - 1).length);
+                out.writeInt(start);
+            }
+            pad(out);
+            for (byte[] b : bytes) {
+                out.write(b);
+            }
+            pad(out);
+            for (int k : locNames) {
+                out.writeInt(k);
+            }
+            pad(out);
+            for (int v : byName) {
+                out.writeInt(v);
+            }
+            pad(out);
+            for (int v = 1; v <= n; v += 1) {
+                out.writeDouble(map.getLabel(v).x());
+            }
+            pad(out);
+            for (int v = 1; v <= n; v += 1) {
+                out.writeDouble(map.getLabel(v).y());
+            }
+            writeStarts(out, map, true);
+            for (int w : targets) {
+                out.writeInt(w);
+            }
+            pad(out);
+            for (int k : roadNames) {
+                out.writeInt(k);
+            }
+            pad(out);
+            for (Road rd : roads) {
+                out.writeDouble(rd.length());
+            }
+            pad(out);
+            for (Road rd : roads) {
+                out.writeByte(rd.direction().ordinal());
+            }
+            writeStarts(out, map, false);
+            for (int v = 1; v <= n; v += 1) {
+                for (int u : map.predecessors(v)) {
+                    out.writeInt(u);
+                }
+            }
+        } catch (ArithmeticException excp) {
+            error("map is too large to write to %s", name);
+        } catch (IOException excp) {
+            error("could not write map %s", name);
+        }
+    }
+
+    /** Returns the map in the binary map file NAME, which it uses in
+     *  place. */
+    static RoadMap read(String name) {
+        try (FileChannel chan = FileChannel.open(Paths.get(name),
+                                                 StandardOpenOption.READ)) {
+            Sections in = new Sections(chan, name);
+            int ints = Integer.BYTES, doubles = Double.BYTES;
+            ByteBuffer head = in.next(5, ints);
+            if (head.getInt() != MAGIC || head.getInt() != VERSION) {
+                error("%s is not a binary map", name);
+            }
+            int n = head.getInt(), r = head.getInt(), s = head.getInt();
+            ByteBuffer nameStart = in.next(s + 1, ints);
+            ByteBuffer nameBytes = in.next(nameStart.getInt(s * ints), 1);
+            ByteBuffer locName = in.next(n, ints),
+                byName = in.next(n, ints),
+                x = in.next(n, doubles),
+                y = in.next(n, doubles),
+                outStart = in.next(n + 1, ints),
+                targets = in.next(r, ints),
+                roadName = in.next(r, ints),
+                length = in.next(r, doubles),
+                dir = in.next(r, 1),
+                inStart = in.next(n + 1, ints),
+                sources = in.next(r, ints);
+            if (outStart.getInt(n * ints) != r
+                || inStart.getInt(n * ints) != r) {
+                error("%s is not a binary map", name);
+            }
+            return new MappedMap(nameStart.asIntBuffer(), nameBytes,
+                                 locName.asIntBuffer(), byName.asIntBuffer(),
+                                 x.asDoubleBuffer(), y.asDoubleBuffer(),
+                                 outStart.asIntBuffer(),
+                                 targets.asIntBuffer(),
+                                 roadName.asIntBuffer(),
+                                 length.asDoubleBuffer(), dir,
+                                 inStart.asIntBuffer(),
+                                 sources.asIntBuffer());
+        } catch (IndexOutOfBoundsException | BufferUnderflowException
+                 | ArithmeticException excp) {
+            error("%s is not a binary map", name);
+        } catch (IOException excp) {
+            error("File not found");
+        }
+        return null;
+    }
+
+    /** Pad OUT with zero bytes to a multiple of ALIGN. */
+    private static void pad(Output out) throws IOException {
+        while (out.offset() % ALIGN != 0) {
+            out.writeByte(0);
+        }
+    }
+
+    /** Write to OUT, after padding, the L + 1 starts of the successor
+     *  lists of MAP's vertices if OUTGOING, and otherwise of their
+     *  predecessor lists. */
+    private static void writeStarts(Output out, RoadMap map,
+                                    boolean outgoing) throws IOException {
+        pad(out);
+        int start = 0;
+        out.writeInt(start);
+        for (int v = 1; v <= map.vertexSize(); v += 1) {
+            start += outgoing ? map.outDegree(v) : map.inDegree(v);
+            out.writeInt(start);
+        }
+        pad(out);
+    }
+
+    /** Returns the index of S in NAMES, adding it if necessary, where
+     *  INDEX maps each member of NAMES to its index. */
+    private static int intern(String s, ArrayList<String> names,
+                              HashMap<String, Integer> index) {
+        Integer k = index.get(s);
+        if (k == null) {
+            k = names.size();
+            names.add(s);
+            index.put(s, k);
+        }
+        return k;
+    }
+
+    /** The arrays of a binary map file, each mapped into memory in turn. */
+    private static final class Sections {
+        /** The arrays of CHAN, which reads the file named NAME. */
+        Sections(FileChannel chan, String name) throws IOException {
+            _chan = chan;
+            _name = name;
+            _size = chan.size();
+        }
+
+        /** Returns the next array, of COUNT items of SIZE bytes each,
+         *  which starts at the first multiple of ALIGN at or after the end
+         *  of the last. */
+        ByteBuffer next(int count, int size) throws IOException {
+            long start = (_end + ALIGN - 1) / ALIGN * ALIGN;
+            long bytes = (long) count * size;
+            if (count < 0 || start + bytes > _size) {
+                throw new IndexOutOfBoundsException();
+            }
+            if (bytes > MAX_SECTION) {
+                error("%s has an array of over 2 GiB, which cannot be read",
+                      _name);
+            }
+            _end = start + bytes;
+            return _chan.map(FileChannel.MapMode.READ_ONLY, start, bytes);
+        }
+
+        /** The file. */
+        private final FileChannel _chan;
+        /** Its name. */
+        private final String _name;
+        /** Its size in bytes. */
+        private final long _size;
+        /** Offset just past the last array returned. */
+        private long _end;
+    }
+
+    /** A DataOutputStream that counts the bytes written to it in a long,
+     *  since its size() stops at Integer.MAX_VALUE. */
+    private static final class Output extends DataOutputStream {
+        /** An Output writing to OUT. */
+        Output(OutputStream out) {
+            super(new Counter(out));
+        }
+
+        /** Returns the number of bytes written to me. */
+        long offset() {
+            return ((Counter) out).count;
+        }
+    }
+
+    /** An output stream that counts the bytes passed through it. */
+    private static final class Counter extends FilterOutputStream {
+        /** A Counter writing to OUT. */
+        Counter(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count += 1;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        /** Number of bytes written. */
+        private long count;
+    }
+}
@@ -0,0 +1,322 @@
+package trip;
+
+import java.io.Closeable;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.InputMismatchException;
+import java.util.NoSuchElementException;
+
+import static trip.Main.error;
+
+/** A whitespace-delimited tokenizer for text maps that reads a file
+ *  through a FileChannel into a reused byte buffer.  It replaces
+ *  java.util.Scanner in Trip.readMap and signals errors the same way
+ *  (NoSuchElementException at end of input, InputMismatchException for a
+ *  malformed number), but does no regular-expression matching: numbers of
+ *  up to 15 significant digits are converted directly, and each distinct
+ *  token text becomes a single shared String.
+ *  @author Netra Sathe
+ */
+class MapReader implements Closeable {
+
+    /** Size of the read buffer. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Exact powers of ten representable as doubles. */
+    private static final double[] POW10 = new double[23];
+
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i += 1) {
+            POW10[i] = 10.0 * POW10[i - 1];
+        }
+    }
+
+    /** A reader for the file named NAME. */
+    MapReader(String name) throws FileNotFoundException {
+        _name = name;
+        try {
+            _chan = FileChannel.open(Paths.get(name), StandardOpenOption.READ);
+        } catch (IOException excp) {
+            throw new FileNotFoundException(name);
+        }
+        _buf = ByteBuffer.allocate(BUFFER_SIZE);
+        _buf.flip();
+    }
+
+    /** Returns the number of lines in my file that start with the token
+     *  "L", as a hint for pre-sizing tables of locations.  Does not
+     *  change my position. */
+    int locationCount() {
+        int count = 0;
+        try {
+            ByteBuffer b = ByteBuffer.allocate(BUFFER_SIZE);
+            long pos = 0;
+            int prev = '\n', state = 0;
+            while (true) {
+                b.clear();
+                int n = _chan.read(b, pos);
+                if (n < 0) {
+                    break;
+                }
+                pos += n;
+                for (int i = 0; i < n; i += 1) {
+                    int c = b.get(i);
+                    if (state == 1) {
+                        count += c <= ' ' ? 1 : 0;
+                        state = 0;
+                    }
+                    if (prev == '\n' && c == 'L') {
+                        state = 1;
+                    }
+                    prev = c;
+                }
+            }
+            return count + state;
+        } catch (IOException excp) {
+            return 0;
+        }
+    }
+
+    /** Returns true iff there is another token. */
+    boolean hasNext() {
+        return skipWhitespace();
+    }
+
+    /** Returns the next token. */
+    String next() {
+        readToken();
+        return intern();
+    }
+
+    /** Returns the next token as a double.  Throws InputMismatchException
+     *  if it is not a number, leaving it unread as Scanner does. */
+    double nextDouble() {
+        readToken();
+        double x = parseDouble();
+        if (Double.isNaN(x) && !isNaN()) {
+            _pending = true;
+            throw new InputMismatchException();
+        }
+        return x;
+    }
+
+    @Override
+    public void close() {
+        try {
+            _chan.close();
+        } catch (IOException excp) {
+            return;
+        }
+    }
+
+    /** Skip whitespace, refilling the buffer as needed.  Returns false iff
+     *  the input is exhausted. */
+    private boolean skipWhitespace() {
+        if (_pending) {
+            return true;
+        }
+        while (true) {
+            while (_buf.hasRemaining()) {
+                if (_buf.get(_buf.position()) > ' '
+                    || _buf.get(_buf.position()) < 0) {
+                    return true;
+                }
+                _buf.get();
+            }
+            if (!fill()) {
+                return false;
+            }
+        }
+    }
+
+    /** Refill my buffer.  Returns false at end of file. */
+    private boolean fill() {
+        try {
+            _buf.clear();
+            int n = _chan.read(_buf);
+            _buf.flip();
+            return n > 0 || (n == 0 && fill());
+        } catch (IOException excp) {
+            error("could not read %s", _name);
+            return false;
+        }
+    }
+
+    /** Read the next token into _tok[0 .. _len-1]. */
+    private void readToken() {
+        if (_pending) {
+            _pending = false;
+            return;
+        }
+        if (!skipWhitespace()) {
+            throw new NoSuchElementException();
+        }
+        _len = 0;
+        while (true) {
+            while (_buf.hasRemaining()) {
+                byte c = _buf.get(_buf.position());
+                if (c >= 0 && c <= ' ') {
+                    return;
+                }
+                if (_len == _tok.length) {
+                    _tok = Arrays.copyOf(_tok, 2 * _len);
+                }
+                _tok[_len] = c;
+                _len += 1;
+                _buf.get();
+            }
+            if (!fill()) {
+                return;
+            }
+        }
+    }
+
+    /** Returns the current token as a String, sharing one String among
+     *  all occurrences of the same text. */
+    private String intern() {
+        int h = 0;
+        boolean ascii = true;
+        for (int i = 0; i < _len; i += 1) {
+            h = 31 * h + _tok[i];
+            ascii &= _tok[i] >= 0;
+        }
+        if (!ascii) {
+            String s = new String(_tok, 0, _len, StandardCharsets.UTF_8);
+            String old = _other.putIfAbsent(s, s);
+            return old == null ? s : old;
+        }
+        int mask = _table.length - 1;
+        int i;
+        for (i = h & mask; _table[i] != null; i = (i + 1) & mask) {
+            if (matches(_table[i])) {
+                return _table[i];
+            }
+        }
+        String s = new String(_tok, 0, _len, StandardCharsets.US_ASCII);
+        _table[i] = s;
+        _count += 1;
+        if (2 * _count > _table.length) {
+            String[] old = _table;
+            _table = new String[2 * old.length];
+            mask = _table.length - 1;
+            for (String t : old) {
+                if (t != null) {
+                    int j;
+                    for (j = t.hashCode() & mask; _table[j] != null;
+                         j = (j + 1) & mask) {
+                        continue;
+                    }
+                    _table[j] = t;
+                }
+            }
+        }
+        return s;
+    }
+
+    /** Returns true iff the ASCII string S is the current token. */
+    private boolean matches(String s) {
+        if (s.length() != _len) {
+            return false;
+        }
+        for (int i = 0; i < _len; i += 1) {
+            if (s.charAt(i) != _tok[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns true iff the current token is the text "NaN". */
+    private boolean isNaN() {
+        return _len == 3 && _tok[0] == 'N' && _tok[1] == 'a' && _tok[2] == 'N';
+    }
+
+    /** Returns the value of the current token as a number, or NaN if it
+     *  is not one. */
+    private double parseDouble() {
+        int i = 0;
+        boolean negative = false;
+        if (_len > 0 && (_tok[0] == '-' || _tok[0] == '+')) {
+            negative = _tok[0] == '-';
+            i = 1;
+        }
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean point = false, any = false;
+        for (; i < _len; i += 1) {
+            byte c = _tok[i];
+            if (c == '.' && !point) {
+                point = true;
+            } else if (c >= '0' && c <= '9') {
+                any = true;
+                if (mantissa == 0 && c == '0') {
+                    scale += point ? 1 : 0;
+                    continue;
+                }
+                digits += 1;
+                if (digits > 15) {
+                    return slowParse();
+                }
+                mantissa = 10 * mantissa + (c - '0');
+                scale += point ? 1 : 0;
+            } else {
+                return slowParse();
+            }
+        }
+        if (!any) {
+            return Double.NaN;
+        }
+        if (scale >= POW10.length) {
+            return slowParse();
+        }
+        double x = mantissa / POW10[scale];
+        return negative ? -x : x;
+    }
+
+    /** Returns the value of the current token, parsed by
+     *  Double.parseDouble, or NaN if it is not a number. */
+    private double slowParse() {
+        String s = new String(_tok, 0, _len, StandardCharsets.UTF_8);
+        try {
+            double x = Double.parseDouble(s);
+            char last = s.charAt(s.length() - 1);
+            if (last == 'd' || last == 'D' || last == 'f' || last == 'F'
+                || s.startsWith("0x") || s.startsWith("0X")) {
+                return Double.NaN;
+            }
+            return x;
+        } catch (NumberFormatException excp) {
+            return Double.NaN;
+        }
+    }
+
+    /** Name of my file. */
+    private final String _name;
+    /** Channel reading my file. */
+    private final FileChannel _chan;
+    /** Unread input is _buf[position .. limit-1]. */
+    private final ByteBuffer _buf;
+    /** Bytes of the current token, in _tok[0 .. _len-1]. */
+    private byte[] _tok = new byte[64];
+    /** Length of the current token. */
+    private int _len;
+    /** True iff the current token was rejected by nextDouble and is to be
+     *  delivered again. */
+    private boolean _pending;
+    /** Open-addressing table of the ASCII tokens seen so far. */
+    private String[] _table = new String[1024];
+    /** Number of entries in _table. */
+    private int _count;
+    /** Tokens seen so far that are not plain ASCII. */
+    private final HashMap<String, String> _other = new HashMap<>();
+}
@@ -0,0 +1,405 @@
+package trip;
+
+import graph.Graph;
+import graph.Iteration;
+
+import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+import java.util.NoSuchElementException;
+
+import static trip.Main.error;
+
+/** A RoadMap that reads a binary map file (see MapFile) in place.  Its
+ *  graph is the file's compressed-sparse-row arrays, viewed through
+ *  buffers on the mapped file, so loading allocates nothing per location
+ *  or road.  Locations and Roads are made when asked for, names are
+ *  decoded when used, and locations are found by name by binary search
+ *  of an index sorted by name.  The map is read-only: its structure,
+ *  labels, and weights cannot be changed.  Edge ids are positions in the
+ *  file's segment arrays, plus 1.
+ *  @author Netra Sathe
+ */
+final class MappedMap extends RoadMap {
+
+    /** A map of the given locations and roads, all of whose buffers are
+     *  read with absolute gets only, so it may be shared between threads.
+     *  Names are NAMEBYTES[NAMESTART[I] .. NAMESTART[I+1]-1] in UTF-8.
+     *  Location #V (from 1) is named LOCNAME[V-1] and at (X[V-1],
+     *  Y[V-1]), and BYNAME lists the locations in order of name.  The
+     *  segments leaving V are numbered OUTSTART[V-1] .. OUTSTART[V]-1; the
+     *  one numbered E leads to TARGETS[E], has name ROADNAME[E] and length
+     *  LENGTH[E], and runs in the Direction whose ordinal is DIR[E].
+     *  Likewise, the locations that segments leading to V come from are
+     *  SOURCES[INSTART[V-1] .. INSTART[V]-1]. */
+    MappedMap(IntBuffer nameStart, ByteBuffer nameBytes, IntBuffer locName,
+              IntBuffer byName, DoubleBuffer x, DoubleBuffer y,
+              IntBuffer outStart, IntBuffer targets, IntBuffer roadName,
+              DoubleBuffer length, ByteBuffer dir,
+              IntBuffer inStart, IntBuffer sources) {
+        this(new Csr(outStart, targets, inStart, sources), nameStart,
+             nameBytes, locName, byName, x, y, roadName, length, dir);
+    }
+
+    /** A map whose graph is G, with the other arguments as for the public
+     *  constructor. */
+    private MappedMap(Csr G, IntBuffer nameStart, ByteBuffer nameBytes,
+                      IntBuffer locName, IntBuffer byName,
+                      DoubleBuffer x, DoubleBuffer y, IntBuffer roadName,
+                      DoubleBuffer length, ByteBuffer dir) {
+        super(G, 0);
+        _csr = G;
+        _nameStart = nameStart;
+        _nameBytes = nameBytes;
+        _locName = locName;
+        _byName = byName;
+        _x = x;
+        _y = y;
+        _roadName = roadName;
+        _length = length;
+        _dir = dir;
+    }
+
+    @Override
+    int vertex(String name) {
+        int lo = 0, hi = _byName.limit() - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int v = _byName.get(mid);
+            int c = name(_locName.get(v - 1)).compareTo(name);
+            if (c == 0) {
+                return v;
+            } else if (c < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return 0;
+    }
+
+    @Override
+    double dist(int u, int v) {
+        checkMyVertex(u);
+        checkMyVertex(v);
+        double dx = _x.get(u - 1) - _x.get(v - 1),
+            dy = _y.get(u - 1) - _y.get(v - 1);
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    @Override
+    public Location getLabel(int v) {
+        checkMyVertex(v);
+        return new Location(name(_locName.get(v - 1)), _x.get(v - 1),
+                            _y.get(v - 1));
+    }
+
+    @Override
+    public Road getLabel(int u, int v) {
+        int e = segment(u, v);
+        return new Road(name(_roadName.get(e)), DIRECTIONS[_dir.get(e)],
+                        _length.get(e));
+    }
+
+    @Override
+    public double getWeight(int u, int v) {
+        return _length.get(segment(u, v));
+    }
+
+    @Override
+    public double successorWeight(int v, int k) {
+        if (k < 0 || k >= outDegree(v)) {
+            return 0.0;
+        }
+        return _length.get(_csr.outStart.get(v - 1) + k);
+    }
+
+    @Override
+    public int add(Location lab) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setLabel(int v, Location lab) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setLabel(int u, int v, Road lab) {
+        throw readOnly();
+    }
+
+    @Override
+    public void setWeight(int u, int v, double w) {
+        throw readOnly();
+    }
+
+    /** Does nothing, since I am read-only already. */
+    @Override
+    public void freeze() {
+    }
+
+    /** Returns the number of the segment (U, V), which must exist. */
+    private int segment(int u, int v) {
+        int e = edgeId(u, v);
+        if (e == 0) {
+            error("no such edge");
+        }
+        return e - 1;
+    }
+
+    /** Returns name number K. */
+    private String name(int k) {
+        int start = _nameStart.get(k);
+        byte[] bytes = new byte[_nameStart.get(k + 1) - start];
+        _nameBytes.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** Returns the exception thrown by all modifiers. */
+    private static UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("map is read-only");
+    }
+
+    /** The Directions, indexed by ordinal. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** My graph. */
+    private final Csr _csr;
+    /** Start of each name in _nameBytes, and the end of the last. */
+    private final IntBuffer _nameStart;
+    /** The UTF-8 bytes of all names. */
+    private final ByteBuffer _nameBytes;
+    /** Name number of each location. */
+    private final IntBuffer _locName;
+    /** Locations in order of name. */
+    private final IntBuffer _byName;
+    /** Coordinates of each location. */
+    private final DoubleBuffer _x, _y;
+    /** Name number of each segment. */
+    private final IntBuffer _roadName;
+    /** Length of each segment. */
+    private final DoubleBuffer _length;
+    /** Direction ordinal of each segment. */
+    private final ByteBuffer _dir;
+
+    /** A read-only directed graph in compressed-sparse-row form, kept in
+     *  IntBuffers.  Its vertices are 1 .. N. */
+    private static final class Csr extends Graph {
+
+        /** A graph in which the successors of V are TARGETS[OUTSTART[V-1]
+         *  .. OUTSTART[V]-1], and its predecessors are
+         *  SOURCES[INSTART[V-1] .. INSTART[V]-1]. */
+        Csr(IntBuffer outStart, IntBuffer targets, IntBuffer inStart,
+            IntBuffer sources) {
+            this.outStart = outStart;
+            this.targets = targets;
+            this.inStart = inStart;
+            this.sources = sources;
+            n = outStart.limit() - 1;
+        }
+
+        @Override
+        public int vertexSize() {
+            return n;
+        }
+
+        @Override
+        public int maxVertex() {
+            return n;
+        }
+
+        @Override
+        public int edgeSize() {
+            return targets.limit();
+        }
+
+        @Override
+        public boolean isDirected() {
+            return true;
+        }
+
+        @Override
+        public int outDegree(int v) {
+            return contains(v) ? outStart.get(v) - outStart.get(v - 1) : 0;
+        }
+
+        @Override
+        public int inDegree(int v) {
+            return contains(v) ? inStart.get(v) - inStart.get(v - 1) : 0;
+        }
+
+        @Override
+        public boolean contains(int u) {
+            return u > 0 && u <= n;
+        }
+
+        @Override
+        public boolean contains(int u, int v) {
+            return edgeId(u, v) != 0;
+        }
+
+        @Override
+        public int add() {
+            throw readOnly();
+        }
+
+        @Override
+        public int add(int u, int v) {
+            throw readOnly();
+        }
+
+        @Override
+        public void remove(int v) {
+            throw readOnly();
+        }
+
+        @Override
+        public void remove(int u, int v) {
+            throw readOnly();
+        }
+
+        @Override
+        public Iteration<Integer> vertices() {
+            return new Iteration<Integer>() {
+                @Override
+                public boolean hasNext() {
+                    return v <= n;
+                }
+
+                @Override
+                public Integer next() {
+                    if (v > n) {
+                        throw new NoSuchElementException();
+                    }
+                    v += 1;
+                    return v - 1;
+                }
+
+                /** The next vertex to deliver. */
+                private int v = 1;
+            };
+        }
+
+        @Override
+        public int successor(int v, int k) {
+            if (k < 0 || k >= outDegree(v)) {
+                return 0;
+            }
+            return targets.get(outStart.get(v - 1) + k);
+        }
+
+        @Override
+        public int predecessor(int v, int k) {
+            if (k < 0 || k >= inDegree(v)) {
+                return 0;
+            }
+            return sources.get(inStart.get(v - 1) + k);
+        }
+
+        @Override
+        public Iteration<Integer> successors(int v) {
+            if (!contains(v)) {
+                return new Slice(targets, 0, 0);
+            }
+            return new Slice(targets, outStart.get(v - 1), outStart.get(v));
+        }
+
+        @Override
+        public Iteration<Integer> predecessors(int v) {
+            if (!contains(v)) {
+                return new Slice(sources, 0, 0);
+            }
+            return new Slice(sources, inStart.get(v - 1), inStart.get(v));
+        }
+
+        @Override
+        public Iteration<int[]> edges() {
+            return new Iteration<int[]>() {
+                @Override
+                public boolean hasNext() {
+                    return e < targets.limit();
+                }
+
+                @Override
+                public int[] next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    while (outStart.get(u) <= e) {
+                        u += 1;
+                    }
+                    edge[0] = u;
+                    edge[1] = targets.get(e);
+                    e += 1;
+                    return edge;
+                }
+
+                /** The next segment to deliver. */
+                private int e;
+                /** The source of segment e is at least U. */
+                private int u = 1;
+                /** The (reused) result of next(). */
+                private final int[] edge = new int[2];
+            };
+        }
+
+        @Override
+        protected int edgeId(int u, int v) {
+            if (!contains(u) || !contains(v)) {
+                return 0;
+            }
+            for (int e = outStart.get(u - 1), end = outStart.get(u);
+                 e < end; e += 1) {
+                if (targets.get(e) == v) {
+                    return e + 1;
+                }
+            }
+            return 0;
+        }
+
+        /** Number of vertices. */
+        private final int n;
+        /** Start of the segments leaving each vertex. */
+        private final IntBuffer outStart;
+        /** End of each segment. */
+        private final IntBuffer targets;
+        /** Start of the segments entering each vertex. */
+        private final IntBuffer inStart;
+        /** Sources of the segments entering each vertex. */
+        private final IntBuffer sources;
+    }
+
+    /** An iteration over part of an IntBuffer. */
+    private static final class Slice extends Iteration<Integer> {
+        /** An iteration over ITEMS[START .. END-1]. */
+        Slice(IntBuffer items, int start, int end) {
+            _items = items;
+            _k = start;
+            _end = end;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return _k < _end;
+        }
+
+        @Override
+        public Integer next() {
+            if (_k >= _end) {
+                throw new NoSuchElementException();
+            }
+            _k += 1;
+            return _items.get(_k - 1);
+        }
+
+        /** The items. */
+        private final IntBuffer _items;
+        /** Index of the next item to deliver. */
+        private int _k;
+        /** Index just past the last item to deliver. */
+        private final int _end;
+    }
+}
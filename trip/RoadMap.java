@@ -0,0 +1,57 @@
+package trip;
+
+import graph.DirectedGraph;
+import graph.Graph;
+import graph.LabeledGraph;
+
+import java.util.HashMap;
+
+/** A labeled directed graph of Locations whose edges are labeled by
+ *  Roads and weighted by their lengths, with an index of the locations
+ *  by name.
+ *  @author Netra Sathe
+ */
+class RoadMap extends LabeledGraph<Location, Road> {
+
+    /** An empty RoadMap. */
+    RoadMap() {
+        this(0);
+    }
+
+    /** An empty RoadMap expected to hold about LOCATIONS locations. */
+    RoadMap(int locations) {
+        this(new DirectedGraph(), locations);
+    }
+
+    /** A RoadMap on G, expected to hold about LOCATIONS locations.
+     *  Subclasses that keep their own labels and name index pass 0. */
+    RoadMap(Graph G, int locations) {
+        super(G);
+        _sites = new HashMap<>(2 * locations + 16);
+    }
+
+    /** Returns the vertex of the location named NAME, or 0 if there is
+     *  none. */
+    int vertex(String name) {
+        Integer v = _sites.get(name);
+        return v == null ? 0 : v;
+    }
+
+    /** Returns the straight-line distance between the locations at
+     *  vertices U and V. */
+    double dist(int u, int v) {
+        return getLabel(u).dist(getLabel(v));
+    }
+
+    /** Adds a new vertex for location LAB, which must be named
+     *  differently from all my other locations, and returns it. */
+    @Override
+    public int add(Location lab) {
+        int v = super.add(lab);
+        _sites.put(lab.toString(), v);
+        return v;
+    }
+
+    /** Mapping of Location names to corresponding map vertices. */
+    private final HashMap<String, Integer> _sites;
+}
@@ -1,17 +1,18 @@
 package trip;
 
-import graph.DirectedGraph;
-import graph.LabeledGraph;
-import graph.SimpleShortestPaths;
+import graph.WeightedGraphPaths;
 
+import java.io.File;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.InputMismatchException;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import static trip.Main.error;
 
@@ -22,12 +23,24 @@ import static trip.Main.error;
  */
 class Trip {
 
-    /** Read map file named NAME into out map graph. */
+    /** Read map file named NAME into out map graph, which is then frozen,
+     *  since trips only ever read it.  NAME may be a text map, which is
+     *  tokenized by a MapReader, or a binary map written by writeMap,
+     *  which is used in place (see MapFile) and must be the only map. */
     void readMap(String name) {
+        if (MapFile.isBinary(name)) {
+            if (m.vertexSize() != 0) {
+                error("map %s loaded into a non-empty graph", name);
+            }
+            m = MapFile.read(name);
+            return;
+        }
         int k;
         k = 0;
-        try {
-            Scanner inp = new Scanner(new FileReader(name));
+        try (MapReader inp = new MapReader(name)) {
+            if (m.vertexSize() == 0) {
+                m = new RoadMap(inp.locationCount());
+            }
             while (inp.hasNext()) {
                 k += 1;
                 switch (inp.next()) {
@@ -44,6 +57,7 @@ class Trip {
                     break;
                 }
             }
+            m.freeze();
         } catch (NullPointerException excp) {
             error(excp.getMessage());
         } catch (InputMismatchException excp) {
@@ -55,8 +69,53 @@ class Trip {
         }
     }
 
+    /** Write my map to the file named NAME in binary form (see MapFile). */
+    void writeMap(String name) {
+        MapFile.write(name, m);
+    }
+
+    /** Answer route queries from now on with a contraction hierarchy of
+     *  the map, which must already have been read.  The hierarchy is read
+     *  from the file named NAME if that exists and was built for this
+     *  version of the map, and is otherwise built and stored there. */
+    void useHierarchy(String name) {
+        ch = null;
+        if (new File(name).exists()) {
+            ch = ContractionHierarchy.read(name, m);
+        }
+        if (ch == null) {
+            ch = new ContractionHierarchy(m);
+            ch.write(name);
+        }
+    }
+
+    /** Returns the vertices of a shortest route from FROM to TO, starting
+     *  with FROM. */
+    List<Integer> route(int from, int to) {
+        if (ch != null) {
+            return ch.path(from, to);
+        }
+        TripPlan plan = new TripPlan(from, to);
+        plan.setPaths();
+        List<Integer> result = plan.pathTo(to);
+        plan.release();
+        return result;
+    }
+
+    /** Plan the legs of trips on up to J threads at once.  J is 1 by
+     *  default, which plans each leg in turn on the calling thread. */
+    void setParallelism(int j) {
+        if (j < 1) {
+            error("parallelism must be positive");
+        }
+        parallelism = j;
+    }
+
     /** Produce a report on the standard output of a shortest journey from
-     *  DESTS.get(0), then DESTS.get(1), .... */
+     *  DESTS.get(0), then DESTS.get(1), ....  The legs are planned
+     *  concurrently if setParallelism allows, since each plan has its own
+     *  search state and the map is frozen, but are reported in order, and
+     *  an unknown location is reported after the legs that precede it. */
     void makeTrip(List<String> dests) {
         if (dests.size() < 2) {
             error("must have at least two locations for a trip");
@@ -65,23 +124,90 @@ class Trip {
         System.out.printf("From %s:%n%n", dests.get(0));
         int trippy;
 
-        trippy = 1;
-        for (int i = 1; i < dests.size(); i += 1) {
-            Integer
-                    from = sitez .get(dests.get(i - 1)),
-                    to = sitez .get(dests.get(i));
-            if (from == null) {
-                error("No location named %s", dests.get(i - 1));
-            } else if (to == null) {
-                error("No location named %s", dests.get(i));
+        int[] stops = new int[dests.size()];
+        int known;
+        for (known = 0; known < stops.length; known += 1) {
+            int v = m.vertex(dests.get(known));
+            if (v == 0) {
+                break;
+            }
+            stops[known] = v;
+        }
+
+        ArrayList<Future<List<Integer>>> legs = new ArrayList<>();
+        ForkJoinPool pool =
+            parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+        try {
+            for (int i = 1; i < known; i += 1) {
+                int from = stops[i - 1], to = stops[i];
+                if (pool == null) {
+                    legs.add(CompletableFuture.completedFuture(
+                                 route(from, to)));
+                } else {
+                    legs.add(pool.submit(() -> route(from, to)));
+                }
+            }
+
+            trippy = 1;
+            for (int i = 1; i < dests.size(); i += 1) {
+                if (i - 1 >= known) {
+                    error("No location named %s", dests.get(i - 1));
+                } else if (i >= known) {
+                    error("No location named %s", dests.get(i));
+                }
+                List<Integer> seg = legs.get(i - 1).get();
+                trippy = reportSegment(trippy, stops[i - 1], seg);
+            }
+        } catch (ExecutionException excp) {
+            if (excp.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) excp.getCause();
+            }
+            throw new IllegalStateException(excp.getCause());
+        } catch (InterruptedException excp) {
+            Thread.currentThread().interrupt();
+            error("trip planning interrupted");
+        } finally {
+            if (pool != null) {
+                pool.shutdownNow();
             }
-            TripPlan plan = new TripPlan(from, to);
-            plan.setPaths();
-            List<Integer> seg = plan.pathTo(to);
-            trippy = reportSegment(trippy, from, seg);
         }
     }
 
+    /** Print on the standard output a table of the distances of shortest
+     *  routes between each pair of locations in NAMES: a line of the names,
+     *  and then for each location, its name and the distances from it to
+     *  each location in turn, all separated by tabs.  Unreachable
+     *  locations are shown as "-". */
+    void printDistances(List<String> names) {
+        int[] sites = new int[names.size()];
+        for (int i = 0; i < sites.length; i += 1) {
+            sites[i] = m.vertex(names.get(i));
+            if (sites[i] == 0) {
+                error("No location named %s", names.get(i));
+            }
+        }
+        double[][] dist =
+            new DistanceMatrix(m, sites, sites).compute(parallelism);
+        StringBuilder out = new StringBuilder();
+        for (String name : names) {
+            out.append('\t').append(name);
+        }
+        out.append(System.lineSeparator());
+        for (int i = 0; i < sites.length; i += 1) {
+            out.append(names.get(i));
+            for (double d : dist[i]) {
+                out.append('\t');
+                if (d == Double.POSITIVE_INFINITY) {
+                    out.append('-');
+                } else {
+                    out.append(String.format("%.1f", d));
+                }
+            }
+            out.append(System.lineSeparator());
+        }
+        System.out.print(out);
+    }
+
     /** Print out a written description of the location sequence SEGMENT,
      *  starting at FROM, and numbering the lines of the description starting
      *  at SEQ.  That is, FROM and each item in SEGMENT are the
@@ -130,11 +256,10 @@ class Trip {
 
     /** Add a new location named NAME at (X, Y). */
     private void addLocation(String name, double x, double y) {
-        if (sitez .containsKey(name)) {
+        if (m.vertex(name) != 0) {
             error("multiple entries for %s", name);
         }
-        int v = m.add(new Location(name, x, y));
-        sitez .put(name, v);
+        m.add(new Location(name, x, y));
     }
 
     /** Add a stretch of road named NAME from the Location named FROM
@@ -143,56 +268,59 @@ class Trip {
      *  to FROM. */
     private void addRoad(String from, String name, double length,
                          Direction dir, String to) {
-        Integer v0 = sitez .get(from),
-                v1 = sitez .get(to);
+        int v0 = m.vertex(from),
+            v1 = m.vertex(to);
 
-        if (v0 == null) {
+        if (v0 == 0) {
             error("location %s not defined", from);
-        } else if (v1 == null) {
+        } else if (v1 == 0) {
             error("location %s not defined", to);
         }
 
         Road rd = new Road(name, dir, length);
         Road rd2 = new Road(name, dir.reverse(), length);
-        m.add(v0, v1, rd);
-        m.add(v1, v0, rd2);
+        m.add(v0, v1, rd, length);
+        m.add(v1, v0, rd2, length);
     }
 
     /** Represents the network of Locations and Roads. */
     private RoadMap m = new RoadMap();
-    /** Mapping of Location names to corresponding map vertices. */
-    private HashMap<String, Integer> sitez = new HashMap<>();
-
-    /** A labeled directed graph of Locations whose edges are labeled by
-     *  Roads. */
-    private static class RoadMap extends LabeledGraph<Location, Road> {
-        /** An empty RoadMap. */
-        RoadMap() {
-            super(new DirectedGraph());
-        }
-    }
+    /** Maximum number of legs planned at once. */
+    private int parallelism = 1;
+    /** Contraction hierarchy answering route queries, or null to search
+     *  the map directly. */
+    private ContractionHierarchy ch;
 
     /** Paths in _map from a given location. */
-    private class TripPlan extends SimpleShortestPaths {
+    private class TripPlan extends WeightedGraphPaths {
+
+        /** Vertex of destination. */
+        private final int locn;
 
-        /** Location of destination. */
-        private final Location locn;
+        /** Vertex of start. */
+        private final int origin;
 
 
         /** A plan for travel from START to DEST according to _map. */
         TripPlan(int start, int dest) {
             super(m, start, dest);
-            locn = m.getLabel(dest);
+            locn = dest;
+            origin = start;
         }
 
         @Override
-        protected double getWeight(int u, int v) {
-            return m.getLabel(u, v).length();
+        protected double estimatedDistance(int v) {
+            return m.dist(v, locn);
         }
 
         @Override
-        protected double estimatedDistance(int v) {
-            return m.getLabel(v).dist(locn);
+        protected double estimatedReverseDistance(int v) {
+            return m.dist(v, origin);
+        }
+
+        @Override
+        protected boolean bidirectional() {
+            return true;
         }
 
 
@@ -8,7 +8,21 @@ package trip;
 import org.junit.Test;
 import ucb.junit.textui;
 
+import graph.DirectedGraph;
+import graph.LabeledGraph;
+import graph.ShortestPaths;
+import graph.WeightedGraphPaths;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -32,4 +46,332 @@ public class UnitTest {
         lol.readMap("Nonexistent");
     }
 
+    /** Returns a road grid of SIDE x SIDE locations with random lengths
+     *  and a few missing roads, generated from SEED. */
+    private static LabeledGraph<Integer, String> grid(int side, long seed) {
+        Random r = new Random(seed);
+        LabeledGraph<Integer, String> g =
+            new LabeledGraph<>(new DirectedGraph());
+        for (int v = 1; v <= side * side; v += 1) {
+            g.add(v);
+        }
+        for (int v = 1; v <= side * side; v += 1) {
+            for (int u : new int[] { v + 1, v + side }) {
+                if (u <= side * side && (u != v + 1 || v % side != 0)
+                    && r.nextInt(6) != 0) {
+                    g.add(u, v, "r", 1 + r.nextDouble());
+                    g.add(v, u, "r", 1 + r.nextDouble());
+                }
+            }
+        }
+        return g;
+    }
+
+    /** Check that CH finds the same routes as a plain search in G,
+     *  using random queries from SEED. */
+    private static void checkRoutes(ContractionHierarchy ch,
+                                    LabeledGraph<Integer, String> g,
+                                    long seed) {
+        Random r = new Random(seed);
+        int n = g.maxVertex();
+        for (int i = 0; i < 100; i += 1) {
+            int s = r.nextInt(n) + 1, t = r.nextInt(n) + 1;
+            ShortestPaths p = new WeightedGraphPaths(g, s, t);
+            p.setPaths();
+            assertEquals(p.pathTo(t), ch.path(s, t));
+            if (p.pathTo(t).get(0) == s) {
+                assertEquals(p.getWeight(t), ch.distance(s, t), 1e-9);
+            }
+        }
+    }
+
+    /** Check that reading the hierarchy file F for G is reported as an
+     *  error. */
+    private static void assertNotHierarchy(File f,
+                                           LabeledGraph<Integer, String> g) {
+        try {
+            ContractionHierarchy.read(f.getPath(), g);
+            fail("bad hierarchy file accepted");
+        } catch (IllegalArgumentException excp) {
+            assertTrue(excp.getMessage().contains("not a hierarchy file"));
+        }
+    }
+
+    @Test
+    public void testContractionHierarchy() throws IOException {
+        LabeledGraph<Integer, String> g = grid(25, 3);
+        ContractionHierarchy ch = new ContractionHierarchy(g);
+        checkRoutes(ch, g, 5);
+        File f = File.createTempFile("trip", ".ch");
+        try {
+            ch.write(f.getPath());
+            checkRoutes(ContractionHierarchy.read(f.getPath(), g), g, 6);
+            int u = g.successor(1, 0);
+            g.setWeight(1, u, 2 * g.getWeight(1, u));
+            assertNull(ContractionHierarchy.read(f.getPath(), g));
+            g.setWeight(1, u, g.getWeight(1, u) / 2);
+            int n = g.maxVertex();
+            long lengthAt = 20 + 4 * (n + 1) + 4 * (n + 2);
+            try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+                raf.seek(lengthAt);
+                int length = raf.readInt();
+                for (int bad : new int[] { -1, Integer.MAX_VALUE }) {
+                    raf.seek(lengthAt);
+                    raf.writeInt(bad);
+                    assertNotHierarchy(f, g);
+                }
+                raf.seek(lengthAt);
+                raf.writeInt(length);
+                raf.writeInt(n + 1);
+                assertNotHierarchy(f, g);
+                raf.setLength(lengthAt + 8);
+                assertNotHierarchy(f, g);
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
+    /** Write to F a text map of a SIDE x SIDE grid of locations named P1,
+     *  P2, ..., with road lengths drawn from R. */
+    private static void writeGridMap(File f, int side, Random r)
+        throws IOException {
+        try (PrintWriter out = new PrintWriter(f)) {
+            for (int v = 1; v <= side * side; v += 1) {
+                out.printf("L P%d %d %d%n", v, v % side, v / side);
+            }
+            for (int v = 1; v + side <= side * side; v += 1) {
+                out.printf("R P%d Road_%d %.2f NS P%d%n", v, v % 3,
+                           1 + r.nextDouble(), v + side);
+                out.printf("R P%d Ave_%d %.2f WE P%d%n", v, v % 4,
+                           1 + r.nextDouble(), v + 1);
+            }
+        }
+    }
+
+    /** Returns the standard output of planning a trip through STOPS with
+     *  the map in F and the given PARALLELISM. */
+    private static String tripReport(File f, List<String> stops,
+                                     int parallelism) {
+        PrintStream stdout = System.out;
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(bytes, true));
+            Trip trip = new Trip();
+            trip.setParallelism(parallelism);
+            trip.readMap(f.getPath());
+            trip.makeTrip(stops);
+        } finally {
+            System.setOut(stdout);
+        }
+        return bytes.toString();
+    }
+
+    @Test
+    public void testParallelLegs() throws IOException {
+        File text = File.createTempFile("trip", ".map");
+        try {
+            Random r = new Random(12);
+            writeGridMap(text, 15, r);
+            ArrayList<String> stops = new ArrayList<>();
+            for (int i = 0; i < 25; i += 1) {
+                stops.add("P" + (r.nextInt(15 * 15) + 1));
+            }
+            String expected = tripReport(text, stops, 1);
+            assertEquals(expected, tripReport(text, stops, 4));
+            assertEquals(expected, tripReport(text, stops, 25));
+        } finally {
+            text.delete();
+        }
+    }
+
+    @Test
+    public void testBinaryMap() throws IOException {
+        File text = File.createTempFile("trip", ".map");
+        File binary = File.createTempFile("trip", ".bin");
+        try {
+            Random r = new Random(9);
+            int side = 12;
+            writeGridMap(text, side, r);
+            Trip fromText = new Trip();
+            fromText.readMap(text.getPath());
+            fromText.writeMap(binary.getPath());
+            Trip fromBinary = new Trip();
+            fromBinary.readMap(binary.getPath());
+            for (int i = 0; i < 50; i += 1) {
+                int s = r.nextInt(side * side) + 1;
+                int t = r.nextInt(side * side) + 1;
+                assertEquals(fromText.route(s, t), fromBinary.route(s, t));
+            }
+        } finally {
+            text.delete();
+            binary.delete();
+        }
+    }
+
+    /** Returns the successors and predecessors of each vertex of G. */
+    private static List<List<Integer>> neighbors(RoadMap G) {
+        ArrayList<List<Integer>> result = new ArrayList<>();
+        for (int v = 1; v <= G.maxVertex(); v += 1) {
+            ArrayList<Integer> succ = new ArrayList<>(),
+                pred = new ArrayList<>();
+            for (int w : G.successors(v)) {
+                succ.add(w);
+            }
+            for (int w : G.predecessors(v)) {
+                pred.add(w);
+            }
+            result.add(succ);
+            result.add(pred);
+        }
+        return result;
+    }
+
+    @Test
+    public void testMappedMap() throws IOException {
+        Random r = new Random(5);
+        RoadMap text = new RoadMap();
+        int n = 60;
+        for (int v = 1; v <= n; v += 1) {
+            text.add(new Location("Ort_\u00e9" + (v * 37 % n),
+                                  r.nextInt(100), r.nextInt(100)));
+        }
+        for (int i = 0; i < 4 * n; i += 1) {
+            int u = r.nextInt(n) + 1, v = r.nextInt(n) + 1;
+            Direction dir = Direction.values()[r.nextInt(4)];
+            text.add(u, v, new Road("Rd" + r.nextInt(9), dir, i), i);
+        }
+        File f = File.createTempFile("trip", ".bin");
+        try {
+            MapFile.write(f.getPath(), text);
+            RoadMap mapped = MapFile.read(f.getPath());
+            assertEquals(text.vertexSize(), mapped.vertexSize());
+            assertEquals(text.edgeSize(), mapped.edgeSize());
+            assertEquals(neighbors(text), neighbors(mapped));
+            for (int v = 1; v <= n; v += 1) {
+                String name = text.getLabel(v).toString();
+                assertEquals(name, mapped.getLabel(v).toString());
+                assertEquals(v, mapped.vertex(name));
+                assertEquals(text.dist(v, 1), mapped.dist(v, 1), 0.0);
+                for (int k = 0; k < text.outDegree(v); k += 1) {
+                    int w = text.successor(v, k);
+                    Road a = text.getLabel(v, w), b = mapped.getLabel(v, w);
+                    assertEquals(a.toString(), b.toString());
+                    assertEquals(a.direction(), b.direction());
+                    assertEquals(a.length(), b.length(), 0.0);
+                    assertEquals(text.getWeight(v, w),
+                                 mapped.successorWeight(v, k), 0.0);
+                }
+            }
+            assertEquals(0, mapped.vertex("Ort_"));
+            assertEquals(0, mapped.vertex("Zzz"));
+            int count = 0;
+            for (int[] e : mapped.edges()) {
+                assertTrue(text.contains(e[0], e[1]));
+                count += 1;
+            }
+            assertEquals(text.edgeSize(), count);
+            try {
+                mapped.add(1, 2);
+                fail("changed a mapped map");
+            } catch (UnsupportedOperationException excp) {
+                assertEquals(text.edgeSize(), mapped.edgeSize());
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
+    /** Returns the message of the error raised by reading a map whose
+     *  text is CONTENTS, or null if there is none. */
+    private static String mapError(String contents) throws IOException {
+        File f = File.createTempFile("trip", ".map");
+        try {
+            try (PrintWriter out = new PrintWriter(f)) {
+                out.print(contents);
+            }
+            new Trip().readMap(f.getPath());
+            return null;
+        } catch (IllegalArgumentException excp) {
+            return excp.getMessage();
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testMapErrors() throws IOException {
+        assertNull(mapError("L A 1 2\nL B 3.5 -4e1\nR A X 2 NS B\n"));
+        assertEquals("map entry #2: unknown type",
+                     mapError("L A 1 2\nQ B 3 4\n"));
+        assertEquals("bad entry #2", mapError("L A 1 2\nL B 3 x4\n"));
+        assertEquals("entry incomplete at end of file",
+                     mapError("L A 1 2\nL B 3"));
+        assertEquals("improper direction name: UP",
+                     mapError("L A 1 2\nL B 3 4\nR A X 2 UP B\n"));
+    }
+
+    @Test
+    public void testMapReaderNumbers() throws IOException {
+        Random r = new Random(4);
+        String[] words = new String[200];
+        for (int i = 0; i < words.length; i += 1) {
+            switch (i % 4) {
+            case 0:
+                words[i] = Double.toString(r.nextGaussian() * 1e4);
+                break;
+            case 1:
+                words[i] = String.format("%.2f", r.nextDouble() * 1e3 - 500);
+                break;
+            case 2:
+                words[i] = Long.toString(r.nextLong());
+                break;
+            default:
+                words[i] = "0.000" + r.nextInt(1000000);
+                break;
+            }
+        }
+        File f = File.createTempFile("trip", ".txt");
+        try {
+            try (PrintWriter out = new PrintWriter(f)) {
+                out.println(String.join(" \n\t", words));
+            }
+            try (MapReader inp = new MapReader(f.getPath())) {
+                for (String w : words) {
+                    assertEquals(Double.parseDouble(w), inp.nextDouble(), 0.0);
+                }
+                assertFalse(inp.hasNext());
+            }
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testDistanceMatrix() {
+        LabeledGraph<Integer, String> g = grid(20, 8);
+        Random r = new Random(2);
+        int[] sources = new int[12], targets = new int[7];
+        for (int i = 0; i < sources.length; i += 1) {
+            sources[i] = r.nextInt(400) + 1;
+        }
+        for (int j = 0; j < targets.length; j += 1) {
+            targets[j] = r.nextInt(400) + 1;
+        }
+        DistanceMatrix matrix = new DistanceMatrix(g, sources, targets);
+        double[][] serial = matrix.compute(1);
+        assertTrue(Arrays.deepEquals(serial, matrix.compute(4)));
+        for (int i = 0; i < sources.length; i += 1) {
+            ShortestPaths p = new WeightedGraphPaths(g, sources[i]);
+            p.setPaths();
+            for (int j = 0; j < targets.length; j += 1) {
+                if (p.pathTo(targets[j]).get(0) == sources[i]) {
+                    assertEquals(p.getWeight(targets[j]), serial[i][j], 0.0);
+                } else {
+                    assertEquals(Double.POSITIVE_INFINITY, serial[i][j], 0.0);
+                }
+            }
+        }
+    }
+
 }